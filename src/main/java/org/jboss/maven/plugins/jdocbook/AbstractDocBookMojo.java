@@ -24,6 +24,8 @@
 package org.jboss.maven.plugins.jdocbook;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -32,12 +34,20 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.resolver.AbstractArtifactResolutionException;
@@ -61,11 +71,18 @@ import org.jboss.jdocbook.ValueInjection;
 import org.jboss.jdocbook.profile.ProfilingSource;
 import org.jboss.jdocbook.render.RenderingException;
 import org.jboss.jdocbook.render.RenderingSource;
+import org.jboss.jdocbook.translate.PoSynchronizer;
+import org.jboss.jdocbook.translate.PotSynchronizer;
 import org.jboss.jdocbook.translate.TranslationSource;
+import org.jboss.jdocbook.translate.Translator;
+import org.jboss.jdocbook.util.FileUtils;
 import org.jboss.jdocbook.util.ResourceDelegateSupport;
 import org.jboss.jdocbook.util.TranslationUtils;
 import org.jboss.jdocbook.util.XIncludeHelper;
 import org.jboss.jdocbook.xslt.XSLTException;
+import org.jboss.maven.shared.digest.DigestHelper;
+import org.jboss.maven.shared.io.DirectoryCleaner;
+import org.jboss.maven.shared.po.PoStatistics;
 import org.jboss.maven.util.logging.PlexusToMavenPluginLoggingBridge;
 
 /**
@@ -77,6 +94,11 @@ import org.jboss.maven.util.logging.PlexusToMavenPluginLoggingBridge;
 public abstract class AbstractDocBookMojo extends MojoInternalConfigSupport implements DirectoryLayout.BaseInfo {
 	public static final String PLUGIN_NAME = "jdocbook";
 
+	/**
+	 * How many artifacts get resolved at once, at most.
+	 */
+	private static final int RESOLUTION_THREADS = 4;
+
 	/**
 	 * The name of the document (relative to sourceDirectory) which is the
 	 * document to be rendered.
@@ -221,6 +243,7 @@ public abstract class AbstractDocBookMojo extends MojoInternalConfigSupport impl
 			translations = new String[0];
 		}
 
+		TranslationWorkers.enter();
 		try {
 			if ( settings.getActiveProxy() != null ) {
 				doExecuteWithProxy( settings.getActiveProxy() );
@@ -238,6 +261,10 @@ public abstract class AbstractDocBookMojo extends MojoInternalConfigSupport impl
 		catch ( JDocBookProcessException e ) {
 			throw new MojoExecutionException( "Unexpected problem", e );
 		}
+		finally {
+			releasePooledComponentRegistry();
+			TranslationWorkers.leave();
+		}
 	}
 
 	private void doExecuteWithProxy(Proxy proxy) throws JDocBookProcessException {
@@ -331,38 +358,202 @@ public abstract class AbstractDocBookMojo extends MojoInternalConfigSupport impl
 
 	@SuppressWarnings({ "unchecked" })
 	protected List<Artifact> collectArtifactsByType(String type, boolean transitivesFirst) {
-		Set<Artifact> dependencyArtifacts = project.getArtifacts();
-		dependencyArtifacts.addAll( pluginArtifacts );
+		final List<Artifact> resolvedArtifacts = collectResolvedArtifactsByType( type, transitivesFirst );
+		if ( resolvedArtifacts != null ) {
+			return resolvedArtifacts;
+		}
+		getLog().debug( "Not all [" + type + "] artifacts were resolved by Maven, collecting them" );
 
-		DependencyTreeResolutionListener listener = new DependencyTreeResolutionListener(
-				new PlexusToMavenPluginLoggingBridge( getLog() )
-		);
+		Set<Artifact> dependencyArtifacts = new LinkedHashSet<Artifact>( project.getArtifacts() );
+		if ( pluginArtifacts != null ) {
+			dependencyArtifacts.addAll( pluginArtifacts );
+		}
+
+		// the tree (and the artifact files) are shared by all the goals run on the project within the session
+		final ArtifactResolutionCache cache = SessionScope.of( session ).get( ArtifactResolutionCache.class );
+		final String key = ArtifactResolutionCache.key( project.getArtifact(), dependencyArtifacts );
+		DependencyNode rootNode = cache.getTree( key );
+		if ( rootNode == null ) {
+			DependencyTreeResolutionListener listener = new DependencyTreeResolutionListener(
+					new PlexusToMavenPluginLoggingBridge( getLog() )
+			);
+
+			artifactCollector.collect(
+					dependencyArtifacts,
+					project.getArtifact(),
+					project.getManagedVersionMap(),
+					localRepository,
+					project.getRemoteArtifactRepositories(),
+					artifactMetadataSource,
+					null,
+					Collections.singletonList( (ResolutionListener) listener )
+			);
+			rootNode = listener.getRootNode();
+			cache.putTree( key, rootNode );
+		}
+		else {
+			getLog().debug( "Reusing the dependency tree collected earlier in the session" );
+		}
 
-        artifactCollector.collect(
-                dependencyArtifacts,
-                project.getArtifact(),
-                project.getManagedVersionMap(),
-                localRepository,
-                project.getRemoteArtifactRepositories(),
-                artifactMetadataSource,
-                null,
-                Collections.singletonList( (ResolutionListener) listener )
-        );
+		resolveArtifacts( rootNode, cache );
 
 		List<Artifact> artifacts = new ArrayList<Artifact>();
-		processNode( listener.getRootNode(), artifacts, type, transitivesFirst );
+		processNode( rootNode, artifacts, type, transitivesFirst );
 		return artifacts;
 	}
 
+	/**
+	 * Pick the artifacts of the given type among those Maven already resolved for the project and the plugin, ordered
+	 * after (or before) the artifacts depending upon them, as their dependency trail tells.
+	 *
+	 * @param type The artifact type.
+	 * @param transitivesFirst Should the artifacts an artifact depends upon come before it?
+	 *
+	 * @return The artifacts, or null if not all of them are resolved.
+	 */
 	@SuppressWarnings({ "unchecked" })
-	private void processNode(DependencyNode node, List<Artifact> artifacts, String type, boolean transitivesFirst) {
-		final Artifact artifact = node.getArtifact();
-		final boolean isProjectArtifact = project.getArtifact().getId().equals( artifact.getId() );
+	private List<Artifact> collectResolvedArtifactsByType(String type, boolean transitivesFirst) {
+		// the first occurrence of an artifact wins, as with the collector
+		final Map<String,Artifact> artifactsById = new LinkedHashMap<String,Artifact>();
+		final List<Artifact> candidates = new ArrayList<Artifact>( (Set<Artifact>) project.getArtifacts() );
+		if ( pluginArtifacts != null ) {
+			candidates.addAll( (List<Artifact>) pluginArtifacts );
+		}
+		for ( Artifact artifact : candidates ) {
+			if ( include( artifact, type ) && ( !artifact.isResolved() || artifact.getFile() == null ) ) {
+				return null;
+			}
+			if ( !artifactsById.containsKey( artifact.getId() ) ) {
+				artifactsById.put( artifact.getId(), artifact );
+			}
+		}
 
-		if ( ! isProjectArtifact ) {
-			resolveArtifact( artifact );
+		final List<Artifact> roots = new ArrayList<Artifact>();
+		final Map<String,List<Artifact>> children = new HashMap<String,List<Artifact>>();
+		for ( Artifact artifact : artifactsById.values() ) {
+			final List<String> trail = artifact.getDependencyTrail();
+			final String parentId = trail == null || trail.size() < 2 ? null : trail.get( trail.size() - 2 );
+			if ( parentId == null || parentId.equals( artifact.getId() ) || !artifactsById.containsKey( parentId ) ) {
+				roots.add( artifact );
+				continue;
+			}
+			List<Artifact> siblings = children.get( parentId );
+			if ( siblings == null ) {
+				siblings = new ArrayList<Artifact>();
+				children.put( parentId, siblings );
+			}
+			siblings.add( artifact );
+		}
 
+		final List<Artifact> artifacts = new ArrayList<Artifact>();
+		final Set<String> visited = new HashSet<String>();
+		for ( Artifact root : roots ) {
+			processResolved( root, children, visited, artifacts, type, transitivesFirst );
 		}
+		return artifacts;
+	}
+
+	private void processResolved(
+			Artifact artifact,
+			Map<String,List<Artifact>> children,
+			Set<String> visited,
+			List<Artifact> artifacts,
+			String type,
+			boolean transitivesFirst) {
+		if ( !visited.add( artifact.getId() ) ) {
+			return;
+		}
+		if ( !transitivesFirst && include( artifact, type ) ) {
+			artifacts.add( artifact );
+		}
+		final List<Artifact> dependencies = children.get( artifact.getId() );
+		if ( dependencies != null ) {
+			for ( Artifact dependency : dependencies ) {
+				processResolved( dependency, children, visited, artifacts, type, transitivesFirst );
+			}
+		}
+		if ( transitivesFirst && include( artifact, type ) ) {
+			artifacts.add( artifact );
+		}
+	}
+
+	/**
+	 * Resolve the artifacts of the tree (those not resolved earlier in the session), concurrently.
+	 */
+	private void resolveArtifacts(DependencyNode rootNode, final ArtifactResolutionCache cache) {
+		// the same artifact may appear more than once in the tree, resolve it once
+		final Map<String,List<Artifact>> pending = new LinkedHashMap<String,List<Artifact>>();
+		collectUnresolved( rootNode, pending, cache );
+		if ( pending.isEmpty() ) {
+			return;
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool( Math.min( RESOLUTION_THREADS, pending.size() ) );
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for ( final List<Artifact> occurrences : pending.values() ) {
+				futures.add(
+						executor.submit(
+								new Runnable() {
+									public void run() {
+										final Artifact artifact = occurrences.get( 0 );
+										resolveArtifact( artifact );
+										cache.recordResolution( artifact );
+										for ( Artifact occurrence : occurrences ) {
+											occurrence.setFile( artifact.getFile() );
+											occurrence.setResolved( artifact.isResolved() );
+										}
+									}
+								}
+						)
+				);
+			}
+			// report the first failure in tree order, whatever order they happened in
+			for ( Future<?> future : futures ) {
+				try {
+					future.get();
+				}
+				catch ( ExecutionException e ) {
+					if ( e.getCause() instanceof RuntimeException ) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw new JDocBookProcessException( "Unable to resolve artifacts", e.getCause() );
+				}
+				catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					throw new JDocBookProcessException( "Interrupted while resolving artifacts", e );
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@SuppressWarnings({ "unchecked" })
+	private void collectUnresolved(
+			DependencyNode node,
+			Map<String,List<Artifact>> pending,
+			ArtifactResolutionCache cache) {
+		final Artifact artifact = node.getArtifact();
+		final boolean isProjectArtifact = project.getArtifact().getId().equals( artifact.getId() );
+		if ( ! isProjectArtifact && ! cache.applyResolution( artifact ) ) {
+			List<Artifact> occurrences = pending.get( artifact.getId() );
+			if ( occurrences == null ) {
+				occurrences = new ArrayList<Artifact>();
+				pending.put( artifact.getId(), occurrences );
+			}
+			occurrences.add( artifact );
+		}
+		for ( DependencyNode child : ( List<DependencyNode> ) node.getChildren() ) {
+			collectUnresolved( child, pending, cache );
+		}
+	}
+
+	@SuppressWarnings({ "unchecked" })
+	private void processNode(DependencyNode node, List<Artifact> artifacts, String type, boolean transitivesFirst) {
+		final Artifact artifact = node.getArtifact();
+		final boolean isProjectArtifact = project.getArtifact().getId().equals( artifact.getId() );
 
 		if ( ! isProjectArtifact && ! transitivesFirst ) {
 			if ( include( node.getArtifact(), type ) ) {
@@ -551,11 +742,240 @@ public abstract class AbstractDocBookMojo extends MojoInternalConfigSupport impl
 
 	protected JDocBookComponentRegistry getComponentRegistry() {
 		if ( jDocBookComponentRegistry == null ) {
-			jDocBookComponentRegistry = buildComponentRegistry();
+			jDocBookComponentRegistry = options.getComponentRegistryPoolSize() > 0
+					? getPooledComponentRegistry()
+					: buildComponentRegistry();
 		}
 		return jDocBookComponentRegistry;
 	}
 
+	private PooledComponentRegistry pooledComponentRegistry;
+	private String pooledComponentRegistryKey;
+
+	/**
+	 * Borrow a registry from the session's pool, shared with the other goals (and modules) running with the very same
+	 * resources and transformer configuration.  The registry is then bound to this goal's environment and
+	 * configuration, so it sees the directories, master files and fonts of this module rather than those of the goal
+	 * which built it.
+	 */
+	private JDocBookComponentRegistry getPooledComponentRegistry() {
+		final ConfigurationImpl configuration = new ConfigurationImpl();
+		// the resource class loader is built from these very urls, so that the key always matches its content; the
+		// staging directory is left out, the registry looking into that of the goal it is bound to
+		final List<URL> resourceUrls = collectArtifactResourceUrls();
+		final String key = describeComponentRegistry( configuration, resourceUrls );
+		final ComponentRegistryPool pool = SessionScope.of( session ).get( ComponentRegistryPool.class );
+		PooledComponentRegistry registry = pool.borrow( key );
+		if ( registry == null ) {
+			registry = new PooledComponentRegistry( buildResourceDelegateClassLoader( resourceUrls ) );
+		}
+		else {
+			getLog().debug( "Reusing the jDocBook components of an earlier execution" );
+		}
+		pooledComponentRegistry = registry;
+		pooledComponentRegistryKey = key;
+		return registry.bind( new EnvironmentImpl(), configuration );
+	}
+
+	/**
+	 * Return the registry borrowed by {@link #getPooledComponentRegistry}, if any, to the session's pool.
+	 */
+	private void releasePooledComponentRegistry() {
+		if ( pooledComponentRegistry == null ) {
+			return;
+		}
+		pooledComponentRegistry.unbind();
+		SessionScope.of( session ).get( ComponentRegistryPool.class ).release(
+				pooledComponentRegistryKey,
+				pooledComponentRegistry,
+				options.getComponentRegistryPoolSize()
+		);
+		pooledComponentRegistry = null;
+		pooledComponentRegistryKey = null;
+		jDocBookComponentRegistry = null;
+	}
+
+	/**
+	 * Describe what the registry is built from and may cache: the resource class loader content (the stylesheets and
+	 * other style resources), the content of the font directories (FOP caches the fonts it found) and the transformer
+	 * configuration values.  The module's own state (its directories and master document) is left out, the registry
+	 * reaching it through the bound {@link Environment}.
+	 */
+	private String describeComponentRegistry(ConfigurationImpl configuration, List<URL> resourceUrls) {
+		final StringBuilder description = new StringBuilder();
+		for ( URL url : resourceUrls ) {
+			description.append( url ).append( '\n' );
+		}
+		for ( File fontDirectory : getFontDirectories() ) {
+			describeFonts( fontDirectory, "", description );
+		}
+		description.append( new TreeMap<String,String>( configuration.getTransformerParameters() ) ).append( '\n' )
+				.append( configuration.isUseRelativeImageUris() ).append( '\n' )
+				.append( configuration.getLocaleSeparator() ).append( '\n' )
+				.append( configuration.isAutoDetectFontsEnabled() ).append( '\n' )
+				.append( configuration.isUseFopFontCacheEnabled() ).append( '\n' )
+				.append( configuration.getCatalogs() ).append( '\n' )
+				.append( configuration.getDocBookVersion() ).append( '\n' );
+		for ( ValueInjection injection : configuration.getValueInjections() ) {
+			description.append( injection.getName() ).append( '=' ).append( injection.getValue() ).append( '\n' );
+		}
+		final org.jboss.jdocbook.Profiling profiling = configuration.getProfiling();
+		if ( profiling != null && profiling.isEnabled() ) {
+			description.append( profiling.getAttributeName() ).append( '=' ).append( profiling.getAttributeValue() );
+		}
+		try {
+			return DigestHelper.digest( description.toString().getBytes( "UTF-8" ) );
+		}
+		catch ( UnsupportedEncodingException e ) {
+			throw new JDocBookProcessException( "UTF-8 not supported", e );
+		}
+	}
+
+	private void describeFonts(File directory, String path, StringBuilder description) {
+		final File[] files = directory.listFiles();
+		if ( files == null ) {
+			return;
+		}
+		Arrays.sort( files );
+		for ( File file : files ) {
+			if ( file.isDirectory() ) {
+				describeFonts( file, path + file.getName() + '/', description );
+			}
+			else {
+				description.append( path ).append( file.getName() ).append( '=' )
+						.append( DigestHelper.digest( file ) ).append( '\n' );
+			}
+		}
+	}
+
+	/**
+	 * Is the translation engine the in-JVM one?  Unlike the gettext based jDocBook components, it is thread-safe.
+	 *
+	 * @return True for the java engine.
+	 */
+	protected boolean isJavaTranslationEngine() {
+		final String engine = options.getTranslationEngine();
+		if ( engine == null || Options.TRANSLATION_ENGINE_GETTEXT.equals( engine ) ) {
+			return false;
+		}
+		if ( Options.TRANSLATION_ENGINE_JAVA.equals( engine ) ) {
+			return true;
+		}
+		throw new JDocBookProcessException( "Unknown translation engine [" + engine + "]" );
+	}
+
+	/**
+	 * The master document files, the root document and all its inclusions.
+	 *
+	 * @return The master files.
+	 */
+	protected Set<File> getMasterFiles() {
+		return getMasterLanguageDescriptor().getDocumentFiles();
+	}
+
+	/**
+	 * Is the given language translated enough to be processed, per <tt>options/minimumTranslationCoverage</tt>?  The
+	 * master language always is.
+	 *
+	 * @param language The language.
+	 *
+	 * @return True if the share of translated messages of the language reaches the minimum coverage.
+	 */
+	protected boolean meetsMinimumTranslationCoverage(Locale language) {
+		if ( options.getMinimumTranslationCoverage() <= 0 || isMasterLanguage( language ) ) {
+			return true;
+		}
+		final String languageStr = stringify( language );
+		final PoStatistics statistics = TranslationCoverage.total(
+				new TranslationCoverage( new TranslationFiles( getMasterLanguageDescriptor() ), directoryLayout ).compute(
+						languageStr,
+						directoryLayout.getTranslationSourceDirectory( languageStr )
+				)
+		);
+		if ( statistics.getCoverage() < options.getMinimumTranslationCoverage() ) {
+			getLog().info(
+					"Skipping [" + languageStr + "]; only " + String.format( "%.1f", statistics.getCoverage() )
+							+ "% translated (" + statistics + ")"
+			);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Empty the given directory; with <tt>options/fastClean</tt>, without waiting for its files to be deleted.
+	 *
+	 * @param directory The directory to clean.
+	 *
+	 * @throws IOException Indicates a problem cleaning the directory.
+	 */
+	protected void cleanDirectory(File directory) throws IOException {
+		if ( options.isFastClean() ) {
+			new DirectoryCleaner( directoryLayout.getTombstoneDirectory() ).clean( directory );
+		}
+		else {
+			FileUtils.cleanDirectory( directory );
+		}
+	}
+
+	protected LocaleExecutor buildLocaleExecutor() {
+		final int maxExternalProcesses = options.getMaxExternalProcesses() < 1
+				? Runtime.getRuntime().availableProcessors()
+				: options.getMaxExternalProcesses();
+		return new LocaleExecutor(
+				options.getLocaleConcurrency(),
+				SessionScope.of( session ).get( ExternalProcessPermits.class ).get( maxExternalProcesses ),
+				getLog()
+		);
+	}
+
+	/**
+	 * The component registry to process one language with.  The gettext based jDocBook components are not known to be
+	 * thread-safe, so when languages may be processed concurrently each one gets a registry of its own.
+	 *
+	 * @return The registry.
+	 */
+	protected JDocBookComponentRegistry getLanguageComponentRegistry() {
+		return options.getLocaleConcurrency() > 1 ? buildComponentRegistry() : getComponentRegistry();
+	}
+
+	protected PoSynchronizer getPoSynchronizer() {
+		if ( isJavaTranslationEngine() ) {
+			return new JavaPoSynchronizer(
+					new TranslationFiles( getMasterLanguageDescriptor() ),
+					options.getLocaleSeparator(),
+					options.isTranslationMemory() ? directoryLayout.getTranslationMemoryDirectory() : null,
+					getLog()
+			);
+		}
+		if ( options.isTranslationMemory() ) {
+			getLog().warn( "The translation memory is only supported by the java translation engine, ignoring it" );
+		}
+		return getComponentRegistry().getPoSynchronizer();
+	}
+
+	protected PotSynchronizer getPotSynchronizer() {
+		if ( isJavaTranslationEngine() ) {
+			return new JavaPotSynchronizer( new TranslationFiles( getMasterLanguageDescriptor() ), getLog() );
+		}
+		return getComponentRegistry().getPotSynchronizer();
+	}
+
+	protected Translator getTranslator() {
+		if ( isJavaTranslationEngine() ) {
+			return new JavaTranslator(
+					new TranslationFiles( getMasterLanguageDescriptor() ),
+					options.getLocaleSeparator(),
+					options.isTranslationMemoryFallback() ? directoryLayout.getTranslationMemoryDirectory() : null,
+					getLog()
+			);
+		}
+		if ( options.isTranslationMemoryFallback() ) {
+			getLog().warn( "The translation memory is only supported by the java translation engine, ignoring it" );
+		}
+		return getComponentRegistry().getTranslator();
+	}
+
 	private JDocBookComponentRegistry buildComponentRegistry() {
 		return new JDocBookComponentRegistry( new EnvironmentImpl(), new ConfigurationImpl() );
 	}
@@ -599,14 +1019,13 @@ public abstract class AbstractDocBookMojo extends MojoInternalConfigSupport impl
 		@Override
 		protected ClassLoader getResourceClassLoader() {
 			if ( loader == null ) {
-				loader = buildResourceDelegateClassLoader();
+				loader = buildResourceDelegateClassLoader( collectResourceUrls() );
 			}
 			return loader;
 		}
 	}
 
-	@SuppressWarnings({ "unchecked" })
-	private ClassLoader buildResourceDelegateClassLoader() {
+	private List<URL> collectResourceUrls() {
 		// There are three sources for resolver base urls:
 		// 		1) staging dir
 		//		2) project dependencies
@@ -623,6 +1042,19 @@ public abstract class AbstractDocBookMojo extends MojoInternalConfigSupport impl
 			}
 		}
 
+		urls.addAll( collectArtifactResourceUrls() );
+		return urls;
+	}
+
+	/**
+	 * The resource urls of {@link #collectResourceUrls} but the staging directory.
+	 *
+	 * @return The project and plugin dependency urls.
+	 */
+	@SuppressWarnings({ "unchecked" })
+	private List<URL> collectArtifactResourceUrls() {
+		List<URL> urls = new ArrayList<URL>();
+
 		//		2) project dependencies
 		for ( Artifact artifact : (Set<Artifact>) project.getArtifacts() ) {
 			if ( artifact.getFile() != null ) {
@@ -649,6 +1081,10 @@ public abstract class AbstractDocBookMojo extends MojoInternalConfigSupport impl
 			}
 		}
 
+		return urls;
+	}
+
+	private ClassLoader buildResourceDelegateClassLoader(List<URL> urls) {
 		return new URLClassLoader(
 				urls.toArray( new URL[ urls.size() ] ),
 				Thread.currentThread().getContextClassLoader()
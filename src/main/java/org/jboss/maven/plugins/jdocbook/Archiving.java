@@ -0,0 +1,96 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+/**
+ * Maven non-sense.  Simply pulls the archiving options into the namespace in regards to plugin config.
+ */
+public class Archiving {
+	private boolean parallel;
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	private int threads;
+
+	public int getThreads() {
+		return threads;
+	}
+
+	private boolean incremental;
+
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	private boolean classifiedAttachments;
+
+	public boolean isClassifiedAttachments() {
+		return classifiedAttachments;
+	}
+
+	private boolean deduplicate;
+
+	public boolean isDeduplicate() {
+		return deduplicate;
+	}
+
+	/**
+	 * Deflate everything (the default).
+	 */
+	public static final String COMPRESSION_DEFLATE = "deflate";
+	/**
+	 * Store entries by extension, already-compressed types by default.
+	 */
+	public static final String COMPRESSION_POLICY = "policy";
+	/**
+	 * As {@link #COMPRESSION_POLICY}, plus store other entries which do not compress well in a quick trial.
+	 */
+	public static final String COMPRESSION_ADAPTIVE = "adaptive";
+
+	private String compression = COMPRESSION_DEFLATE;
+
+	public String getCompression() {
+		return compression;
+	}
+
+	private String[] storedExtensions;
+
+	public String[] getStoredExtensions() {
+		return storedExtensions;
+	}
+
+	private String[] deflatedExtensions;
+
+	public String[] getDeflatedExtensions() {
+		return deflatedExtensions;
+	}
+
+	private float adaptiveThreshold = 0.9f;
+
+	public float getAdaptiveThreshold() {
+		return adaptiveThreshold;
+	}
+}
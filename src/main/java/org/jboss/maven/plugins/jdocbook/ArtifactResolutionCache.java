@@ -0,0 +1,99 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+
+/**
+ * Caches, for a Maven session (see {@link SessionScope}), the dependency trees collected from the project and plugin
+ * artifacts and the files artifacts got resolved to, so that the goals of a lifecycle, and the modules of a reactor,
+ * share a single collection and resolution.
+ * <p/>
+ * Snapshots are not cached, they may get rebuilt by the reactor.
+ */
+public class ArtifactResolutionCache {
+	private final ConcurrentHashMap<String,DependencyNode> trees = new ConcurrentHashMap<String,DependencyNode>();
+	private final ConcurrentHashMap<String,File> files = new ConcurrentHashMap<String,File>();
+
+	/**
+	 * Build the key of a dependency tree.
+	 *
+	 * @param projectArtifact The artifact of the project (the root of the tree).
+	 * @param artifacts The artifacts the tree is collected from.
+	 *
+	 * @return The key.
+	 */
+	public static String key(Artifact projectArtifact, Collection<Artifact> artifacts) {
+		final TreeSet<String> ids = new TreeSet<String>();
+		for ( Artifact artifact : artifacts ) {
+			ids.add( artifact.getId() + ':' + artifact.getScope() );
+		}
+		return projectArtifact.getId() + ids;
+	}
+
+	public DependencyNode getTree(String key) {
+		return trees.get( key );
+	}
+
+	public void putTree(String key, DependencyNode tree) {
+		trees.put( key, tree );
+	}
+
+	/**
+	 * Apply the file the given artifact was resolved to earlier in the session, if any.
+	 *
+	 * @param artifact The artifact.
+	 *
+	 * @return True if the artifact is now resolved.
+	 */
+	public boolean applyResolution(Artifact artifact) {
+		if ( artifact.isSnapshot() ) {
+			return false;
+		}
+		final File file = files.get( artifact.getId() );
+		if ( file == null || !file.exists() ) {
+			return false;
+		}
+		artifact.setFile( file );
+		artifact.setResolved( true );
+		return true;
+	}
+
+	/**
+	 * Remember the file the given (just resolved) artifact was resolved to.
+	 *
+	 * @param artifact The artifact.
+	 */
+	public void recordResolution(Artifact artifact) {
+		if ( !artifact.isSnapshot() && artifact.getFile() != null ) {
+			files.put( artifact.getId(), artifact.getFile() );
+		}
+	}
+}
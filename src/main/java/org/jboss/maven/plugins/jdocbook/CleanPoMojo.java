@@ -25,10 +25,11 @@ package org.jboss.maven.plugins.jdocbook;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 import org.jboss.jdocbook.JDocBookProcessException;
-import org.jboss.jdocbook.util.FileUtils;
 
 /**
  * CleanPoMojo implementation
@@ -42,18 +43,32 @@ import org.jboss.jdocbook.util.FileUtils;
 public class CleanPoMojo extends AbstractDocBookMojo {
 	protected void doExecute() throws JDocBookProcessException {
 		final Matcher<Locale> matcher = new Matcher<Locale>( getRequestedLanguageLocale() );
+		final List<String> matchingTranslations = new ArrayList<String>();
 		for ( String translation : translations ) {
 			if ( matcher.matches( fromLanguageString( translation ) ) ) {
-				final File poDirectory = directoryLayout.getTranslationSourceDirectory( translation );
-				if ( poDirectory.exists() ) {
-					try {
-						FileUtils.cleanDirectory( poDirectory );
-					}
-					catch ( IOException e ) {
-						getLog().warn( "unable to cleanup POT directory [" + poDirectory + "]", e );
-					}
-				}
+				matchingTranslations.add( translation );
 			}
 		}
+		buildLocaleExecutor().execute(
+				matchingTranslations,
+				new LocaleExecutor.Work<String>() {
+					public String describe(String translation) {
+						return translation;
+					}
+
+					public void process(String translation) {
+						final File poDirectory = directoryLayout.getTranslationSourceDirectory( translation );
+						if ( poDirectory.exists() ) {
+							try {
+								cleanDirectory( poDirectory );
+							}
+							catch ( IOException e ) {
+								getLog().warn( "unable to cleanup POT directory [" + poDirectory + "]", e );
+							}
+						}
+					}
+				},
+				false
+		);
 	}
 }
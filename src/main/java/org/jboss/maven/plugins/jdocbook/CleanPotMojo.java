@@ -27,7 +27,6 @@ import java.io.File;
 import java.io.IOException;
 
 import org.jboss.jdocbook.JDocBookProcessException;
-import org.jboss.jdocbook.util.FileUtils;
 
 /**
  * Cleanup the POT files.
@@ -43,7 +42,7 @@ public class CleanPotMojo extends AbstractDocBookMojo {
 		final File potDirectory = directoryLayout.getPotSourceDirectory();
 		if ( potDirectory.exists() ) {
 			try {
-				FileUtils.cleanDirectory( potDirectory );
+				cleanDirectory( potDirectory );
 			}
 			catch ( IOException e ) {
 				getLog().warn( "unable to cleanup POT directory [" + potDirectory + "]", e );
@@ -0,0 +1,68 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A bounded pool of {@link PooledComponentRegistry} instances for a Maven session (see {@link SessionScope}), so
+ * that goals run with the same resources and transformer configuration reuse warm components (stylesheets,
+ * resolvers, fonts) rather than building their own.  A goal borrows a registry for its whole execution and returns
+ * it when done, so two goals running concurrently (in a parallel reactor build) never share one.  Only idle
+ * registries are kept, unbound from the goal which last used them, the least recently returned being dropped when
+ * the pool is full.  Whatever is left becomes unreachable along with the session's scope once the session ends.
+ */
+public class ComponentRegistryPool {
+	private final LinkedHashMap<String,PooledComponentRegistry> registries
+			= new LinkedHashMap<String,PooledComponentRegistry>( 16, 0.75f, true );
+
+	/**
+	 * Borrow the idle registry built for the given key, if any.  It stays out of the pool until {@link #release}d.
+	 *
+	 * @param key The key, describing the resources and configuration of the registry.
+	 *
+	 * @return The registry, or null.
+	 */
+	public synchronized PooledComponentRegistry borrow(String key) {
+		return registries.remove( key );
+	}
+
+	/**
+	 * Return a registry to the pool, once the goal which borrowed (or built) it is done with it.
+	 *
+	 * @param key The key, describing the resources and configuration of the registry.
+	 * @param registry The registry, already {@link PooledComponentRegistry#unbind unbound}.
+	 * @param capacity The most registries to keep.
+	 */
+	public synchronized void release(String key, PooledComponentRegistry registry, int capacity) {
+		// a registry built concurrently for the same key is simply replaced
+		registries.put( key, registry );
+		final Iterator<String> eldest = registries.keySet().iterator();
+		while ( registries.size() > capacity && eldest.hasNext() ) {
+			eldest.next();
+			eldest.remove();
+		}
+	}
+}
@@ -86,6 +86,10 @@ public class DirectoryLayout {
 		return targetDirectory;
 	}
 
+	public File getTombstoneDirectory() {
+		return new File( getTargetDirectory(), "tombstones" );
+	}
+
 
 	// staging directory ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
@@ -98,6 +102,10 @@ public class DirectoryLayout {
 		return stagingDirectory;
 	}
 
+	public File getStagingManifestFile() {
+		return new File( getRootJDocBookWorkDirectory(), "staging.manifest" );
+	}
+
 
  	// work directory ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
@@ -110,6 +118,14 @@ public class DirectoryLayout {
 		return rootJDocBookWorkDirectory;
 	}
 
+	public File getTranslationMemoryDirectory() {
+		return new File( getRootJDocBookWorkDirectory(), "tm" );
+	}
+
+	public File getFingerprintFile(String name) {
+		return new File( new File( getRootJDocBookWorkDirectory(), "fingerprints" ), name + ".properties" );
+	}
+
 
 	// translation work dir layout ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
@@ -0,0 +1,48 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * The permits of the languages whose processing forks external (gettext) processes, shared by the whole session
+ * (see {@link SessionScope}) so that the cap holds across the goals and modules of a parallel build.
+ */
+public class ExternalProcessPermits {
+	private Semaphore permits;
+
+	/**
+	 * Get the session's permits, creating them if needed.  The first goal asking for them sets their number.
+	 *
+	 * @param count The number of permits.
+	 *
+	 * @return The permits.
+	 */
+	public synchronized Semaphore get(int count) {
+		if ( permits == null ) {
+			permits = new Semaphore( Math.max( 1, count ), true );
+		}
+		return permits;
+	}
+}
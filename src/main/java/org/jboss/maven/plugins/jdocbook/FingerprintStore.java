@@ -0,0 +1,133 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.jboss.jdocbook.JDocBookProcessException;
+import org.jboss.maven.shared.digest.DigestHelper;
+
+/**
+ * Remembers, across builds, the fingerprint (content digests) of the inputs each output was produced from, so
+ * outputs whose inputs did not change need not be produced again.  Safe for use from concurrent threads.
+ */
+public class FingerprintStore {
+	private static final String MISSING = "-";
+
+	private final File storeFile;
+	private final Properties fingerprints = new Properties();
+
+	public FingerprintStore(File storeFile) {
+		this.storeFile = storeFile;
+		if ( storeFile.exists() ) {
+			InputStream stream = null;
+			try {
+				stream = new FileInputStream( storeFile );
+				fingerprints.load( stream );
+			}
+			catch ( IOException e ) {
+				// treat as if there were no store; everything simply gets produced again
+				fingerprints.clear();
+			}
+			finally {
+				IOUtil.close( stream );
+			}
+		}
+	}
+
+	/**
+	 * Build the fingerprint of the given inputs.
+	 *
+	 * @param inputs The input files; missing ones are part of the fingerprint too.
+	 *
+	 * @return The fingerprint.
+	 */
+	public static String fingerprint(File... inputs) {
+		final StringBuilder fingerprint = new StringBuilder();
+		for ( File input : inputs ) {
+			if ( fingerprint.length() > 0 ) {
+				fingerprint.append( ':' );
+			}
+			fingerprint.append( input.exists() ? DigestHelper.digest( input ) : MISSING );
+		}
+		return fingerprint.toString();
+	}
+
+	/**
+	 * Is the output recorded under the given key up-to-date?
+	 *
+	 * @param key The output key (typically its relative path).
+	 * @param fingerprint The fingerprint of its current inputs.
+	 * @param output The output file, which must still exist.
+	 *
+	 * @return True if the output exists and was produced from inputs with the same fingerprint.
+	 */
+	public synchronized boolean isUpToDate(String key, String fingerprint, File output) {
+		return fingerprint.equals( fingerprints.getProperty( key ) ) && output.exists();
+	}
+
+	public synchronized String getFingerprint(String key) {
+		return fingerprints.getProperty( key );
+	}
+
+	public synchronized void record(String key, String fingerprint) {
+		fingerprints.setProperty( key, fingerprint );
+	}
+
+	public synchronized void forget(String key) {
+		fingerprints.remove( key );
+	}
+
+	public synchronized Set<String> getKeys() {
+		final Set<String> keys = new HashSet<String>();
+		for ( Object key : fingerprints.keySet() ) {
+			keys.add( (String) key );
+		}
+		return keys;
+	}
+
+	public synchronized void store() {
+		storeFile.getParentFile().mkdirs();
+		OutputStream stream = null;
+		try {
+			stream = new FileOutputStream( storeFile );
+			fingerprints.store( stream, "jDocBook fingerprints" );
+		}
+		catch ( IOException e ) {
+			throw new JDocBookProcessException( "Unable to write fingerprints [" + storeFile + "]", e );
+		}
+		finally {
+			IOUtil.close( stream );
+		}
+	}
+}
@@ -23,6 +23,9 @@
  */
 package org.jboss.maven.plugins.jdocbook;
 
+import java.io.File;
+
+import org.codehaus.plexus.util.DirectoryScanner;
 import org.jboss.jdocbook.profile.Profiler;
 import org.jboss.jdocbook.render.FormatOptions;
 import org.jboss.jdocbook.render.Renderer;
@@ -56,15 +59,68 @@ public class GenerationMojo extends AbstractDocBookMojo {
 
 		final Matcher<String> matcher = new Matcher<String>( getRequestedFormat() );
 
+		final boolean checkImageReferences = options.isPruneUnreferencedImages() || options.isReportUnreferencedImages();
+		final StagingManifest stagingManifest = checkImageReferences
+				? new StagingManifest( directoryLayout.getStagingDirectory(), directoryLayout.getStagingManifestFile() )
+				: null;
+
 		for ( PublishingSource publishingSource : resolvePublishingSources() ) {
+			if ( !meetsMinimumTranslationCoverage( publishingSource.getLanguage() ) ) {
+				continue;
+			}
 			if ( profiling.isEnabled() ) {
 				profiler.profile( publishingSource );
 			}
+			ImageReferences imageReferences = null;
 			for ( FormatOptions formatOptions : getFormatOptionsList() ) {
 				if ( matcher.matches( formatOptions.getName() ) ) {
 					renderer.render( publishingSource, formatOptions );
+					if ( checkImageReferences ) {
+						if ( imageReferences == null ) {
+							imageReferences = ImageReferences.scan( publishingSource.resolveSourceDocument() );
+						}
+						handleUnreferencedImages( publishingSource, formatOptions, imageReferences, stagingManifest );
+					}
 				}
 			}
 		}
 	}
+
+	private void handleUnreferencedImages(
+			PublishingSource publishingSource,
+			FormatOptions formatOptions,
+			ImageReferences imageReferences,
+			StagingManifest stagingManifest) {
+		final String language = stringify( publishingSource.getLanguage() );
+		final File publishDirectory = directoryLayout.getPublishDirectory( language, formatOptions.getName() );
+		final File imagesDirectory = new File( publishDirectory, "images" );
+		if ( !imagesDirectory.exists() ) {
+			return;
+		}
+		if ( !imageReferences.isComplete() ) {
+			getLog().info( "Image references of [" + language + "] could not all be determined; keeping all images" );
+			return;
+		}
+		final ImageReferences allReferences = imageReferences.withStyleSheets( publishDirectory );
+
+		final DirectoryScanner scanner = new DirectoryScanner();
+		scanner.setBasedir( imagesDirectory );
+		scanner.scan();
+		for ( String imageName : scanner.getIncludedFiles() ) {
+			final String relativePath = "images/" + imageName.replace( File.separatorChar, '/' );
+			// images coming from styles are referenced by the stylesheets, not by the document
+			if ( !stagingManifest.wasStagedFromProject( relativePath ) || allReferences.isReferenced( relativePath ) ) {
+				continue;
+			}
+			if ( options.isReportUnreferencedImages() ) {
+				getLog().info( "Unreferenced image [" + relativePath + "] in " + language + "/" + formatOptions.getName() );
+			}
+			if ( options.isPruneUnreferencedImages() && !new File( imagesDirectory, imageName ).delete() ) {
+				getLog().warn(
+						"Unable to prune unreferenced image [" + relativePath + "] in " + language + "/"
+								+ formatOptions.getName()
+				);
+			}
+		}
+	}
 }
@@ -0,0 +1,277 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.jboss.jdocbook.JDocBookProcessException;
+import org.jboss.jdocbook.util.XIncludeHelper;
+
+/**
+ * The images referenced (via <tt>fileref</tt> or <tt>entityref</tt>) by a document and all of its inclusions, plus
+ * the images referenced (via <tt>url(...)</tt>) by the style sheets of an output directory.
+ * <p/>
+ * The files are scanned textually rather than parsed, so that entity declarations need not be resolvable.  The
+ * system identifier of every external entity declared by the files (or by the entity files they pull in) counts as
+ * a reference, so an image referenced through an entity is kept whether or not the <tt>entityref</tt> itself is
+ * seen; an <tt>entityref</tt> to an entity declared nowhere makes the references incomplete.
+ */
+public class ImageReferences {
+	private static final Pattern FILEREF_PATTERN = Pattern.compile(
+			"<(?:[\\w.-]+:)?(?:imagedata|graphic|inlinegraphic)\\b[^>]*?\\bfileref\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')"
+	);
+	private static final Pattern ENTITYREF_PATTERN = Pattern.compile(
+			"<(?:[\\w.-]+:)?(?:imagedata|graphic|inlinegraphic)\\b[^>]*?\\bentityref\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')"
+	);
+	private static final Pattern ENTITY_PATTERN = Pattern.compile(
+			"<!ENTITY\\s+(%\\s+)?([^\\s%;]+)\\s+(?:SYSTEM|PUBLIC\\s+(?:\"[^\"]*\"|'[^']*'))\\s*(?:\"([^\"]*)\"|'([^']*)')"
+	);
+	private static final Pattern URL_PATTERN = Pattern.compile(
+			"url\\(\\s*(?:\"([^\"]*)\"|'([^']*)'|([^)'\"]*?))\\s*\\)"
+	);
+
+	private final Set<String> references = new HashSet<String>();
+	private boolean complete = true;
+
+	/**
+	 * Scans the given document (and everything it includes) for image references.
+	 *
+	 * @param document The root document, ideally already profiled.
+	 *
+	 * @return The references.
+	 */
+	public static ImageReferences scan(File document) {
+		final Set<File> files = new TreeSet<File>();
+		files.add( document );
+		XIncludeHelper.findAllInclusionFiles( document, files );
+
+		final ImageReferences imageReferences = new ImageReferences();
+		final Set<String> entities = new HashSet<String>();
+		final Set<File> entityFiles = new HashSet<File>();
+		final Set<String> entityrefs = new HashSet<String>();
+		for ( File file : files ) {
+			final String content = readXml( file );
+			imageReferences.addEntities( file, content, entities, entityFiles );
+			final Matcher matcher = FILEREF_PATTERN.matcher( content );
+			while ( matcher.find() ) {
+				imageReferences.add( file, matcher.group( 1 ) != null ? matcher.group( 1 ) : matcher.group( 2 ) );
+			}
+			final Matcher entityrefMatcher = ENTITYREF_PATTERN.matcher( content );
+			while ( entityrefMatcher.find() ) {
+				entityrefs.add(
+						( entityrefMatcher.group( 1 ) != null ? entityrefMatcher.group( 1 ) : entityrefMatcher.group( 2 ) ).trim()
+				);
+			}
+		}
+		for ( String entityref : entityrefs ) {
+			// the system identifiers of all declared entities are references already
+			if ( !entities.contains( entityref ) ) {
+				imageReferences.complete = false;
+			}
+		}
+		return imageReferences;
+	}
+
+	/**
+	 * Adds the system identifiers of the external entities declared in the given content as references, following
+	 * the parameter entities (entity files pulled into a DTD) declared there.  The names of the entities declared and
+	 * the entity files followed are collected along the way.
+	 */
+	private void addEntities(File file, String content, Set<String> entities, Set<File> entityFiles) {
+		final Matcher matcher = ENTITY_PATTERN.matcher( content );
+		while ( matcher.find() ) {
+			final boolean parameterEntity = matcher.group( 1 ) != null;
+			final String name = matcher.group( 2 );
+			final String systemId = matcher.group( 3 ) != null ? matcher.group( 3 ) : matcher.group( 4 );
+			if ( systemId.indexOf( "://" ) >= 0 ) {
+				// a remote DTD, e.g.
+				continue;
+			}
+			if ( !parameterEntity ) {
+				add( file, systemId );
+				entities.add( name );
+				continue;
+			}
+			final File entityFile = new File( file.getParentFile(), systemId ).getAbsoluteFile();
+			if ( entityFile.isFile() && entityFiles.add( entityFile ) ) {
+				addEntities( entityFile, readXml( entityFile ), entities, entityFiles );
+			}
+		}
+	}
+
+	private static String readXml(File file) {
+		try {
+			// honours the encoding declaration (and byte order mark) of the file
+			final Reader reader = ReaderFactory.newXmlReader( file );
+			try {
+				return IOUtil.toString( reader );
+			}
+			finally {
+				IOUtil.close( reader );
+			}
+		}
+		catch ( IOException e ) {
+			throw new JDocBookProcessException( "Unable to scan [" + file + "] for image references", e );
+		}
+	}
+
+	/**
+	 * Adds the images referenced by the style sheets found in the given output directory.
+	 *
+	 * @param outputDirectory The output directory of one format.
+	 *
+	 * @return The references of this document plus those of the style sheets.
+	 */
+	public ImageReferences withStyleSheets(File outputDirectory) {
+		final ImageReferences imageReferences = new ImageReferences();
+		imageReferences.references.addAll( references );
+		imageReferences.complete = complete;
+
+		final DirectoryScanner scanner = new DirectoryScanner();
+		scanner.setBasedir( outputDirectory );
+		scanner.setIncludes( new String[] { "**/*.css" } );
+		scanner.scan();
+		for ( String styleSheetName : scanner.getIncludedFiles() ) {
+			final String content;
+			try {
+				content = FileUtils.fileRead( new File( outputDirectory, styleSheetName ), "UTF-8" );
+			}
+			catch ( IOException e ) {
+				throw new JDocBookProcessException( "Unable to scan [" + styleSheetName + "] for image references", e );
+			}
+			final String path = styleSheetName.replace( File.separatorChar, '/' );
+			final String directory = path.lastIndexOf( '/' ) < 0 ? "" : path.substring( 0, path.lastIndexOf( '/' ) );
+			final Matcher matcher = URL_PATTERN.matcher( content );
+			while ( matcher.find() ) {
+				String url = matcher.group( 1 );
+				if ( url == null ) {
+					url = matcher.group( 2 ) != null ? matcher.group( 2 ) : matcher.group( 3 );
+				}
+				if ( url.startsWith( "data:" ) || url.indexOf( "://" ) >= 0 ) {
+					continue;
+				}
+				url = url.replaceFirst( "[?#].*", "" );
+				imageReferences.references.add( resolve( directory, url ) );
+			}
+		}
+		return imageReferences;
+	}
+
+	private void add(File referencingFile, String fileref) {
+		if ( fileref.indexOf( '&' ) >= 0 || fileref.indexOf( "${" ) >= 0 ) {
+			// cannot tell what this refers to
+			complete = false;
+			return;
+		}
+		references.add( normalize( fileref ) );
+		// relative to the including document as well; the images directory is copied as a whole
+		references.add( resolve( referencingFile.getParentFile().getAbsolutePath(), fileref ) );
+	}
+
+	/**
+	 * Could every reference be determined?  If not (references built from entities, e.g.), the absence of
+	 * a reference proves nothing.
+	 *
+	 * @return True if all references were determinable.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Is the image at the given output-relative path referenced?
+	 *
+	 * @param relativePath The image path relative to the output directory ("images/diagram.png", e.g.).
+	 *
+	 * @return True if some reference points to that image.
+	 */
+	public boolean isReferenced(String relativePath) {
+		final String path = normalize( relativePath );
+		if ( references.contains( path ) ) {
+			return true;
+		}
+		final String suffix = '/' + path;
+		for ( String reference : references ) {
+			if ( reference.endsWith( suffix ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Resolves a reference against the directory holding the referencing file, folding <tt>.</tt> and
+	 * <tt>..</tt> segments.
+	 */
+	private static String resolve(String directory, String reference) {
+		final String path = reference.trim().replace( '\\', '/' );
+		final List<String> segments = new ArrayList<String>();
+		if ( !path.startsWith( "/" ) ) {
+			for ( String segment : directory.replace( '\\', '/' ).split( "/" ) ) {
+				segments.add( segment );
+			}
+		}
+		for ( String segment : path.split( "/" ) ) {
+			if ( "..".equals( segment ) ) {
+				if ( !segments.isEmpty() ) {
+					segments.remove( segments.size() - 1 );
+				}
+			}
+			else if ( segment.length() > 0 && !".".equals( segment ) ) {
+				segments.add( segment );
+			}
+		}
+		final StringBuilder resolved = new StringBuilder();
+		for ( String segment : segments ) {
+			if ( segment.length() > 0 ) {
+				resolved.append( resolved.length() == 0 ? "" : "/" ).append( segment );
+			}
+		}
+		return resolved.toString();
+	}
+
+	private static String normalize(String path) {
+		String normalized = path.trim().replace( '\\', '/' );
+		while ( normalized.startsWith( "./" ) ) {
+			normalized = normalized.substring( 2 );
+		}
+		while ( normalized.startsWith( "/" ) ) {
+			normalized = normalized.substring( 1 );
+		}
+		return normalized;
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jboss.jdocbook.JDocBookProcessException;
+import org.jboss.jdocbook.translate.PoSynchronizer;
+import org.jboss.jdocbook.translate.TranslationSource;
+import org.jboss.jdocbook.util.TranslationUtils;
+import org.jboss.maven.shared.po.PoEntry;
+import org.jboss.maven.shared.po.PoMerger;
+import org.jboss.maven.shared.po.PoParser;
+import org.jboss.maven.shared.po.PoWriter;
+import org.jboss.maven.shared.po.TranslationMemory;
+
+/**
+ * {@link PoSynchronizer} doing the work of <tt>msgmerge</tt>/<tt>msginit</tt> in-JVM, without forking a process per
+ * file (nor needing gettext installed).
+ */
+public class JavaPoSynchronizer implements PoSynchronizer {
+	private final TranslationFiles translationFiles;
+	private final char localeSeparator;
+	private final File translationMemoryDirectory;
+	private final Log log;
+
+	public JavaPoSynchronizer(TranslationFiles translationFiles, char localeSeparator, Log log) {
+		this( translationFiles, localeSeparator, null, log );
+	}
+
+	/**
+	 * @param translationFiles The translation files.
+	 * @param localeSeparator The separator used to render languages (as in the <tt>Language</tt> header of new PO
+	 * files).
+	 * @param translationMemoryDirectory Where to keep the translation memories pre-filling new messages (marked
+	 * fuzzy), or null not to use any.
+	 * @param log The log.
+	 */
+	public JavaPoSynchronizer(
+			TranslationFiles translationFiles,
+			char localeSeparator,
+			File translationMemoryDirectory,
+			Log log) {
+		this.translationFiles = translationFiles;
+		this.localeSeparator = localeSeparator;
+		this.translationMemoryDirectory = translationMemoryDirectory;
+		this.log = log;
+	}
+
+	/**
+	 * Merge the PO files of the given language which are older than their POT file.
+	 *
+	 * @param source The language.
+	 */
+	public void synchronizePo(TranslationSource source) {
+		synchronizePo( source, null );
+	}
+
+	/**
+	 * Merge the PO files of the given language whose POT file changed since they were last merged.
+	 *
+	 * @param source The language.
+	 * @param fingerprints The fingerprints of the POT files the PO files were last merged with, updated as PO files
+	 * get merged; null to fall back to comparing timestamps.
+	 */
+	public void synchronizePo(TranslationSource source, FingerprintStore fingerprints) {
+		final File poDirectory = source.resolvePoDirectory();
+		final String language = TranslationUtils.render( source.getLanguage(), localeSeparator );
+		final TranslationMemory memory = translationMemoryDirectory == null
+				? null
+				: translationFiles.getTranslationMemory( translationMemoryDirectory, language, poDirectory );
+		for ( File masterFile : translationFiles.getMasterLanguageDescriptor().getDocumentFiles() ) {
+			if ( !translationFiles.isTranslatable( masterFile ) ) {
+				continue;
+			}
+			final File potFile = translationFiles.getPotFile( masterFile );
+			final File poFile = translationFiles.getPoFile( masterFile, poDirectory );
+			if ( fingerprints == null ) {
+				updateTranslation( potFile, poFile, language, memory, true );
+				continue;
+			}
+			final String key = translationFiles.getRelativePath( masterFile );
+			final String fingerprint = FingerprintStore.fingerprint( potFile );
+			if ( fingerprints.isUpToDate( key, fingerprint, poFile ) ) {
+				log.debug( "skipping PO file as up-to-date : " + poFile );
+				continue;
+			}
+			if ( updateTranslation( potFile, poFile, language, memory, false ) ) {
+				fingerprints.record( key, fingerprint );
+			}
+		}
+	}
+
+	private boolean updateTranslation(
+			File potFile,
+			File poFile,
+			String language,
+			TranslationMemory memory,
+			boolean checkTimestamps) {
+		if ( !potFile.exists() ) {
+			log.info( "skipping PO updates; POT file did not exist : " + potFile );
+			return false;
+		}
+		try {
+			if ( poFile.exists() ) {
+				if ( checkTimestamps && poFile.lastModified() >= potFile.lastModified() ) {
+					log.info( "skipping PO file as up-to-date : " + poFile );
+					return false;
+				}
+				final List<PoEntry> merged = PoMerger.merge( PoParser.parse( poFile ), PoParser.parse( potFile ), memory );
+				if ( !PoWriter.write( merged, poFile ) ) {
+					log.debug( "PO file unchanged : " + poFile );
+				}
+			}
+			else {
+				PoWriter.write( PoMerger.initialize( PoParser.parse( potFile ), language, memory ), poFile );
+			}
+			return true;
+		}
+		catch ( IOException e ) {
+			throw new JDocBookProcessException( "Unable to update PO file [" + poFile + "]", e );
+		}
+	}
+}
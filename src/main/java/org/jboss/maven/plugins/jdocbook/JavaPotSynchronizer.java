@@ -0,0 +1,175 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jboss.jdocbook.JDocBookProcessException;
+import org.jboss.jdocbook.translate.PotSynchronizer;
+import org.jboss.maven.shared.digest.DigestHelper;
+import org.jboss.maven.shared.po.PoEntry;
+import org.jboss.maven.shared.po.PoMerger;
+import org.jboss.maven.shared.po.PoParser;
+import org.jboss.maven.shared.po.PoWriter;
+import org.jboss.maven.shared.po.PotExtractor;
+
+/**
+ * {@link PotSynchronizer} doing the work of <tt>xml2pot</tt> in-JVM, processing the master files concurrently.  A
+ * POT is only rewritten when its messages changed, a new creation date alone does not count.
+ */
+public class JavaPotSynchronizer implements PotSynchronizer {
+	private final TranslationFiles translationFiles;
+	private final Log log;
+
+	public JavaPotSynchronizer(TranslationFiles translationFiles, Log log) {
+		this.translationFiles = translationFiles;
+		this.log = log;
+	}
+
+	/**
+	 * Update the POT files which are older than their master file.
+	 */
+	public void synchronizePot() {
+		synchronizePot( null );
+	}
+
+	/**
+	 * Update the POT files whose master file changed since they were last updated.
+	 *
+	 * @param fingerprints The fingerprints of the master files the POT files were last updated from, updated as POT
+	 * files get updated; null to fall back to comparing timestamps.
+	 */
+	public void synchronizePot(final FingerprintStore fingerprints) {
+		final String creationDate = PotExtractor.formatCreationDate( new Date() );
+		final ExecutorService executor = TranslationWorkers.getExecutor();
+		final List<Future<?>> futures = new ArrayList<Future<?>>();
+		try {
+			for ( final File masterFile : translationFiles.getMasterLanguageDescriptor().getDocumentFiles() ) {
+				if ( !translationFiles.isTranslatable( masterFile ) ) {
+					continue;
+				}
+				futures.add(
+						executor.submit(
+								new Callable<Object>() {
+									public Object call() throws IOException {
+										updatePortableObjectTemplate(
+												masterFile,
+												translationFiles.getPotFile( masterFile ),
+												creationDate,
+												fingerprints
+										);
+										return null;
+									}
+								}
+						)
+				);
+			}
+			final List<String> failures = new ArrayList<String>();
+			for ( Future<?> future : futures ) {
+				try {
+					future.get();
+				}
+				catch ( ExecutionException e ) {
+					log.debug( "Unable to update POT", e.getCause() );
+					failures.add( String.valueOf( e.getCause() ) );
+				}
+				catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					throw new JDocBookProcessException( "Interrupted while updating POT files", e );
+				}
+			}
+			if ( !failures.isEmpty() ) {
+				throw new JDocBookProcessException( "Unable to update POT files : " + failures );
+			}
+		}
+		finally {
+			TranslationWorkers.cancel( futures );
+		}
+	}
+
+	private void updatePortableObjectTemplate(
+			File masterFile,
+			File potFile,
+			String creationDate,
+			FingerprintStore fingerprints) throws IOException {
+		if ( !masterFile.exists() ) {
+			log.warn( "skipping POT update; source file did not exist : " + masterFile );
+			return;
+		}
+		final String key = translationFiles.getRelativePath( masterFile );
+		String fingerprint = null;
+		if ( fingerprints == null ) {
+			if ( potFile.exists() && potFile.lastModified() >= masterFile.lastModified() ) {
+				log.info( "skipping POT update; up-to-date : " + potFile );
+				return;
+			}
+		}
+		else {
+			fingerprint = FingerprintStore.fingerprint( masterFile );
+			if ( fingerprints.isUpToDate( key, fingerprint, potFile ) ) {
+				log.debug( "skipping POT update; up-to-date : " + potFile );
+				return;
+			}
+		}
+		writePortableObjectTemplate( masterFile, potFile, creationDate );
+		if ( fingerprints != null ) {
+			fingerprints.record( key, fingerprint );
+		}
+	}
+
+	private void writePortableObjectTemplate(File masterFile, File potFile, String creationDate) throws IOException {
+		final List<PoEntry> entries = PotExtractor.extract( masterFile, masterFile.getName(), creationDate );
+		if ( potFile.exists() ) {
+			// render with the previous creation date, an unchanged POT then renders identically and is left alone
+			final String previousDate = readCreationDate( potFile );
+			if ( previousDate != null ) {
+				final List<PoEntry> previouslyDated = new ArrayList<PoEntry>( entries );
+				previouslyDated.set( 0, PotExtractor.createHeader( previousDate ) );
+				if ( DigestHelper.hasContent( potFile, PoWriter.render( previouslyDated ).getBytes( "UTF-8" ) ) ) {
+					log.debug( "POT unchanged : " + potFile );
+					return;
+				}
+			}
+		}
+		PoWriter.write( entries, potFile );
+	}
+
+	private String readCreationDate(File potFile) throws IOException {
+		for ( PoEntry entry : PoParser.parse( potFile ) ) {
+			if ( entry.isHeader() ) {
+				return PoMerger.getHeaderField( entry.getMsgstr( 0 ), PotExtractor.POT_CREATION_DATE );
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.jboss.jdocbook.JDocBookProcessException;
+import org.jboss.jdocbook.translate.TranslationSource;
+import org.jboss.jdocbook.translate.Translator;
+import org.jboss.jdocbook.util.TranslationUtils;
+import org.jboss.maven.shared.digest.DigestHelper;
+import org.jboss.maven.shared.po.DocumentTranslator;
+import org.jboss.maven.shared.po.PoIndex;
+import org.jboss.maven.shared.po.TranslationMemory;
+import org.jboss.maven.shared.po.XmlTokenizer;
+
+/**
+ * {@link Translator} doing the work of <tt>po2xml</tt> in-JVM, translating the files of a language concurrently.
+ */
+public class JavaTranslator implements Translator {
+	private final TranslationFiles translationFiles;
+	private final char localeSeparator;
+	private final File translationMemoryDirectory;
+	private final Log log;
+
+	public JavaTranslator(TranslationFiles translationFiles, char localeSeparator, Log log) {
+		this( translationFiles, localeSeparator, null, log );
+	}
+
+	/**
+	 * @param translationFiles The translation files.
+	 * @param localeSeparator The separator used to render languages (naming their translation memory).
+	 * @param translationMemoryDirectory Where to keep the translation memories, used for the messages the PO file of
+	 * a document has no translation for, or null not to use any.
+	 * @param log The log.
+	 */
+	public JavaTranslator(
+			TranslationFiles translationFiles,
+			char localeSeparator,
+			File translationMemoryDirectory,
+			Log log) {
+		this.translationFiles = translationFiles;
+		this.localeSeparator = localeSeparator;
+		this.translationMemoryDirectory = translationMemoryDirectory;
+		this.log = log;
+	}
+
+	public void translate(TranslationSource source) {
+		translate( source, null );
+	}
+
+	/**
+	 * Translate the given language, skipping files whose master and PO file did not change since they were last
+	 * translated.
+	 *
+	 * @param source The language.
+	 * @param fingerprints The fingerprints of the previous translation, updated as files get translated; null to
+	 * translate everything.
+	 */
+	public void translate(TranslationSource source, final FingerprintStore fingerprints) {
+		final File poDirectory = source.resolvePoDirectory();
+		final File translatedXmlDirectory = source.resolveTranslatedXmlDirectory();
+		final TranslationMemory memory = translationMemoryDirectory == null
+				? null
+				: translationFiles.getTranslationMemory(
+						translationMemoryDirectory,
+						TranslationUtils.render( source.getLanguage(), localeSeparator ),
+						poDirectory
+				);
+		final ExecutorService executor = TranslationWorkers.getExecutor();
+		final List<Future<?>> futures = new ArrayList<Future<?>>();
+		try {
+			for ( final File masterFile : translationFiles.getMasterLanguageDescriptor().getDocumentFiles() ) {
+				futures.add(
+						executor.submit(
+								new Callable<Object>() {
+									public Object call() throws IOException {
+										translate( masterFile, poDirectory, translatedXmlDirectory, memory, fingerprints );
+										return null;
+									}
+								}
+						)
+				);
+			}
+			final List<String> failures = new ArrayList<String>();
+			for ( Future<?> future : futures ) {
+				try {
+					future.get();
+				}
+				catch ( ExecutionException e ) {
+					log.debug( "Unable to translate", e.getCause() );
+					failures.add( String.valueOf( e.getCause() ) );
+				}
+				catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					throw new JDocBookProcessException( "Interrupted while translating", e );
+				}
+			}
+			if ( !failures.isEmpty() ) {
+				throw new JDocBookProcessException(
+						"Unable to translate [" + source.getLanguage() + "] : " + failures
+				);
+			}
+		}
+		finally {
+			TranslationWorkers.cancel( futures );
+		}
+	}
+
+	private void translate(
+			File masterFile,
+			File poDirectory,
+			File translatedXmlDirectory,
+			TranslationMemory memory,
+			FingerprintStore fingerprints) throws IOException {
+		final File translatedFile = translationFiles.getTranslatedFile( masterFile, translatedXmlDirectory );
+		final String key = translationFiles.getRelativePath( masterFile );
+		String fingerprint = null;
+		if ( fingerprints != null ) {
+			fingerprint = translationFiles.getTranslationFingerprint( masterFile, poDirectory );
+			if ( memory != null && translationFiles.isTranslatable( masterFile ) ) {
+				fingerprint += ':' + memory.getFingerprint();
+			}
+			if ( fingerprints.isUpToDate( key, fingerprint, translatedFile ) ) {
+				log.debug( "skipping translation; up-to-date : " + translatedFile );
+				return;
+			}
+		}
+		translate( masterFile, poDirectory, translatedFile, memory );
+		if ( fingerprints != null ) {
+			fingerprints.record( key, fingerprint );
+		}
+	}
+
+	private void translate(File masterFile, File poDirectory, File translatedFile, TranslationMemory memory)
+			throws IOException {
+		if ( !translationFiles.isTranslatable( masterFile ) ) {
+			FileUtils.copyFile( masterFile, translatedFile );
+			return;
+		}
+		final File poFile = translationFiles.getPoFile( masterFile, poDirectory );
+		if ( !poFile.exists() && memory == null ) {
+			log.warn( "No PO file [" + poFile + "], copying the master file untranslated" );
+			FileUtils.copyFile( masterFile, translatedFile );
+			return;
+		}
+		final byte[] masterContent = XmlTokenizer.readBytes( masterFile );
+		final String encoding = XmlTokenizer.detectEncoding( masterContent );
+		final String translated = DocumentTranslator.translate(
+				XmlTokenizer.decode( masterContent ),
+				masterFile.getPath(),
+				poFile.exists() ? PoIndex.load( poFile ) : PoIndex.empty(),
+				memory
+		);
+		final byte[] translatedContent = translated.getBytes( encoding );
+		if ( DigestHelper.hasContent( translatedFile, translatedContent ) ) {
+			return;
+		}
+		translatedFile.getParentFile().mkdirs();
+		final OutputStream out = new FileOutputStream( translatedFile );
+		try {
+			out.write( translatedContent );
+		}
+		finally {
+			IOUtil.close( out );
+		}
+	}
+}
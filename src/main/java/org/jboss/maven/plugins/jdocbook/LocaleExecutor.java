@@ -0,0 +1,187 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jboss.jdocbook.JDocBookProcessException;
+
+/**
+ * Processes the languages of a goal, concurrently if so configured.  Languages are independent of one another;
+ * when processing them forks external (gettext) processes, each language holds a permit of a semaphore shared by the
+ * whole session while being processed, so as not to overwhelm the machine with processes.  The work of a language
+ * forks one process at a time, so the permits cap the number of processes running at once.  The gettext based
+ * jDocBook components are not known to be thread-safe: such work must not share them with other languages (see
+ * {@link AbstractDocBookMojo#getLanguageComponentRegistry}).
+ * <p/>
+ * Sequential processing stops at the first failure, as it always did.  Concurrent processing lets every language
+ * finish and reports all failures together.
+ */
+public class LocaleExecutor {
+	/**
+	 * The per-language work.
+	 */
+	public static interface Work<T> {
+		/**
+		 * Describe the item, for failure reports.
+		 */
+		public String describe(T item);
+
+		public void process(T item);
+	}
+
+	private final int concurrency;
+	private final Semaphore externalProcesses;
+	private final Log log;
+
+	/**
+	 * Constructs an executor.
+	 *
+	 * @param concurrency The number of languages to process at once.
+	 * @param externalProcesses The permits of the languages forking external processes.
+	 * @param log The log.
+	 */
+	public LocaleExecutor(int concurrency, Semaphore externalProcesses, Log log) {
+		this.concurrency = Math.max( 1, concurrency );
+		this.externalProcesses = externalProcesses;
+		this.log = log;
+	}
+
+	/**
+	 * Process the given items.
+	 *
+	 * @param items The items, typically one per language.
+	 * @param work The work to do for each.
+	 * @param forksExternalProcesses Does the work fork external processes?
+	 *
+	 * @throws JDocBookProcessException Indicates processing failed for at least one item.
+	 */
+	public <T> void execute(List<T> items, Work<T> work, boolean forksExternalProcesses) {
+		final Work<T> permittedWork = forksExternalProcesses ? new PermittedWork<T>( work, externalProcesses ) : work;
+		final int threads = Math.min( concurrency, items.size() );
+		if ( threads <= 1 ) {
+			for ( T item : items ) {
+				permittedWork.process( item );
+			}
+			return;
+		}
+		executeConcurrently( items, permittedWork, threads );
+	}
+
+	private <T> void executeConcurrently(List<T> items, final Work<T> work, int threads) {
+
+		log.debug( "Processing " + items.size() + " languages, " + threads + " at a time" );
+		final ExecutorService executor = Executors.newFixedThreadPool( threads );
+		try {
+			final Map<T,Future<?>> futures = new LinkedHashMap<T,Future<?>>();
+			for ( final T item : items ) {
+				futures.put(
+						item,
+						executor.submit(
+								new Callable<Object>() {
+									public Object call() {
+										work.process( item );
+										return null;
+									}
+								}
+						)
+				);
+			}
+
+			final List<String> failures = new ArrayList<String>();
+			Throwable firstFailure = null;
+			for ( Map.Entry<T,Future<?>> entry : futures.entrySet() ) {
+				try {
+					entry.getValue().get();
+				}
+				catch ( ExecutionException e ) {
+					final Throwable cause = e.getCause();
+					log.error( "Processing [" + work.describe( entry.getKey() ) + "] failed : " + cause.getMessage() );
+					failures.add( work.describe( entry.getKey() ) + " : " + cause.getMessage() );
+					if ( firstFailure == null ) {
+						firstFailure = cause;
+					}
+				}
+				catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					throw new JDocBookProcessException( "Interrupted while processing languages", e );
+				}
+			}
+			if ( !failures.isEmpty() ) {
+				final StringBuilder report = new StringBuilder( "Processing failed for " )
+						.append( failures.size() ).append( " of " ).append( items.size() ).append( " languages :" );
+				for ( String failure : failures ) {
+					report.append( "\n    " ).append( failure );
+				}
+				throw new JDocBookProcessException( report.toString(), firstFailure );
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Work which holds a permit while processing an item.
+	 */
+	private static class PermittedWork<T> implements Work<T> {
+		private final Work<T> work;
+		private final Semaphore permits;
+
+		private PermittedWork(Work<T> work, Semaphore permits) {
+			this.work = work;
+			this.permits = permits;
+		}
+
+		public String describe(T item) {
+			return work.describe( item );
+		}
+
+		public void process(T item) {
+			try {
+				permits.acquire();
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				throw new JDocBookProcessException( "Interrupted while waiting to process [" + describe( item ) + "]", e );
+			}
+			try {
+				work.process( item );
+			}
+			finally {
+				permits.release();
+			}
+		}
+	}
+}
@@ -33,6 +33,7 @@ import org.apache.maven.artifact.resolver.ArtifactResolver;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
 import org.apache.maven.settings.Settings;
 import org.codehaus.plexus.archiver.manager.ArchiverManager;
 
@@ -133,4 +134,13 @@ public abstract class MojoInternalConfigSupport extends AbstractMojo {
 	 * @readonly
 	 */
 	protected ArtifactResolver artifactResolver;
+
+	/**
+	 * INTERNAL : used to attach classified artifacts to the project
+	 *
+	 * @component
+	 * @required
+	 * @readonly
+	 */
+	protected MavenProjectHelper projectHelper;
 }
@@ -110,4 +110,85 @@ public class Options {
 				? DEFAULT_STANDARD_DATE_INJECTION_FORMAT
 				: injectionDateFormat;
 	}
+
+	private boolean resourceContentChecking;
+
+	public boolean isResourceContentChecking() {
+		return resourceContentChecking;
+	}
+
+	private boolean pruneUnreferencedImages;
+
+	public boolean isPruneUnreferencedImages() {
+		return pruneUnreferencedImages;
+	}
+
+	private boolean reportUnreferencedImages;
+
+	public boolean isReportUnreferencedImages() {
+		return reportUnreferencedImages;
+	}
+
+	/**
+	 * Drive translations through the gettext/poxml executables (the default).
+	 */
+	public static final String TRANSLATION_ENGINE_GETTEXT = "gettext";
+	/**
+	 * Drive translations in-JVM.
+	 */
+	public static final String TRANSLATION_ENGINE_JAVA = "java";
+
+	private String translationEngine = TRANSLATION_ENGINE_GETTEXT;
+
+	public String getTranslationEngine() {
+		return translationEngine;
+	}
+
+	private int localeConcurrency = 1;
+
+	public int getLocaleConcurrency() {
+		return localeConcurrency;
+	}
+
+	private int maxExternalProcesses;
+
+	public int getMaxExternalProcesses() {
+		return maxExternalProcesses;
+	}
+
+	private boolean incrementalTranslation;
+
+	public boolean isIncrementalTranslation() {
+		return incrementalTranslation;
+	}
+
+	private int componentRegistryPoolSize;
+
+	public int getComponentRegistryPoolSize() {
+		return componentRegistryPoolSize;
+	}
+
+	private boolean fastClean;
+
+	public boolean isFastClean() {
+		return fastClean;
+	}
+
+	private int minimumTranslationCoverage;
+
+	public int getMinimumTranslationCoverage() {
+		return minimumTranslationCoverage;
+	}
+
+	private boolean translationMemory;
+
+	public boolean isTranslationMemory() {
+		return translationMemory;
+	}
+
+	private boolean translationMemoryFallback;
+
+	public boolean isTranslationMemoryFallback() {
+		return translationMemoryFallback;
+	}
 }
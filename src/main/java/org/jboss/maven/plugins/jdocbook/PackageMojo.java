@@ -26,11 +26,20 @@ package org.jboss.maven.plugins.jdocbook;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.jar.JarArchiver;
 import org.jboss.jdocbook.render.RenderingException;
 import org.jboss.jdocbook.xslt.XSLTException;
+import org.jboss.maven.shared.archive.CompressionPolicy;
+import org.jboss.maven.shared.archive.ParallelZipArchiver;
 
 /**
  * This mojo's responsibility within the plugin/packaging is to bundle the
@@ -47,28 +56,168 @@ import org.jboss.jdocbook.xslt.XSLTException;
  */
 @SuppressWarnings({ "UnusedDeclaration" })
 public class PackageMojo extends AbstractDocBookMojo {
+	/**
+	 * Archiving configuration.
+	 *
+	 * @parameter
+	 */
+	protected Archiving archiving = new Archiving();
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	protected void process() throws RenderingException, XSLTException {
 		File projectArtifactFile = new File( project.getBuild().getOutputDirectory(), project.getBuild().getFinalName() + ".war" );
-		JarArchiver warBuilder = new JarArchiver();
-		warBuilder.setDestFile( projectArtifactFile );
+		final List<PublishingSource> sources = resolvePackagedSources();
+		if ( archiving.isParallel()
+				|| archiving.isIncremental()
+				|| archiving.isDeduplicate()
+				|| !Archiving.COMPRESSION_DEFLATE.equals( archiving.getCompression() ) ) {
+			buildWithParallelArchiver( projectArtifactFile, sources );
+		}
+		else {
+			build( projectArtifactFile, sources );
+		}
+		project.getArtifact().setFile( projectArtifactFile );
 
-		final Matcher<String> formatMatcher = new Matcher<String>( getRequestedFormat() );
+		if ( attach && archiving.isClassifiedAttachments() ) {
+			attachClassifiedArchives( sources );
+		}
+	}
+
+	/**
+	 * The publishing sources to package: those of the languages which meet <tt>options/minimumTranslationCoverage</tt>,
+	 * as the generate goal renders no others.
+	 *
+	 * @return The sources to package.
+	 */
+	private List<PublishingSource> resolvePackagedSources() {
+		final List<PublishingSource> sources = new ArrayList<PublishingSource>();
+		for ( PublishingSource source : resolvePublishingSources() ) {
+			if ( meetsMinimumTranslationCoverage( source.getLanguage() ) ) {
+				sources.add( source );
+			}
+		}
+		return sources;
+	}
 
+	/**
+	 * Attach the output of each (language, format) combination with a <tt>language-format</tt> classifier.  A format
+	 * whose output is a single PDF is attached as is; others are zipped, concurrently.
+	 */
+	private void attachClassifiedArchives(List<PublishingSource> sources) throws RenderingException {
+		final List<ClassifiedAttachment> attachments = collectClassifiedAttachments( sources );
+		final int threads = archiving.getThreads() < 1
+				? Runtime.getRuntime().availableProcessors()
+				: archiving.getThreads();
+		final CompressionPolicy compressionPolicy = buildCompressionPolicy();
+		final ExecutorService executor = Executors.newFixedThreadPool( archiving.isParallel() ? threads : 1 );
 		try {
-			for ( PublishingSource source : resolvePublishingSources() ) {
-				for ( Format format : getFormatOptionsList() ) {
-					if ( formatMatcher.matches( format.getName() ) ) {
-						warBuilder.addDirectory(
-								new File( source.resolvePublishingBaseDirectory(), format.getName() ),
-								format.getName() + "/"
-						);
-					}
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for ( final ClassifiedAttachment attachment : attachments ) {
+				if ( attachment.formatDirectory == null ) {
+					continue;
+				}
+				futures.add(
+						executor.submit(
+								new Callable<Object>() {
+									public Object call() throws IOException {
+										ParallelZipArchiver builder = new ParallelZipArchiver( 1 );
+										builder.setCompressionPolicy( compressionPolicy );
+										builder.setIncremental( archiving.isIncremental() );
+										builder.addDirectory(
+												attachment.formatDirectory,
+												attachment.formatDirectory.getName() + "/"
+										);
+										builder.createArchive( attachment.file );
+										return null;
+									}
+								}
+						)
+				);
+			}
+			final List<String> failures = new ArrayList<String>();
+			for ( Future<?> future : futures ) {
+				try {
+					future.get();
+				}
+				catch ( ExecutionException e ) {
+					getLog().debug( "Unable to create classified archive", e.getCause() );
+					failures.add( String.valueOf( e.getCause() ) );
+				}
+				catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					throw new RenderingException( "Interrupted while creating classified archives", e );
+				}
+			}
+			if ( !failures.isEmpty() ) {
+				throw new RenderingException( "Unable to create classified archives : " + failures );
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		for ( ClassifiedAttachment attachment : attachments ) {
+			getLog().debug( "attaching [" + attachment.file + "] as " + attachment.classifier );
+			projectHelper.attachArtifact( project, attachment.type, attachment.classifier, attachment.file );
+		}
+	}
+
+	private List<ClassifiedAttachment> collectClassifiedAttachments(List<PublishingSource> sources) {
+		final Matcher<String> formatMatcher = new Matcher<String>( getRequestedFormat() );
+		final File outputDirectory = new File( project.getBuild().getOutputDirectory() );
+		final List<ClassifiedAttachment> attachments = new ArrayList<ClassifiedAttachment>();
+		for ( PublishingSource source : sources ) {
+			for ( Format format : getFormatOptionsList() ) {
+				if ( !formatMatcher.matches( format.getName() ) ) {
+					continue;
+				}
+				final File formatDirectory = new File( source.resolvePublishingBaseDirectory(), format.getName() );
+				if ( !formatDirectory.isDirectory() ) {
+					continue;
+				}
+				final String classifier = stringify( source.getLanguage() ) + '-' + format.getName();
+				final File[] files = formatDirectory.listFiles();
+				if ( files != null && files.length == 1 && files[0].isFile() && files[0].getName().endsWith( ".pdf" ) ) {
+					// already deployable
+					attachments.add( new ClassifiedAttachment( classifier, "pdf", files[0], null ) );
+				}
+				else {
+					final File archive = new File(
+							outputDirectory,
+							project.getBuild().getFinalName() + '-' + classifier + ".zip"
+					);
+					attachments.add( new ClassifiedAttachment( classifier, "zip", archive, formatDirectory ) );
 				}
 			}
+		}
+		return attachments;
+	}
+
+	private static class ClassifiedAttachment {
+		private final String classifier;
+		private final String type;
+		private final File file;
+		private final File formatDirectory;
+
+		private ClassifiedAttachment(String classifier, String type, File file, File formatDirectory) {
+			this.classifier = classifier;
+			this.type = type;
+			this.file = file;
+			this.formatDirectory = formatDirectory;
+		}
+	}
+
+	private void build(File projectArtifactFile, List<PublishingSource> sources) throws RenderingException {
+		JarArchiver warBuilder = new JarArchiver();
+		warBuilder.setDestFile( projectArtifactFile );
+
+		try {
+			for ( File formatDirectory : collectFormatDirectories( sources ) ) {
+				warBuilder.addDirectory( formatDirectory, formatDirectory.getName() + "/" );
+			}
 			warBuilder.createArchive();
 		}
 		catch ( IOException e ) {
@@ -77,7 +226,58 @@ public class PackageMojo extends AbstractDocBookMojo {
 		catch ( ArchiverException e ) {
 			throw new RenderingException( "Unable to populate archive [" + projectArtifactFile.getAbsolutePath() + "]", e );
 		}
+	}
 
-		project.getArtifact().setFile( projectArtifactFile );
+	private void buildWithParallelArchiver(File projectArtifactFile, List<PublishingSource> sources)
+			throws RenderingException {
+		ParallelZipArchiver warBuilder = new ParallelZipArchiver( archiving.isParallel() ? archiving.getThreads() : 1 );
+		warBuilder.setIncludeManifest( true );
+		warBuilder.setCompressionPolicy( buildCompressionPolicy() );
+		warBuilder.setIncremental( archiving.isIncremental() );
+		warBuilder.setDeduplicate( archiving.isDeduplicate() );
+		for ( File formatDirectory : collectFormatDirectories( sources ) ) {
+			warBuilder.addDirectory( formatDirectory, formatDirectory.getName() + "/" );
+		}
+		try {
+			warBuilder.createArchive( projectArtifactFile );
+			if ( archiving.isIncremental() ) {
+				getLog().debug( "Reused " + warBuilder.getReusedEntryCount() + " unchanged archive entries" );
+			}
+			if ( archiving.isDeduplicate() ) {
+				getLog().debug( "Wrote " + warBuilder.getDuplicateEntryCount() + " duplicate archive entries as aliases" );
+			}
+		}
+		catch ( IOException e ) {
+			throw new RenderingException( "Unable to create archive [" + projectArtifactFile.getAbsolutePath() + "]", e );
+		}
+	}
+
+	private CompressionPolicy buildCompressionPolicy() {
+		final String compression = archiving.getCompression();
+		if ( Archiving.COMPRESSION_DEFLATE.equals( compression ) ) {
+			return CompressionPolicy.DEFLATE_ALL;
+		}
+		if ( !Archiving.COMPRESSION_POLICY.equals( compression ) && !Archiving.COMPRESSION_ADAPTIVE.equals( compression ) ) {
+			throw new RenderingException( "Unknown archive compression [" + compression + "]" );
+		}
+		return CompressionPolicy.build(
+				archiving.getStoredExtensions(),
+				archiving.getDeflatedExtensions(),
+				Archiving.COMPRESSION_ADAPTIVE.equals( compression ),
+				archiving.getAdaptiveThreshold()
+		);
+	}
+
+	private List<File> collectFormatDirectories(List<PublishingSource> sources) {
+		final Matcher<String> formatMatcher = new Matcher<String>( getRequestedFormat() );
+		final List<File> formatDirectories = new ArrayList<File>();
+		for ( PublishingSource source : sources ) {
+			for ( Format format : getFormatOptionsList() ) {
+				if ( formatMatcher.matches( format.getName() ) ) {
+					formatDirectories.add( new File( source.resolvePublishingBaseDirectory(), format.getName() ) );
+				}
+			}
+		}
+		return formatDirectories;
 	}
 }
@@ -0,0 +1,218 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.jdocbook.Configuration;
+import org.jboss.jdocbook.DocBookSchemaResolutionStrategy;
+import org.jboss.jdocbook.Environment;
+import org.jboss.jdocbook.JDocBookComponentRegistry;
+import org.jboss.jdocbook.MasterLanguageDescriptor;
+import org.jboss.jdocbook.ResourceDelegate;
+import org.jboss.jdocbook.ValueInjection;
+import org.jboss.jdocbook.util.ResourceDelegateSupport;
+
+/**
+ * A {@link JDocBookComponentRegistry} kept in a {@link ComponentRegistryPool}.  The registry outlives the goal which
+ * built it, so its {@link Environment} and {@link Configuration} are not that goal's: they forward to those of the
+ * goal currently using the registry (see {@link #bind}), which supplies the directories, master language descriptor
+ * and fonts of its own module.  The resource delegate looks in the bound goal's staging directory first, then in the
+ * class loader the registry was built with; the components may hold on to what they resolved through that class
+ * loader, so the pool key must cover everything it was built from, along with the transformer configuration.
+ */
+public class PooledComponentRegistry {
+	private final StagingFirstClassLoader resourceClassLoader;
+	private final BoundEnvironment environment;
+	private final BoundConfiguration configuration = new BoundConfiguration();
+	private final JDocBookComponentRegistry registry;
+
+	/**
+	 * Constructs a pooled registry.
+	 *
+	 * @param resourceClassLoader The class loader of the style resources (everything but the staging directory), for
+	 * the registry's whole life.
+	 */
+	public PooledComponentRegistry(ClassLoader resourceClassLoader) {
+		this.resourceClassLoader = new StagingFirstClassLoader( resourceClassLoader );
+		this.environment = new BoundEnvironment( new BoundResourceDelegate( this.resourceClassLoader ) );
+		this.registry = new JDocBookComponentRegistry( environment, configuration );
+	}
+
+	/**
+	 * Make the registry see the environment and configuration of the goal about to use it.
+	 *
+	 * @param environment The goal's environment (its resource delegate is not used).
+	 * @param configuration The goal's configuration.
+	 *
+	 * @return The registry.
+	 */
+	public JDocBookComponentRegistry bind(Environment environment, Configuration configuration) {
+		this.environment.delegate = environment;
+		this.configuration.delegate = configuration;
+		this.resourceClassLoader.stagingDirectory = environment.getStagingDirectory();
+		return registry;
+	}
+
+	/**
+	 * Forget the environment and configuration of the goal which used the registry, so the pool does not keep that
+	 * goal (and its project) reachable.
+	 */
+	public void unbind() {
+		this.environment.delegate = null;
+		this.configuration.delegate = null;
+		this.resourceClassLoader.stagingDirectory = null;
+	}
+
+	/**
+	 * Resolves resources against the bound staging directory before its parent, as the class loader of an unpooled
+	 * registry has the staging directory first on its path.
+	 */
+	private static class StagingFirstClassLoader extends ClassLoader {
+		private volatile File stagingDirectory;
+
+		private StagingFirstClassLoader(ClassLoader parent) {
+			super( parent );
+		}
+
+		@Override
+		public URL getResource(String name) {
+			final URL staged = findResource( name );
+			return staged != null ? staged : super.getResource( name );
+		}
+
+		@Override
+		protected URL findResource(String name) {
+			final File directory = stagingDirectory;
+			if ( directory == null ) {
+				return null;
+			}
+			final File file = new File( directory, name );
+			if ( !file.exists() ) {
+				return null;
+			}
+			try {
+				return file.toURI().toURL();
+			}
+			catch ( MalformedURLException e ) {
+				return null;
+			}
+		}
+	}
+
+	private static class BoundResourceDelegate extends ResourceDelegateSupport {
+		private final ClassLoader loader;
+
+		private BoundResourceDelegate(ClassLoader loader) {
+			this.loader = loader;
+		}
+
+		@Override
+		protected ClassLoader getResourceClassLoader() {
+			return loader;
+		}
+	}
+
+	private static class BoundEnvironment implements Environment {
+		private final ResourceDelegate resourceDelegate;
+		private volatile Environment delegate;
+
+		private BoundEnvironment(ResourceDelegate resourceDelegate) {
+			this.resourceDelegate = resourceDelegate;
+		}
+
+		public ResourceDelegate getResourceDelegate() {
+			return resourceDelegate;
+		}
+
+		public MasterLanguageDescriptor getMasterLanguageDescriptor() {
+			return delegate.getMasterLanguageDescriptor();
+		}
+
+		public File getWorkDirectory() {
+			return delegate.getWorkDirectory();
+		}
+
+		public File getStagingDirectory() {
+			return delegate.getStagingDirectory();
+		}
+
+		public List<File> getFontDirectories() {
+			return delegate.getFontDirectories();
+		}
+
+		public DocBookXsltResolutionStrategy getDocBookXsltResolutionStrategy() {
+			return delegate.getDocBookXsltResolutionStrategy();
+		}
+
+		public DocBookSchemaResolutionStrategy getDocBookSchemaResolutionStrategy() {
+			return delegate.getDocBookSchemaResolutionStrategy();
+		}
+	}
+
+	private static class BoundConfiguration implements Configuration {
+		private volatile Configuration delegate;
+
+		public Map<String,String> getTransformerParameters() {
+			return delegate.getTransformerParameters();
+		}
+
+		public boolean isUseRelativeImageUris() {
+			return delegate.isUseRelativeImageUris();
+		}
+
+		public char getLocaleSeparator() {
+			return delegate.getLocaleSeparator();
+		}
+
+		public boolean isAutoDetectFontsEnabled() {
+			return delegate.isAutoDetectFontsEnabled();
+		}
+
+		public boolean isUseFopFontCacheEnabled() {
+			return delegate.isUseFopFontCacheEnabled();
+		}
+
+		public LinkedHashSet<ValueInjection> getValueInjections() {
+			return delegate.getValueInjections();
+		}
+
+		public LinkedHashSet<String> getCatalogs() {
+			return delegate.getCatalogs();
+		}
+
+		public org.jboss.jdocbook.Profiling getProfiling() {
+			return delegate.getProfiling();
+		}
+
+		public String getDocBookVersion() {
+			return delegate.getDocBookVersion();
+		}
+	}
+}
@@ -24,19 +24,31 @@
 package org.jboss.maven.plugins.jdocbook;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Resource;
 import org.codehaus.plexus.archiver.ArchiveFileFilter;
 import org.codehaus.plexus.archiver.ArchiveFilterException;
 import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.FilterEnabled;
 import org.codehaus.plexus.archiver.UnArchiver;
 import org.codehaus.plexus.archiver.manager.NoSuchArchiverException;
+import org.codehaus.plexus.util.IOUtil;
 import org.jboss.jdocbook.render.RenderingException;
 import org.jboss.jdocbook.xslt.XSLTException;
+import org.jboss.maven.shared.properties.ProjectPropertiesCache;
 import org.jboss.maven.shared.resource.ResourceDelegate;
 
 /**
@@ -59,8 +71,19 @@ public class ResourceMojo extends AbstractDocBookMojo {
 	 */
 	@Override
 	protected void process() throws RenderingException, XSLTException {
-		stageStyleSupportArtifacts();
-		stageProjectResources();
+		final StagingManifest manifest = new StagingManifest(
+				stagingDirectory(),
+				directoryLayout.getStagingManifestFile()
+		);
+		final Map<File,String> unchangedArtifacts = stageStyleSupportArtifacts( manifest );
+		stageProjectResources( manifest );
+		restoreReclaimedEntries( unchangedArtifacts, manifest );
+
+		final int pruned = manifest.pruneOrphans();
+		if ( pruned > 0 ) {
+			getLog().info( "Removed " + pruned + " stale file(s) from staging directory" );
+		}
+		manifest.store();
 	}
 
 
@@ -70,13 +93,104 @@ public class ResourceMojo extends AbstractDocBookMojo {
 			new MetaInfExclusionFilter(),
 	};
 
-	private void stageStyleSupportArtifacts() {
+	/**
+	 * Stage the support artifacts which changed since the last staging.
+	 *
+	 * @return The artifacts which did not change, by file, with their source descriptor.
+	 */
+	private Map<File,String> stageStyleSupportArtifacts(StagingManifest manifest) {
+		final Map<File,String> unchangedArtifacts = new LinkedHashMap<File,String>();
 		for ( Artifact artifact : collectArtifactsByType( "jdocbook-style", true ) ) {
 			getLog().debug( "processing support artifact : " + artifact.getId() );
-			unpackSupportArtifact( artifact.getFile(), directoryLayout.getStagingDirectory(), styleEntryFilters );
+			final String source = StagingManifest.artifactSource( artifact.getId(), artifact.getFile() );
+			final List<String> entryNames = listSupportArtifactEntries( artifact.getFile() );
+			if ( manifest.isStaged( entryNames, source ) ) {
+				getLog().debug( "support artifact unchanged since last staging : " + artifact.getId() );
+				unchangedArtifacts.put( artifact.getFile(), source );
+			}
+			else {
+				unpackSupportArtifact( artifact.getFile(), directoryLayout.getStagingDirectory(), styleEntryFilters );
+			}
+			for ( String entryName : entryNames ) {
+				manifest.record( entryName, source );
+			}
+		}
+		return unchangedArtifacts;
+	}
+
+	/**
+	 * Extract again the entries of unchanged support artifacts which the project no longer overrides; the staged files
+	 * still hold the project's version.
+	 */
+	private void restoreReclaimedEntries(Map<File,String> unchangedArtifacts, StagingManifest manifest) {
+		for ( Map.Entry<File,String> artifact : unchangedArtifacts.entrySet() ) {
+			final List<String> reclaimedPaths = manifest.getReclaimedPaths( artifact.getValue() );
+			if ( !reclaimedPaths.isEmpty() ) {
+				getLog().debug( "restoring " + reclaimedPaths + " from support artifact [" + artifact.getKey() + "]" );
+				extractSupportArtifactEntries( artifact.getKey(), reclaimedPaths );
+			}
 		}
 	}
 
+	private void extractSupportArtifactEntries(File file, List<String> entryNames) throws RenderingException {
+		try {
+			final ZipFile zipFile = new ZipFile( file );
+			try {
+				for ( String entryName : entryNames ) {
+					final ZipEntry entry = zipFile.getEntry( entryName );
+					if ( entry == null ) {
+						continue;
+					}
+					final File target = new File( stagingDirectory(), entryName );
+					target.getParentFile().mkdirs();
+					final InputStream in = zipFile.getInputStream( entry );
+					try {
+						final OutputStream out = new FileOutputStream( target );
+						try {
+							IOUtil.copy( in, out );
+						}
+						finally {
+							out.close();
+						}
+					}
+					finally {
+						in.close();
+					}
+				}
+			}
+			finally {
+				zipFile.close();
+			}
+		}
+		catch ( IOException e ) {
+			throw new RenderingException( "Unable to extract entries of support artifact [" + file + "]", e );
+		}
+	}
+
+	private List<String> listSupportArtifactEntries(File file) throws RenderingException {
+		final List<String> entryNames = new ArrayList<String>();
+		try {
+			final ZipFile zipFile = new ZipFile( file );
+			try {
+				final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+				while ( entries.hasMoreElements() ) {
+					final ZipEntry entry = entries.nextElement();
+					// same exclusions as styleEntryFilters
+					if ( !entry.isDirectory() && !entry.getName().toUpperCase().startsWith( "META-INF/" ) ) {
+						entryNames.add( entry.getName() );
+					}
+				}
+			}
+			finally {
+				zipFile.close();
+			}
+		}
+		catch ( IOException e ) {
+			throw new RenderingException( "Unable to read support artifact [" + file + "]", e );
+		}
+		return entryNames;
+	}
+
 	protected void unpackSupportArtifact(File file, File target, ArchiveFileFilter[] entryFilters) throws RenderingException {
 		getLog().debug( "unpacking support artifact [" + file.getAbsolutePath() + "] to directory [" + target.getAbsolutePath() + "]" );
 		try {
@@ -106,15 +220,46 @@ public class ResourceMojo extends AbstractDocBookMojo {
 
 	// project local resources ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
-	private void stageProjectResources() throws RenderingException {
+	private void stageProjectResources(StagingManifest manifest) throws RenderingException {
+		if ( imageResource == null && cssResource == null ) {
+			return;
+		}
+		// one (thread-safe, read-only) property view shared by all the delegates, and by later executions
+		final Map filterProperties = SessionScope.of( session )
+				.get( ProjectPropertiesCache.class )
+				.getProperties( project );
 		if ( imageResource != null ) {
-			new ResourceDelegate( project, new File( stagingDirectory(), "images" ), getLog() ).process( imageResource );
+			stageProjectResource( imageResource, new File( stagingDirectory(), "images" ), filterProperties, manifest );
 		}
 		if ( cssResource != null ) {
-			new ResourceDelegate( project, new File( stagingDirectory(), "css" ), getLog() ).process( cssResource );
+			stageProjectResource( cssResource, new File( stagingDirectory(), "css" ), filterProperties, manifest );
+		}
+	}
+
+	private void stageProjectResource(
+			Resource resource,
+			File targetDirectory,
+			Map filterProperties,
+			StagingManifest manifest) {
+		final ResourceDelegate delegate = buildResourceDelegate( targetDirectory, filterProperties );
+		delegate.process( resource );
+		for ( Map.Entry<File,File> processed : delegate.getProcessedFiles().entrySet() ) {
+			manifest.record( processed.getKey(), StagingManifest.resourceSource( processed.getValue() ) );
 		}
 	}
 
+	private ResourceDelegate buildResourceDelegate(File targetDirectory, Map filterProperties) {
+		return new ResourceDelegate(
+				project,
+				targetDirectory,
+				ResourceDelegate.DEFAULT_DEFAULT_INCLUDES,
+				null,
+				filterProperties,
+				options.isResourceContentChecking(),
+				getLog()
+		);
+	}
+
 	private File stagingDirectory() {
 		return directoryLayout.getStagingDirectory();
 	}
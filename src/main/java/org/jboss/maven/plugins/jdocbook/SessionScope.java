@@ -0,0 +1,87 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.execution.MavenSession;
+import org.jboss.jdocbook.JDocBookProcessException;
+
+/**
+ * Holds state shared by all executions of the plugin goals within a single Maven session, across all modules of
+ * a reactor build.  The state is released along with the session.
+ */
+public class SessionScope {
+	private static final Map<Object,SessionScope> SCOPES = new WeakHashMap<Object,SessionScope>();
+
+	/**
+	 * Locate the scope of the given session.
+	 *
+	 * @param session The session.
+	 *
+	 * @return The session's scope.
+	 */
+	public static SessionScope of(MavenSession session) {
+		// keyed by the request since parallel builds hand each module its own clone of the session
+		final Object key = session.getRequest() == null ? session : session.getRequest();
+		synchronized ( SCOPES ) {
+			SessionScope scope = SCOPES.get( key );
+			if ( scope == null ) {
+				scope = new SessionScope();
+				SCOPES.put( key, scope );
+			}
+			return scope;
+		}
+	}
+
+	private final ConcurrentHashMap<Class,Object> components = new ConcurrentHashMap<Class,Object>();
+
+	/**
+	 * Get the session-wide instance of the given type, creating it (through its no-arg constructor) if needed.
+	 *
+	 * @param type The component type.
+	 * @param <T> The component type.
+	 *
+	 * @return The session-wide instance.
+	 */
+	@SuppressWarnings({ "unchecked" })
+	public <T> T get(Class<T> type) {
+		Object component = components.get( type );
+		if ( component == null ) {
+			try {
+				component = type.newInstance();
+			}
+			catch ( Exception e ) {
+				throw new JDocBookProcessException( "Unable to instantiate session component [" + type.getName() + "]", e );
+			}
+			final Object existing = components.putIfAbsent( type, component );
+			if ( existing != null ) {
+				component = existing;
+			}
+		}
+		return (T) component;
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.jboss.jdocbook.JDocBookProcessException;
+
+/**
+ * Records which source (project resource or support artifact entry) produced each file in the staging directory.
+ * <p/>
+ * The manifest written by the previous run is compared against the one recorded by the current run so that
+ * unchanged sources need not be staged again and files whose source went away can be removed.  A support artifact
+ * entry overridden by a project resource is recorded as owned by that resource, and left out of the artifact's
+ * staleness check; should the project stop overriding it, the entry is reclaimed by the artifact (see
+ * {@link #getReclaimedPaths}).
+ */
+public class StagingManifest {
+	private final File stagingDirectory;
+	private final File manifestFile;
+
+	private final Properties previous = new Properties();
+	private final Properties current = new Properties();
+
+	public StagingManifest(File stagingDirectory, File manifestFile) {
+		this.stagingDirectory = stagingDirectory;
+		this.manifestFile = manifestFile;
+		if ( manifestFile.exists() ) {
+			InputStream stream = null;
+			try {
+				stream = new FileInputStream( manifestFile );
+				previous.load( stream );
+			}
+			catch ( IOException e ) {
+				// treat as if there were no previous manifest; everything simply gets staged again
+				previous.clear();
+			}
+			finally {
+				IOUtil.close( stream );
+			}
+		}
+	}
+
+	/**
+	 * Builds the source descriptor for an entry of a support artifact.  The descriptor changes whenever the
+	 * artifact file itself changes.
+	 *
+	 * @param artifactId The artifact id.
+	 * @param artifactFile The resolved artifact file.
+	 *
+	 * @return The source descriptor.
+	 */
+	public static String artifactSource(String artifactId, File artifactFile) {
+		return "artifact:" + artifactId + ':' + artifactFile.length() + ':' + artifactFile.lastModified();
+	}
+
+	/**
+	 * Builds the source descriptor for a project-local resource.
+	 *
+	 * @param sourceFile The resource file.
+	 *
+	 * @return The source descriptor.
+	 */
+	public static String resourceSource(File sourceFile) {
+		return "resource:" + sourceFile.getAbsolutePath();
+	}
+
+	/**
+	 * Were all the given paths staged by the given source during the previous run, and are they still there?
+	 * If so, the source does not need to be staged again.  Paths the project overrode during the previous run are
+	 * not checked, they belong to the project.
+	 *
+	 * @param relativePaths The staging-relative paths the source contributes.
+	 * @param source The source descriptor.
+	 *
+	 * @return True if the source is still fully staged.
+	 */
+	public boolean isStaged(Collection<String> relativePaths, String source) {
+		for ( String relativePath : relativePaths ) {
+			if ( current.containsKey( relativePath ) && !source.equals( current.getProperty( relativePath ) ) ) {
+				// already overwritten by another source during this run
+				return false;
+			}
+			if ( wasStagedFromProject( relativePath ) ) {
+				continue;
+			}
+			if ( !source.equals( previous.getProperty( relativePath ) ) ) {
+				return false;
+			}
+			if ( !new File( stagingDirectory, relativePath ).exists() ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Was the given file staged from the project itself during the previous run, as opposed to coming from a
+	 * style artifact?
+	 *
+	 * @param relativePath The staging-relative path.
+	 *
+	 * @return True if the file was staged from the project.
+	 */
+	public boolean wasStagedFromProject(String relativePath) {
+		final String source = previous.getProperty( relativePath );
+		return source != null && !source.startsWith( "artifact:" );
+	}
+
+	/**
+	 * The paths the project overrode during the previous run but no longer does, which the given source staged during
+	 * this run: the files still hold the project's version and need the source's own again.  Only meaningful once
+	 * every source has been recorded.
+	 *
+	 * @param source The source descriptor.
+	 *
+	 * @return The reclaimed paths.
+	 */
+	public List<String> getReclaimedPaths(String source) {
+		final List<String> reclaimedPaths = new ArrayList<String>();
+		for ( Object key : current.keySet() ) {
+			final String relativePath = (String) key;
+			if ( source.equals( current.getProperty( relativePath ) ) && wasStagedFromProject( relativePath ) ) {
+				reclaimedPaths.add( relativePath );
+			}
+		}
+		return reclaimedPaths;
+	}
+
+	public void record(String relativePath, String source) {
+		current.setProperty( relativePath, source );
+	}
+
+	public void record(File stagedFile, String source) {
+		record( relativize( stagedFile ), source );
+	}
+
+	/**
+	 * Deletes the files staged by the previous run which were not staged again by this run.
+	 *
+	 * @return The number of files removed.
+	 */
+	public int pruneOrphans() {
+		int count = 0;
+		for ( Object key : previous.keySet() ) {
+			final String relativePath = (String) key;
+			if ( current.containsKey( relativePath ) ) {
+				continue;
+			}
+			File orphan = new File( stagingDirectory, relativePath );
+			if ( orphan.exists() && orphan.delete() ) {
+				count++;
+				pruneEmptyParents( orphan.getParentFile() );
+			}
+		}
+		return count;
+	}
+
+	private void pruneEmptyParents(File directory) {
+		while ( directory != null && !directory.equals( stagingDirectory ) ) {
+			String[] children = directory.list();
+			if ( children == null || children.length > 0 || !directory.delete() ) {
+				return;
+			}
+			directory = directory.getParentFile();
+		}
+	}
+
+	public void store() {
+		manifestFile.getParentFile().mkdirs();
+		OutputStream stream = null;
+		try {
+			stream = new FileOutputStream( manifestFile );
+			current.store( stream, "jDocBook staging manifest" );
+		}
+		catch ( IOException e ) {
+			throw new JDocBookProcessException( "Unable to write staging manifest [" + manifestFile + "]", e );
+		}
+		finally {
+			IOUtil.close( stream );
+		}
+	}
+
+	private String relativize(File stagedFile) {
+		String base = stagingDirectory.getAbsolutePath();
+		String path = stagedFile.getAbsolutePath();
+		if ( !path.startsWith( base + File.separator ) ) {
+			throw new JDocBookProcessException( "File [" + stagedFile + "] is not located in staging directory" );
+		}
+		return path.substring( base.length() + 1 ).replace( File.separatorChar, '/' );
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.jboss.jdocbook.JDocBookProcessException;
+import org.jboss.maven.shared.digest.DigestHelper;
+import org.jboss.maven.shared.po.PoStatistics;
+
+/**
+ * Computes how much of a language is translated, per PO file.  Files are processed concurrently and their statistics
+ * cached by content digest, so only the PO files which changed since the last computation get parsed again.  A
+ * translatable master file without PO file counts as entirely untranslated (per its POT file).
+ */
+public class TranslationCoverage {
+	private final TranslationFiles translationFiles;
+	private final DirectoryLayout directoryLayout;
+
+	public TranslationCoverage(TranslationFiles translationFiles, DirectoryLayout directoryLayout) {
+		this.translationFiles = translationFiles;
+		this.directoryLayout = directoryLayout;
+	}
+
+	/**
+	 * Compute the statistics of the given language.
+	 *
+	 * @param language The language.
+	 * @param poDirectory The PO directory of the language.
+	 *
+	 * @return The statistics per PO file, keyed (and sorted) by the relative path of their master file.
+	 */
+	public SortedMap<String,PoStatistics> compute(String language, File poDirectory) {
+		final FingerprintStore cache = new FingerprintStore( directoryLayout.getFingerprintFile( "coverage-" + language ) );
+		final SortedMap<String,PoStatistics> statistics = new TreeMap<String,PoStatistics>();
+		final ExecutorService executor = TranslationWorkers.getExecutor();
+		final Map<String,Future<PoStatistics>> futures = new TreeMap<String,Future<PoStatistics>>();
+		try {
+			for ( final File masterFile : translationFiles.getMasterLanguageDescriptor().getDocumentFiles() ) {
+				if ( !translationFiles.isTranslatable( masterFile ) ) {
+					continue;
+				}
+				final File poFile = translationFiles.getPoFile( masterFile, poDirectory );
+				final File file = poFile.exists() ? poFile : translationFiles.getPotFile( masterFile );
+				if ( !file.exists() ) {
+					continue;
+				}
+				final String key = translationFiles.getRelativePath( masterFile );
+				futures.put(
+						key,
+						executor.submit(
+								new Callable<PoStatistics>() {
+									public PoStatistics call() throws IOException {
+										return compute( key, file, cache );
+									}
+								}
+						)
+				);
+			}
+			final List<String> failures = new ArrayList<String>();
+			for ( Map.Entry<String,Future<PoStatistics>> future : futures.entrySet() ) {
+				try {
+					statistics.put( future.getKey(), future.getValue().get() );
+				}
+				catch ( ExecutionException e ) {
+					failures.add( String.valueOf( e.getCause() ) );
+				}
+				catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					throw new JDocBookProcessException( "Interrupted while computing translation coverage", e );
+				}
+			}
+			if ( !failures.isEmpty() ) {
+				throw new JDocBookProcessException(
+						"Unable to compute translation coverage of [" + language + "] : " + failures
+				);
+			}
+		}
+		finally {
+			TranslationWorkers.cancel( futures.values() );
+		}
+
+		for ( String key : cache.getKeys() ) {
+			if ( !statistics.containsKey( key ) ) {
+				cache.forget( key );
+			}
+		}
+		cache.store();
+		return statistics;
+	}
+
+	/**
+	 * Sum up the statistics of a language's files.
+	 *
+	 * @param statistics The statistics per file.
+	 *
+	 * @return The statistics of the language.
+	 */
+	public static PoStatistics total(Map<String,PoStatistics> statistics) {
+		final PoStatistics total = new PoStatistics();
+		for ( PoStatistics fileStatistics : statistics.values() ) {
+			total.add( fileStatistics );
+		}
+		return total;
+	}
+
+	private static PoStatistics compute(String key, File file, FingerprintStore cache) throws IOException {
+		// cached as "<digest> <translated> <fuzzy> <untranslated>"
+		final String digest = DigestHelper.digest( file );
+		final String cached = cache.getFingerprint( key );
+		if ( cached != null ) {
+			final String[] parts = cached.split( " " );
+			if ( parts.length == 4 && parts[0].equals( digest ) ) {
+				try {
+					return new PoStatistics(
+							Integer.parseInt( parts[1] ),
+							Integer.parseInt( parts[2] ),
+							Integer.parseInt( parts[3] )
+					);
+				}
+				catch ( NumberFormatException ignore ) {
+					// computed again
+				}
+			}
+		}
+		final PoStatistics statistics = PoStatistics.compute( file );
+		cache.record(
+				key,
+				digest + ' ' + statistics.getTranslated() + ' ' + statistics.getFuzzy() + ' ' + statistics.getUntranslated()
+		);
+		return statistics;
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.jdocbook.JDocBookProcessException;
+import org.jboss.jdocbook.MasterLanguageDescriptor;
+import org.jboss.maven.shared.po.TranslationMemory;
+
+/**
+ * Maps master document files to the corresponding POT, PO and translated files, mirroring the master's directory
+ * structure as the gettext based jDocBook components do.
+ */
+public class TranslationFiles {
+	private final MasterLanguageDescriptor masterLanguageDescriptor;
+
+	public TranslationFiles(MasterLanguageDescriptor masterLanguageDescriptor) {
+		this.masterLanguageDescriptor = masterLanguageDescriptor;
+	}
+
+	public MasterLanguageDescriptor getMasterLanguageDescriptor() {
+		return masterLanguageDescriptor;
+	}
+
+	/**
+	 * Only XML master files get translated.
+	 *
+	 * @param masterFile The master file.
+	 *
+	 * @return True if the file is an XML file.
+	 */
+	public boolean isTranslatable(File masterFile) {
+		return masterFile.getName().endsWith( ".xml" );
+	}
+
+	public File getPotFile(File masterFile) {
+		return relocate( masterFile, masterLanguageDescriptor.getPotDirectory(), ".pot" );
+	}
+
+	public File getPoFile(File masterFile, File poDirectory) {
+		return relocate( masterFile, poDirectory, ".po" );
+	}
+
+	public File getTranslatedFile(File masterFile, File translatedXmlDirectory) {
+		return relocate( masterFile, translatedXmlDirectory, null );
+	}
+
+	/**
+	 * The PO files of a language, one per translatable master file, whether they exist or not.
+	 *
+	 * @param poDirectory The PO directory of the language.
+	 *
+	 * @return The PO files keyed by the relative path of their master file.
+	 */
+	public Map<String,File> getPoFiles(File poDirectory) {
+		final Map<String,File> poFiles = new HashMap<String, File>();
+		for ( File masterFile : masterLanguageDescriptor.getDocumentFiles() ) {
+			if ( isTranslatable( masterFile ) ) {
+				poFiles.put( getRelativePath( masterFile ), getPoFile( masterFile, poDirectory ) );
+			}
+		}
+		return poFiles;
+	}
+
+	/**
+	 * Bring the translation memory of a language up-to-date with its PO files and open it.
+	 *
+	 * @param memoryDirectory The directory holding the translation memories.
+	 * @param language The language, rendered with the configured locale separator (<tt>ja-JP</tt>, say).
+	 * @param poDirectory The PO directory of the language.
+	 *
+	 * @return The translation memory.
+	 */
+	public TranslationMemory getTranslationMemory(File memoryDirectory, String language, File poDirectory) {
+		final File memoryFile = new File( memoryDirectory, language + ".tm" );
+		try {
+			return TranslationMemory.update( memoryFile, getPoFiles( poDirectory ) );
+		}
+		catch ( IOException e ) {
+			throw new JDocBookProcessException( "Unable to update translation memory [" + memoryFile + "]", e );
+		}
+	}
+
+	/**
+	 * The fingerprint of the inputs of the given master file's translation: the master file itself plus, for
+	 * translatable files, its PO file.
+	 *
+	 * @param masterFile The master file.
+	 * @param poDirectory The PO directory of the language.
+	 *
+	 * @return The fingerprint.
+	 */
+	public String getTranslationFingerprint(File masterFile, File poDirectory) {
+		return isTranslatable( masterFile )
+				? FingerprintStore.fingerprint( masterFile, getPoFile( masterFile, poDirectory ) )
+				: FingerprintStore.fingerprint( masterFile );
+	}
+
+	/**
+	 * The master file's path relative to the master source directory.
+	 *
+	 * @param masterFile The master file.
+	 *
+	 * @return The relative path, using forward slashes.
+	 */
+	public String getRelativePath(File masterFile) {
+		final String relativeDirectory = getRelativeDirectory( masterFile );
+		return relativeDirectory.length() == 0
+				? masterFile.getName()
+				: relativeDirectory + '/' + masterFile.getName();
+	}
+
+	private File relocate(File masterFile, File targetDirectory, String extension) {
+		String name = masterFile.getName();
+		if ( extension != null ) {
+			final int dot = name.lastIndexOf( '.' );
+			name = ( dot < 0 ? name : name.substring( 0, dot ) ) + extension;
+		}
+		final String relativeDirectory = getRelativeDirectory( masterFile );
+		return relativeDirectory.length() == 0
+				? new File( targetDirectory, name )
+				: new File( new File( targetDirectory, relativeDirectory ), name );
+	}
+
+	private String getRelativeDirectory(File masterFile) {
+		final String base = masterLanguageDescriptor.getBaseSourceDirectory().getAbsolutePath();
+		final File parent = masterFile.getAbsoluteFile().getParentFile();
+		final String directory = parent == null ? "" : parent.getAbsolutePath();
+		if ( !directory.startsWith( base ) || directory.length() == base.length() ) {
+			return "";
+		}
+		return directory.substring( base.length() + 1 ).replace( File.separatorChar, '/' );
+	}
+}
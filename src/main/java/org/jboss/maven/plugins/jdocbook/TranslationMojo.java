@@ -23,6 +23,14 @@
  */
 package org.jboss.maven.plugins.jdocbook;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.jboss.jdocbook.JDocBookProcessException;
 import org.jboss.jdocbook.translate.TranslationSource;
 import org.jboss.jdocbook.translate.Translator;
@@ -38,9 +46,102 @@ import org.jboss.jdocbook.translate.Translator;
 public class TranslationMojo extends AbstractDocBookMojo {
 	@Override
 	protected void doExecute() throws JDocBookProcessException {
-		final Translator translator = getComponentRegistry().getTranslator();
+		final Translator translator = getTranslator();
+		final boolean javaEngine = isJavaTranslationEngine();
+		// resolve the master files up front, the languages may be processed concurrently
+		final Set<File> masterFiles = getMasterFiles();
+		final TranslationFiles translationFiles = new TranslationFiles( getMasterLanguageDescriptor() );
+		final List<TranslationSource> sources = new ArrayList<TranslationSource>();
 		for ( TranslationSource source : getTranslationSources( true ) ) {
-			translator.translate( source );
+			if ( meetsMinimumTranslationCoverage( source.getLanguage() ) ) {
+				sources.add( source );
+			}
+		}
+		buildLocaleExecutor().execute(
+				sources,
+				new LocaleExecutor.Work<TranslationSource>() {
+					public String describe(TranslationSource source) {
+						return stringify( source.getLanguage() );
+					}
+
+					public void process(TranslationSource source) {
+						final Translator languageTranslator = javaEngine
+								? translator
+								: getLanguageComponentRegistry().getTranslator();
+						if ( options.isIncrementalTranslation() ) {
+							translateIncrementally( languageTranslator, source, masterFiles, translationFiles );
+						}
+						else {
+							languageTranslator.translate( source );
+						}
+					}
+				},
+				!javaEngine
+		);
+	}
+
+	/**
+	 * Translate only what changed since the last run: the fingerprints of each translated file's inputs (its master
+	 * file and PO file) are kept per language in the work directory.  Translated files whose master file no longer
+	 * exists are removed.
+	 */
+	private void translateIncrementally(
+			Translator translator,
+			TranslationSource source,
+			Set<File> masterFiles,
+			TranslationFiles translationFiles) {
+		final String language = stringify( source.getLanguage() );
+		final File poDirectory = source.resolvePoDirectory();
+		final File translatedXmlDirectory = source.resolveTranslatedXmlDirectory();
+		final FingerprintStore fingerprints = new FingerprintStore(
+				directoryLayout.getFingerprintFile( "translate-" + language )
+		);
+		try {
+			final Set<String> current = new HashSet<String>();
+			if ( translator instanceof JavaTranslator ) {
+				( (JavaTranslator) translator ).translate( source, fingerprints );
+				for ( File masterFile : masterFiles ) {
+					current.add( translationFiles.getRelativePath( masterFile ) );
+				}
+			}
+			else {
+				// the external tools translate a whole language at once, so all we can do is skip it altogether
+				final Map<String,String> changed = new HashMap<String, String>();
+				for ( File masterFile : masterFiles ) {
+					if ( !translationFiles.isTranslatable( masterFile ) ) {
+						continue;
+					}
+					final String key = translationFiles.getRelativePath( masterFile );
+					final String fingerprint = translationFiles.getTranslationFingerprint( masterFile, poDirectory );
+					current.add( key );
+					if ( !fingerprints.isUpToDate( key, fingerprint, translationFiles.getTranslatedFile( masterFile, translatedXmlDirectory ) ) ) {
+						changed.put( key, fingerprint );
+					}
+				}
+				if ( changed.isEmpty() ) {
+					getLog().info( "skipping translation of [" + language + "]; up-to-date" );
+				}
+				else {
+					translator.translate( source );
+					for ( Map.Entry<String,String> entry : changed.entrySet() ) {
+						fingerprints.record( entry.getKey(), entry.getValue() );
+					}
+				}
+			}
+
+			for ( String key : fingerprints.getKeys() ) {
+				if ( !current.contains( key ) ) {
+					final File stale = new File( translatedXmlDirectory, key );
+					getLog().debug( "removing stale translation : " + stale );
+					if ( stale.exists() && !stale.delete() ) {
+						getLog().warn( "Unable to delete stale translation [" + stale + "]" );
+					}
+					fingerprints.forget( key );
+				}
+			}
+		}
+		finally {
+			fingerprints.store();
 		}
 	}
 }
@@ -0,0 +1,102 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.plugins.jdocbook;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The threads the in-JVM translation engines process files with, one per processor.  They are shared by every
+ * language (and goal) of the build, so processing several languages at once does not multiply the number of threads
+ * busy with files.  Each goal {@link #enter}s on start and {@link #leave}s when done; the threads are shut down when
+ * the last goal running leaves.
+ */
+public class TranslationWorkers {
+	private static ExecutorService executor;
+	private static int goals;
+
+	/**
+	 * Disallow external instantiation of TranslationWorkers.
+	 */
+	private TranslationWorkers() {
+	}
+
+	/**
+	 * Record that a goal started, which may use the executor.
+	 */
+	public static synchronized void enter() {
+		goals++;
+	}
+
+	/**
+	 * Record that a goal is done, shutting the executor down if no other goal is running.
+	 */
+	public static synchronized void leave() {
+		goals--;
+		if ( goals <= 0 ) {
+			goals = 0;
+			if ( executor != null ) {
+				executor.shutdownNow();
+				executor = null;
+			}
+		}
+	}
+
+	/**
+	 * The shared executor, which must not be shut down by its users.  Its tasks must not wait for other tasks of it.
+	 *
+	 * @return The executor.
+	 */
+	public static synchronized ExecutorService getExecutor() {
+		if ( executor == null ) {
+			final AtomicInteger count = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(
+					Runtime.getRuntime().availableProcessors(),
+					new ThreadFactory() {
+						public Thread newThread(Runnable runnable) {
+							final Thread thread = new Thread( runnable, "jdocbook-translation-" + count.incrementAndGet() );
+							thread.setDaemon( true );
+							return thread;
+						}
+					}
+			);
+		}
+		return executor;
+	}
+
+	/**
+	 * Cancel whatever did not complete of the given tasks, when giving up on them.
+	 *
+	 * @param futures The tasks.
+	 */
+	public static void cancel(Collection<? extends Future<?>> futures) {
+		for ( Future<?> future : futures ) {
+			future.cancel( true );
+		}
+	}
+}
@@ -23,11 +23,21 @@
  */
 package org.jboss.maven.plugins.jdocbook;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.jboss.jdocbook.JDocBookProcessException;
+import org.jboss.jdocbook.translate.PoSynchronizer;
 import org.jboss.jdocbook.translate.TranslationSource;
 
 /**
  * Syncs the PO files.
+ * <p/>
+ * By default a PO file is skipped when it is newer than its POT file; with <tt>options/incrementalTranslation</tt>
+ * it is skipped when its POT file did not change (by content) instead.
  *
  * @goal update-po
  * @requiresDependencyResolution
@@ -36,8 +46,89 @@ import org.jboss.jdocbook.translate.TranslationSource;
  */
 public class UpdatePoMojo extends AbstractDocBookMojo {
 	protected void doExecute() throws JDocBookProcessException {
-		for ( TranslationSource source : getTranslationSources( true ) ) {
-			getComponentRegistry().getPoSynchronizer().synchronizePo( source );
+		final PoSynchronizer synchronizer = getPoSynchronizer();
+		final boolean javaEngine = isJavaTranslationEngine();
+		// resolve the master files up front, the languages may be processed concurrently
+		final Set<File> masterFiles = getMasterFiles();
+		final TranslationFiles translationFiles = new TranslationFiles( getMasterLanguageDescriptor() );
+		buildLocaleExecutor().execute(
+				getTranslationSources( true ),
+				new LocaleExecutor.Work<TranslationSource>() {
+					public String describe(TranslationSource source) {
+						return stringify( source.getLanguage() );
+					}
+
+					public void process(TranslationSource source) {
+						final PoSynchronizer languageSynchronizer = javaEngine
+								? synchronizer
+								: getLanguageComponentRegistry().getPoSynchronizer();
+						if ( options.isIncrementalTranslation() ) {
+							synchronizeIncrementally( languageSynchronizer, source, masterFiles, translationFiles );
+						}
+						else {
+							languageSynchronizer.synchronizePo( source );
+						}
+					}
+				},
+				!javaEngine
+		);
+	}
+
+	/**
+	 * Merge only the PO files whose POT file changed (by content) since the last run.
+	 */
+	private void synchronizeIncrementally(
+			PoSynchronizer synchronizer,
+			TranslationSource source,
+			Set<File> masterFiles,
+			TranslationFiles translationFiles) {
+		final String language = stringify( source.getLanguage() );
+		final File poDirectory = source.resolvePoDirectory();
+		final FingerprintStore fingerprints = new FingerprintStore(
+				directoryLayout.getFingerprintFile( "update-po-" + language )
+		);
+		try {
+			final Set<String> current = new HashSet<String>();
+			final Map<String,String> changed = new HashMap<String, String>();
+			// the in-JVM engine checks (and records) each file itself
+			final boolean inJvm = synchronizer instanceof JavaPoSynchronizer;
+			for ( File masterFile : masterFiles ) {
+				if ( !translationFiles.isTranslatable( masterFile ) ) {
+					continue;
+				}
+				final String key = translationFiles.getRelativePath( masterFile );
+				current.add( key );
+				if ( inJvm ) {
+					continue;
+				}
+				final String fingerprint = FingerprintStore.fingerprint( translationFiles.getPotFile( masterFile ) );
+				if ( !fingerprints.isUpToDate( key, fingerprint, translationFiles.getPoFile( masterFile, poDirectory ) ) ) {
+					changed.put( key, fingerprint );
+				}
+			}
+
+			if ( inJvm ) {
+				( (JavaPoSynchronizer) synchronizer ).synchronizePo( source, fingerprints );
+			}
+			else if ( changed.isEmpty() ) {
+				getLog().info( "skipping PO updates of [" + language + "]; up-to-date" );
+			}
+			else {
+				// msgmerge is run over all the PO files of the language at once
+				synchronizer.synchronizePo( source );
+				for ( Map.Entry<String,String> entry : changed.entrySet() ) {
+					fingerprints.record( entry.getKey(), entry.getValue() );
+				}
+			}
+
+			for ( String key : fingerprints.getKeys() ) {
+				if ( !current.contains( key ) ) {
+					fingerprints.forget( key );
+				}
+			}
+		}
+		finally {
+			fingerprints.store();
 		}
 	}
 }
@@ -23,11 +23,21 @@
  */
 package org.jboss.maven.plugins.jdocbook;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.jboss.jdocbook.JDocBookProcessException;
+import org.jboss.jdocbook.translate.PotSynchronizer;
 
 /**
  * Manages pushing translatable strings from the master translation source into the POT files.
- * 
+ * <p/>
+ * By default a POT file is skipped when it is newer than its master file; with
+ * <tt>options/incrementalTranslation</tt> it is skipped when its master file did not change (by content) instead.
+ *
  * @goal update-pot
  * @requiresDependencyResolution
  *
@@ -36,6 +46,63 @@ import org.jboss.jdocbook.JDocBookProcessException;
 @SuppressWarnings({ "UnusedDeclaration" })
 public class UpdatePotMojo extends AbstractDocBookMojo {
 	protected void doExecute() throws JDocBookProcessException {
-		getComponentRegistry().getPotSynchronizer().synchronizePot();
+		final PotSynchronizer synchronizer = getPotSynchronizer();
+		if ( options.isIncrementalTranslation() ) {
+			synchronizeIncrementally( synchronizer );
+		}
+		else {
+			synchronizer.synchronizePot();
+		}
+	}
+
+	/**
+	 * Update only the POT files whose master file changed (by content) since the last run.
+	 */
+	private void synchronizeIncrementally(PotSynchronizer synchronizer) {
+		final TranslationFiles translationFiles = new TranslationFiles( getMasterLanguageDescriptor() );
+		final FingerprintStore fingerprints = new FingerprintStore( directoryLayout.getFingerprintFile( "update-pot" ) );
+		try {
+			final Set<String> current = new HashSet<String>();
+			final Map<String,String> changed = new HashMap<String, String>();
+			// the in-JVM engine checks (and records) each file itself
+			final boolean inJvm = synchronizer instanceof JavaPotSynchronizer;
+			for ( File masterFile : getMasterFiles() ) {
+				if ( !translationFiles.isTranslatable( masterFile ) ) {
+					continue;
+				}
+				final String key = translationFiles.getRelativePath( masterFile );
+				current.add( key );
+				if ( inJvm ) {
+					continue;
+				}
+				final String fingerprint = FingerprintStore.fingerprint( masterFile );
+				if ( !fingerprints.isUpToDate( key, fingerprint, translationFiles.getPotFile( masterFile ) ) ) {
+					changed.put( key, fingerprint );
+				}
+			}
+
+			if ( inJvm ) {
+				( (JavaPotSynchronizer) synchronizer ).synchronizePot( fingerprints );
+			}
+			else if ( changed.isEmpty() ) {
+				getLog().info( "skipping POT update; up-to-date" );
+			}
+			else {
+				// xml2pot is run over all the master files at once
+				synchronizer.synchronizePot();
+				for ( Map.Entry<String,String> entry : changed.entrySet() ) {
+					fingerprints.record( entry.getKey(), entry.getValue() );
+				}
+			}
+
+			for ( String key : fingerprints.getKeys() ) {
+				if ( !current.contains( key ) ) {
+					fingerprints.forget( key );
+				}
+			}
+		}
+		finally {
+			fingerprints.store();
+		}
 	}
 }
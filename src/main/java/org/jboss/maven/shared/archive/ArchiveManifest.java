@@ -0,0 +1,155 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.archive;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Records, for each file entry of an archive, the size, modification time and CRC of the file it was built from,
+ * along with the compression policy in effect.  Kept next to the archive so that the next build can tell which
+ * entries it can copy over unchanged.
+ */
+public class ArchiveManifest {
+	private static final String POLICY_PREFIX = "policy=";
+
+	private final String policy;
+	private final Map<String,Record> records = new LinkedHashMap<String,Record>();
+
+	public ArchiveManifest(String policy) {
+		this.policy = policy;
+	}
+
+	public String getPolicy() {
+		return policy;
+	}
+
+	public Record get(String name) {
+		return records.get( name );
+	}
+
+	public void put(String name, long size, long lastModified, long crc) {
+		records.put( name, new Record( size, lastModified, crc ) );
+	}
+
+	/**
+	 * Loads a manifest.
+	 *
+	 * @param file The manifest file.
+	 *
+	 * @return The manifest, or null if it does not exist or cannot be read.
+	 */
+	public static ArchiveManifest load(File file) {
+		if ( !file.exists() ) {
+			return null;
+		}
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+			final String header = reader.readLine();
+			if ( header == null || !header.startsWith( POLICY_PREFIX ) ) {
+				return null;
+			}
+			final ArchiveManifest manifest = new ArchiveManifest( header.substring( POLICY_PREFIX.length() ) );
+			String line;
+			while ( ( line = reader.readLine() ) != null ) {
+				final String[] fields = line.split( "\t", 4 );
+				if ( fields.length != 4 ) {
+					return null;
+				}
+				manifest.put(
+						fields[3],
+						Long.parseLong( fields[0] ),
+						Long.parseLong( fields[1] ),
+						Long.parseLong( fields[2], 16 )
+				);
+			}
+			return manifest;
+		}
+		catch ( IOException e ) {
+			return null;
+		}
+		catch ( NumberFormatException e ) {
+			return null;
+		}
+		finally {
+			IOUtil.close( reader );
+		}
+	}
+
+	public void store(File file) throws IOException {
+		Writer writer = null;
+		try {
+			writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+			writer.write( POLICY_PREFIX + policy + '\n' );
+			for ( Map.Entry<String,Record> entry : records.entrySet() ) {
+				final Record record = entry.getValue();
+				writer.write(
+						record.size + "\t" + record.lastModified + '\t' + Long.toHexString( record.crc )
+								+ '\t' + entry.getKey() + '\n'
+				);
+			}
+		}
+		finally {
+			IOUtil.close( writer );
+		}
+	}
+
+	/**
+	 * What is known about the file an entry was built from.
+	 */
+	public static class Record {
+		private final long size;
+		private final long lastModified;
+		private final long crc;
+
+		private Record(long size, long lastModified, long crc) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.crc = crc;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public long getCrc() {
+			return crc;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.archive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+
+/**
+ * Decides, per entry, whether archive entries get deflated or simply stored.  Deflating content which is already
+ * compressed (images, PDFs, web fonts...) costs CPU for next to no size gain.
+ */
+public class CompressionPolicy {
+	/**
+	 * Extensions of formats which are already compressed.
+	 */
+	public static final String[] DEFAULT_STORED_EXTENSIONS = new String[] {
+			"png", "jpg", "jpeg", "gif", "pdf", "zip", "gz", "tgz", "bz2", "jar", "war", "epub",
+			"woff", "woff2", "mp3", "mp4", "ogg", "webm", "webp"
+	};
+
+	/**
+	 * Deflates everything.
+	 */
+	public static final CompressionPolicy DEFLATE_ALL = new CompressionPolicy(
+			Collections.<String>emptySet(),
+			false,
+			1f
+	);
+
+	/**
+	 * The size of the leading sample compressed to decide about entries in adaptive mode.
+	 */
+	private static final int TRIAL_SAMPLE_SIZE = 32 * 1024;
+
+	private final Set<String> storedExtensions = new HashSet<String>();
+	private final boolean adaptive;
+	private final float adaptiveThreshold;
+
+	/**
+	 * Constructs a policy.
+	 *
+	 * @param storedExtensions The (case-insensitive) extensions of entries to store.
+	 * @param adaptive Should other entries be stored when a trial compression shows they do not compress well?
+	 * @param adaptiveThreshold The compressed-to-original size ratio at or above which adaptive mode stores.
+	 */
+	public CompressionPolicy(Collection<String> storedExtensions, boolean adaptive, float adaptiveThreshold) {
+		for ( String extension : storedExtensions ) {
+			this.storedExtensions.add( extension.toLowerCase( Locale.ENGLISH ) );
+		}
+		this.adaptive = adaptive;
+		this.adaptiveThreshold = adaptiveThreshold;
+	}
+
+	/**
+	 * Builds a policy storing the default set of extensions, amended.
+	 *
+	 * @param additionalStoredExtensions Further extensions to store.
+	 * @param deflatedExtensions Extensions to deflate even though they are part of the defaults.
+	 * @param adaptive See {@link #CompressionPolicy(Collection, boolean, float)}.
+	 * @param adaptiveThreshold See {@link #CompressionPolicy(Collection, boolean, float)}.
+	 *
+	 * @return The policy.
+	 */
+	public static CompressionPolicy build(
+			String[] additionalStoredExtensions,
+			String[] deflatedExtensions,
+			boolean adaptive,
+			float adaptiveThreshold) {
+		final Set<String> stored = new HashSet<String>( Arrays.asList( DEFAULT_STORED_EXTENSIONS ) );
+		if ( additionalStoredExtensions != null ) {
+			for ( String extension : additionalStoredExtensions ) {
+				stored.add( extension.toLowerCase( Locale.ENGLISH ) );
+			}
+		}
+		if ( deflatedExtensions != null ) {
+			for ( String extension : deflatedExtensions ) {
+				stored.remove( extension.toLowerCase( Locale.ENGLISH ) );
+			}
+		}
+		return new CompressionPolicy( stored, adaptive, adaptiveThreshold );
+	}
+
+	/**
+	 * Determine the compression method for the given entry.
+	 *
+	 * @param name The entry name.
+	 * @param content The entry content.
+	 * @param trial Compresses the given leading part of the content, returning the compressed size.
+	 *
+	 * @return {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+	 */
+	public int determineMethod(String name, byte[] content, Trial trial) {
+		if ( content.length == 0 || storedExtensions.contains( extension( name ) ) ) {
+			return ZipEntry.STORED;
+		}
+		if ( adaptive ) {
+			final int sampleSize = Math.min( content.length, TRIAL_SAMPLE_SIZE );
+			final int compressedSize = trial.compress( content, sampleSize );
+			if ( compressedSize >= sampleSize * adaptiveThreshold ) {
+				return ZipEntry.STORED;
+			}
+		}
+		return ZipEntry.DEFLATED;
+	}
+
+	/**
+	 * Describes the policy, so that content compressed under another policy can be recognized.
+	 *
+	 * @return A stable description of this policy.
+	 */
+	public String getFingerprint() {
+		final List<String> extensions = new ArrayList<String>( storedExtensions );
+		Collections.sort( extensions );
+		return "stored:" + extensions + ";adaptive:" + ( adaptive ? String.valueOf( adaptiveThreshold ) : "off" );
+	}
+
+	private static String extension(String name) {
+		final int slash = name.lastIndexOf( '/' );
+		final int dot = name.lastIndexOf( '.' );
+		return dot > slash ? name.substring( dot + 1 ).toLowerCase( Locale.ENGLISH ) : "";
+	}
+
+	/**
+	 * A quick trial compression.
+	 */
+	public static interface Trial {
+		/**
+		 * Compress the first <tt>length</tt> bytes of the content.
+		 *
+		 * @param content The content.
+		 * @param length The number of leading bytes to compress.
+		 *
+		 * @return The compressed size.
+		 */
+		public int compress(byte[] content, int length);
+	}
+}
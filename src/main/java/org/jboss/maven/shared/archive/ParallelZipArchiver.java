@@ -0,0 +1,803 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.jboss.maven.shared.digest.DigestHelper;
+
+/**
+ * Builds a zip/jar/war archive compressing the entries concurrently.
+ * <p/>
+ * Entries are compressed on a pool of threads (scatter) and then written by a single thread, strictly in the order
+ * they were added (gather), so the resulting archive is identical to what a sequential build would produce.  At
+ * most a few entries per thread are held in memory at any time, and only small ones: larger files are deflated into
+ * temporary files (or, when stored, copied straight from their source file) rather than buffered.
+ */
+public class ParallelZipArchiver {
+	private static final String MANIFEST_DIRECTORY = "META-INF/";
+	private static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+	private static final String MANIFEST = "Manifest-Version: 1.0\r\nCreated-By: jDocBook Maven Plugin\r\n\r\n";
+
+	private static final int ENTRIES_IN_FLIGHT_PER_THREAD = 4;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Enough of the content of an entry which is not buffered for the compression policy to decide about it.
+	 */
+	private static final int SAMPLE_SIZE = 64 * 1024;
+
+	private long bufferedEntryLimit = 1024 * 1024;
+	private File spoolDirectory;
+
+	private final List<Source> sources = new ArrayList<Source>();
+	private final Set<String> names = new HashSet<String>();
+	private final int threads;
+	private boolean includeManifest;
+	private CompressionPolicy compressionPolicy = CompressionPolicy.DEFLATE_ALL;
+	private boolean incremental;
+	private int reusedEntryCount;
+	private boolean deduplicate;
+	private final ConcurrentHashMap<String,Integer> firstIndexByDigest = new ConcurrentHashMap<String,Integer>();
+	private int duplicateEntryCount;
+
+	/**
+	 * Constructs an archiver.
+	 *
+	 * @param threads The number of compression threads; less than 1 means one per available processor.
+	 */
+	public ParallelZipArchiver(int threads) {
+		this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+	}
+
+	/**
+	 * Should a (minimal) jar manifest be written as the first entry?
+	 *
+	 * @param includeManifest True to write the manifest.
+	 */
+	public void setIncludeManifest(boolean includeManifest) {
+		this.includeManifest = includeManifest;
+	}
+
+	/**
+	 * Which entries should be deflated?  By default all of them are.
+	 *
+	 * @param compressionPolicy The policy.
+	 */
+	public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+		this.compressionPolicy = compressionPolicy;
+	}
+
+	/**
+	 * Should the previous archive be updated rather than rebuilt?  When enabled an entry manifest (see
+	 * {@link #getManifestFile}) is kept next to the archive; entries whose file did not change since are copied
+	 * over from the previous archive as is (still compressed) and only new or modified files get compressed.
+	 * Duplicates (see {@link #setDeduplicate}) are decided before reuse, so the archive is the same as a full rebuild
+	 * whatever the previous one held.
+	 *
+	 * @param incremental True to update incrementally.
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * The number of entries copied over from the previous archive by the last {@link #createArchive} call.
+	 *
+	 * @return The number of reused entries.
+	 */
+	public int getReusedEntryCount() {
+		return reusedEntryCount;
+	}
+
+	/**
+	 * Should files with identical content be stored only once?  The first such entry (in the order entries were
+	 * added) is written as usual; the others only get a central directory record sharing its data (see
+	 * {@link ZipWriter#writeAlias}), so they are neither compressed nor stored again.
+	 *
+	 * @param deduplicate True to deduplicate.
+	 */
+	public void setDeduplicate(boolean deduplicate) {
+		this.deduplicate = deduplicate;
+	}
+
+	/**
+	 * The number of entries written as aliases of an identical entry by the last {@link #createArchive} call.
+	 *
+	 * @return The number of duplicate entries.
+	 */
+	public int getDuplicateEntryCount() {
+		return duplicateEntryCount;
+	}
+
+	/**
+	 * Up to which size are entries prepared in memory?  Larger ones go through temporary files.
+	 *
+	 * @param bufferedEntryLimit The size limit, in bytes.
+	 */
+	void setBufferedEntryLimit(long bufferedEntryLimit) {
+		this.bufferedEntryLimit = bufferedEntryLimit;
+	}
+
+	/**
+	 * Where is the entry manifest of the given archive kept?
+	 *
+	 * @param archive The archive.
+	 *
+	 * @return The manifest file.
+	 */
+	public static File getManifestFile(File archive) {
+		return new File( archive.getParentFile(), archive.getName() + ".entries" );
+	}
+
+	/**
+	 * Adds the given directory's content, recursively, in a stable (name-sorted) order.  A directory which does
+	 * not exist adds nothing.
+	 *
+	 * @param directory The directory to add.
+	 * @param prefix The entry name prefix, ending with a slash (or empty).
+	 */
+	public void addDirectory(File directory, String prefix) {
+		if ( !directory.isDirectory() ) {
+			return;
+		}
+		if ( prefix.length() > 0 ) {
+			add( new Source( null, prefix, directory.lastModified() ) );
+		}
+		final File[] children = directory.listFiles();
+		if ( children == null ) {
+			return;
+		}
+		Arrays.sort( children );
+		for ( File child : children ) {
+			if ( child.isDirectory() ) {
+				addDirectory( child, prefix + child.getName() + '/' );
+			}
+			else {
+				addFile( child, prefix + child.getName() );
+			}
+		}
+	}
+
+	public void addFile(File file, String entryName) {
+		add( new Source( file, entryName, file.lastModified() ) );
+	}
+
+	private void add(Source source) {
+		// on duplicates the first one added wins
+		if ( names.add( source.name ) ) {
+			source.index = sources.size();
+			sources.add( source );
+		}
+	}
+
+	/**
+	 * Builds the archive.  It is first written next to the destination and then moved into place.
+	 *
+	 * @param destFile The archive to create.
+	 *
+	 * @throws IOException Indicates a problem reading the sources or writing the archive.
+	 */
+	public void createArchive(File destFile) throws IOException {
+		destFile.getParentFile().mkdirs();
+		final File tempFile = new File( destFile.getParentFile(), destFile.getName() + ".tmp" );
+		final File manifestFile = getManifestFile( destFile );
+		final ArchiveManifest manifest = new ArchiveManifest( compressionPolicy.getFingerprint() );
+		final Previous previous = incremental ? Previous.open( destFile, manifestFile, manifest.getPolicy() ) : null;
+		final ExecutorService executor = Executors.newFixedThreadPool( threads );
+		final Map<String,Entry> written = new HashMap<String,Entry>();
+		spoolDirectory = new File( destFile.getParentFile(), destFile.getName() + ".spool" );
+		firstIndexByDigest.clear();
+		reusedEntryCount = 0;
+		duplicateEntryCount = 0;
+		boolean success = false;
+		try {
+			final ZipWriter writer = new ZipWriter( new FileOutputStream( tempFile ) );
+			try {
+				if ( includeManifest ) {
+					writeManifest( writer );
+				}
+				final LinkedList<Future<Entry>> window = new LinkedList<Future<Entry>>();
+				for ( final Source source : sources ) {
+					window.add(
+							executor.submit(
+									new Callable<Entry>() {
+										public Entry call() throws Exception {
+											return prepare( source, previous );
+										}
+									}
+							)
+					);
+					if ( window.size() >= threads * ENTRIES_IN_FLIGHT_PER_THREAD ) {
+						write( writer, await( window.removeFirst() ), previous, manifest, written );
+					}
+				}
+				while ( !window.isEmpty() ) {
+					write( writer, await( window.removeFirst() ), previous, manifest, written );
+				}
+			}
+			finally {
+				writer.close();
+			}
+			success = true;
+		}
+		finally {
+			executor.shutdownNow();
+			awaitTermination( executor );
+			if ( previous != null ) {
+				previous.close();
+			}
+			if ( !success ) {
+				tempFile.delete();
+			}
+			// entries deflated but not written, when failing
+			FileUtils.deleteDirectory( spoolDirectory );
+		}
+
+		// drop the manifest before touching the archive, a stale manifest must never outlive its archive
+		manifestFile.delete();
+		if ( destFile.exists() && !destFile.delete() ) {
+			throw new IOException( "Unable to replace archive [" + destFile + "]" );
+		}
+		if ( !tempFile.renameTo( destFile ) ) {
+			throw new IOException( "Unable to move archive into place [" + destFile + "]" );
+		}
+		if ( incremental ) {
+			manifest.store( manifestFile );
+		}
+	}
+
+	private void writeManifest(ZipWriter writer) throws IOException {
+		final long now = System.currentTimeMillis();
+		final byte[] manifest = MANIFEST.getBytes( "UTF-8" );
+		writer.writeDirectory( MANIFEST_DIRECTORY, now );
+		final Entry entry = deflate( MANIFEST_NAME, manifest, now );
+		writer.writeEntry( entry.name, entry.method, entry.crc, entry.size, entry.time, entry.data, 0, entry.data.length );
+	}
+
+	private static void awaitTermination(ExecutorService executor) {
+		try {
+			// entries still being prepared may be spooling
+			executor.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Entry await(Future<Entry> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw newIOException( "Interrupted while building archive", e );
+		}
+		catch ( ExecutionException e ) {
+			if ( e.getCause() instanceof IOException ) {
+				throw (IOException) e.getCause();
+			}
+			throw newIOException( "Unable to prepare archive entry", e.getCause() );
+		}
+	}
+
+	private void write(
+			ZipWriter writer,
+			Entry entry,
+			Previous previous,
+			ArchiveManifest manifest,
+			Map<String,Entry> written) throws IOException {
+		if ( entry.directory ) {
+			writer.writeDirectory( entry.name, entry.time );
+			return;
+		}
+		if ( entry.digest != null ) {
+			// decided here, in archive order, so that the archive does not depend on thread scheduling
+			final Entry first = written.get( entry.digest );
+			if ( first != null ) {
+				entry.discard();
+				writer.writeAlias( entry.name, first.name, entry.time );
+				manifest.put( entry.name, first.size, entry.time, first.crc );
+				duplicateEntryCount++;
+				return;
+			}
+			if ( entry.alias ) {
+				throw new IOException( "No entry to share the content of [" + entry.name + "] with" );
+			}
+			written.put( entry.digest, entry.describe() );
+		}
+		if ( entry.reused != null ) {
+			final ZipDirectory.Entry reused = entry.reused;
+			previous.archive.copyRawData(
+					reused,
+					writer.startEntry(
+							entry.name,
+							reused.getMethod(),
+							reused.getCrc(),
+							reused.getSize(),
+							reused.getCompressedSize(),
+							entry.time
+					)
+			);
+			reusedEntryCount++;
+		}
+		else if ( entry.dataFile != null ) {
+			try {
+				copy(
+						entry.dataFile,
+						entry.compressedSize,
+						writer.startEntry( entry.name, entry.method, entry.crc, entry.size, entry.compressedSize, entry.time )
+				);
+			}
+			finally {
+				entry.discard();
+			}
+		}
+		else {
+			writer.writeEntry( entry.name, entry.method, entry.crc, entry.size, entry.time, entry.data, 0, entry.data.length );
+		}
+		manifest.put( entry.name, entry.size, entry.time, entry.crc );
+	}
+
+	private Entry prepare(Source source, Previous previous) throws IOException {
+		if ( source.file == null ) {
+			return new Entry( source.name, source.time );
+		}
+		final long length = source.file.length();
+		final boolean buffered = length <= bufferedEntryLimit;
+		byte[] content = null;
+		String digest = null;
+		if ( deduplicate ) {
+			if ( buffered ) {
+				content = read( source.file );
+				digest = DigestHelper.digest( content );
+			}
+			else {
+				digest = DigestHelper.digest( source.file );
+			}
+			if ( !claim( digest, source.index ) ) {
+				// an earlier entry has the same content, this one will share its data
+				final Entry duplicate = new Entry( source.name, ZipEntry.STORED, 0, length, source.time, null );
+				duplicate.alias = true;
+				duplicate.digest = digest;
+				return duplicate;
+			}
+		}
+		if ( previous != null ) {
+			final ZipDirectory.Entry reusable = previous.find( source.name );
+			if ( reusable != null && reusable.getSize() == length ) {
+				if ( content == null && previous.manifest.get( source.name ).getLastModified() == source.time ) {
+					return new Entry( source.name, source.time, reusable, digest );
+				}
+				// touched, but perhaps not changed
+				if ( content == null && buffered ) {
+					content = read( source.file );
+				}
+				if ( ( content == null ? crc( source.file ) : crc( content ) ) == reusable.getCrc() ) {
+					return new Entry( source.name, source.time, reusable, digest );
+				}
+			}
+		}
+		final Entry entry;
+		if ( buffered ) {
+			if ( content == null ) {
+				content = read( source.file );
+			}
+			entry = compressionPolicy.determineMethod( source.name, content, TRIAL ) == ZipEntry.STORED
+					? store( source.name, content, source.time )
+					: deflate( source.name, content, source.time );
+		}
+		else {
+			entry = compressionPolicy.determineMethod( source.name, readSample( source.file ), TRIAL ) == ZipEntry.STORED
+					? store( source, length )
+					: deflate( source, length );
+		}
+		entry.digest = digest;
+		return entry;
+	}
+
+	/**
+	 * Claim the given content for the entry at the given index, unless an entry added before it already did.
+	 *
+	 * @return True if no earlier entry has the same content.
+	 */
+	private boolean claim(String digest, int index) {
+		while ( true ) {
+			final Integer claimed = firstIndexByDigest.putIfAbsent( digest, index );
+			if ( claimed == null ) {
+				return true;
+			}
+			if ( claimed < index ) {
+				return false;
+			}
+			if ( firstIndexByDigest.replace( digest, claimed, index ) ) {
+				return true;
+			}
+		}
+	}
+
+	private static Entry store(String name, byte[] content, long time) {
+		return new Entry( name, ZipEntry.STORED, crc( content ), content.length, time, content );
+	}
+
+	private static Entry deflate(String name, byte[] content, long time) {
+		final byte[] compressed = compress( content, content.length, Deflater.DEFAULT_COMPRESSION );
+		return new Entry( name, ZipEntry.DEFLATED, crc( content ), content.length, time, compressed );
+	}
+
+	/**
+	 * A large entry, stored: copied from its source file when written.
+	 */
+	private static Entry store(Source source, long length) throws IOException {
+		return new Entry( source.name, ZipEntry.STORED, crc( source.file ), length, source.time, source.file, length, false );
+	}
+
+	/**
+	 * A large entry, deflated into a temporary file rather than in memory.
+	 */
+	private Entry deflate(Source source, long length) throws IOException {
+		spoolDirectory.mkdirs();
+		final File spool = File.createTempFile( "entry", ".deflated", spoolDirectory );
+		final CRC32 crc = new CRC32();
+		final Deflater deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true );
+		long size = 0;
+		boolean success = false;
+		final InputStream in = new FileInputStream( source.file );
+		try {
+			final DeflaterOutputStream out = new DeflaterOutputStream(
+					new FileOutputStream( spool ),
+					deflater,
+					BUFFER_SIZE
+			);
+			try {
+				final byte[] buffer = new byte[BUFFER_SIZE];
+				int count;
+				while ( ( count = in.read( buffer ) ) != -1 ) {
+					crc.update( buffer, 0, count );
+					out.write( buffer, 0, count );
+					size += count;
+				}
+				out.finish();
+			}
+			finally {
+				IOUtil.close( out );
+			}
+			success = true;
+		}
+		finally {
+			IOUtil.close( in );
+			deflater.end();
+			if ( !success ) {
+				spool.delete();
+			}
+		}
+		if ( size != length ) {
+			spool.delete();
+			throw new IOException( "File changed while being archived [" + source.file + "]" );
+		}
+		return new Entry( source.name, ZipEntry.DEFLATED, crc.getValue(), size, source.time, spool, spool.length(), true );
+	}
+
+	private static long crc(File file) throws IOException {
+		final CRC32 crc = new CRC32();
+		final InputStream in = new FileInputStream( file );
+		try {
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			int count;
+			while ( ( count = in.read( buffer ) ) != -1 ) {
+				crc.update( buffer, 0, count );
+			}
+		}
+		finally {
+			IOUtil.close( in );
+		}
+		return crc.getValue();
+	}
+
+	private static long crc(byte[] content) {
+		final CRC32 crc = new CRC32();
+		crc.update( content );
+		return crc.getValue();
+	}
+
+	private static byte[] compress(byte[] content, int length, int level) {
+		final Deflater deflater = new Deflater( level, true );
+		try {
+			deflater.setInput( content, 0, length );
+			deflater.finish();
+			final ByteArrayOutputStream compressed = new ByteArrayOutputStream( length / 2 + 64 );
+			final byte[] buffer = new byte[8192];
+			while ( !deflater.finished() ) {
+				final int count = deflater.deflate( buffer );
+				compressed.write( buffer, 0, count );
+			}
+			return compressed.toByteArray();
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	private static final CompressionPolicy.Trial TRIAL = new CompressionPolicy.Trial() {
+		public int compress(byte[] content, int length) {
+			return ParallelZipArchiver.compress( content, length, Deflater.BEST_SPEED ).length;
+		}
+	};
+
+	private static byte[] read(File file) throws IOException {
+		final InputStream stream = new FileInputStream( file );
+		try {
+			return IOUtil.toByteArray( stream );
+		}
+		finally {
+			IOUtil.close( stream );
+		}
+	}
+
+	private static byte[] readSample(File file) throws IOException {
+		final InputStream in = new FileInputStream( file );
+		try {
+			final byte[] sample = new byte[SAMPLE_SIZE];
+			int length = 0;
+			int count;
+			while ( length < sample.length && ( count = in.read( sample, length, sample.length - length ) ) != -1 ) {
+				length += count;
+			}
+			if ( length == sample.length ) {
+				return sample;
+			}
+			final byte[] shorter = new byte[length];
+			System.arraycopy( sample, 0, shorter, 0, length );
+			return shorter;
+		}
+		finally {
+			IOUtil.close( in );
+		}
+	}
+
+	/**
+	 * Copy exactly the given number of bytes of the given file.
+	 */
+	private static void copy(File file, long length, OutputStream out) throws IOException {
+		final InputStream in = new FileInputStream( file );
+		try {
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			long remaining = length;
+			while ( remaining > 0 ) {
+				final int count = in.read( buffer, 0, (int) Math.min( buffer.length, remaining ) );
+				if ( count < 0 ) {
+					throw new IOException( "File changed while being archived [" + file + "]" );
+				}
+				out.write( buffer, 0, count );
+				remaining -= count;
+			}
+		}
+		finally {
+			IOUtil.close( in );
+		}
+	}
+
+	private static IOException newIOException(String message, Throwable cause) {
+		final IOException exception = new IOException( message );
+		exception.initCause( cause );
+		return exception;
+	}
+
+	private static class Source {
+		private final File file;
+		private final String name;
+		private final long time;
+		private int index;
+
+		private Source(File file, String name, long time) {
+			this.file = file;
+			this.name = name;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * The previous archive along with its entry manifest.
+	 */
+	private static class Previous {
+		private final ZipDirectory archive;
+		private final ArchiveManifest manifest;
+
+		private Previous(ZipDirectory archive, ArchiveManifest manifest) {
+			this.archive = archive;
+			this.manifest = manifest;
+		}
+
+		/**
+		 * Opens the previous archive, if there is one which is usable.
+		 *
+		 * @param archive The previous archive.
+		 * @param manifestFile Its entry manifest.
+		 * @param policy The fingerprint of the compression policy now in effect.
+		 *
+		 * @return The previous archive, or null if there is none or it was built under another policy.
+		 */
+		private static Previous open(File archive, File manifestFile, String policy) {
+			if ( !archive.exists() ) {
+				return null;
+			}
+			final ArchiveManifest manifest = ArchiveManifest.load( manifestFile );
+			if ( manifest == null || !policy.equals( manifest.getPolicy() ) ) {
+				return null;
+			}
+			try {
+				return new Previous( new ZipDirectory( archive ), manifest );
+			}
+			catch ( IOException e ) {
+				// not readable, simply rebuild
+				return null;
+			}
+		}
+
+		/**
+		 * Locate the previous entry of the given name, if it was built from the same content as recorded in the
+		 * manifest.
+		 *
+		 * @param name The entry name.
+		 *
+		 * @return The previous entry, or null.
+		 */
+		private ZipDirectory.Entry find(String name) {
+			final ArchiveManifest.Record record = manifest.get( name );
+			if ( record == null ) {
+				return null;
+			}
+			final ZipDirectory.Entry entry = archive.getEntry( name );
+			if ( entry == null || entry.getCrc() != record.getCrc() || entry.getSize() != record.getSize() ) {
+				return null;
+			}
+			return entry;
+		}
+
+		private void close() {
+			try {
+				archive.close();
+			}
+			catch ( IOException ignore ) {
+			}
+		}
+	}
+
+	private static class Entry {
+		private final String name;
+		private final boolean directory;
+		private final int method;
+		private final long crc;
+		private final long size;
+		private final long time;
+		private final byte[] data;
+		/**
+		 * The file holding the data as stored, for entries too large to be buffered.
+		 */
+		private final File dataFile;
+		private final long compressedSize;
+		/**
+		 * Is the data file a temporary file, to delete once written?
+		 */
+		private final boolean spooled;
+		private final ZipDirectory.Entry reused;
+		private String digest;
+		/**
+		 * Was the entry found to duplicate an earlier one while being prepared?  It then carries no data.
+		 */
+		private boolean alias;
+
+		private Entry(String name, long time) {
+			this( name, true, ZipEntry.STORED, 0, 0, time, new byte[0], null, 0, false, null );
+		}
+
+		private Entry(String name, int method, long crc, long size, long time, byte[] data) {
+			this( name, false, method, crc, size, time, data, null, 0, false, null );
+		}
+
+		private Entry(
+				String name,
+				int method,
+				long crc,
+				long size,
+				long time,
+				File dataFile,
+				long compressedSize,
+				boolean spooled) {
+			this( name, false, method, crc, size, time, null, dataFile, compressedSize, spooled, null );
+		}
+
+		private Entry(String name, long time, ZipDirectory.Entry reused, String digest) {
+			this( name, false, reused.getMethod(), reused.getCrc(), reused.getSize(), time, null, null, 0, false, reused );
+			this.digest = digest;
+		}
+
+		private Entry(
+				String name,
+				boolean directory,
+				int method,
+				long crc,
+				long size,
+				long time,
+				byte[] data,
+				File dataFile,
+				long compressedSize,
+				boolean spooled,
+				ZipDirectory.Entry reused) {
+			this.name = name;
+			this.directory = directory;
+			this.method = method;
+			this.crc = crc;
+			this.size = size;
+			this.time = time;
+			this.data = data;
+			this.dataFile = dataFile;
+			this.compressedSize = compressedSize;
+			this.spooled = spooled;
+			this.reused = reused;
+		}
+
+		/**
+		 * The entry without its data, to be remembered once written.
+		 */
+		private Entry describe() {
+			return new Entry( name, method, crc, size, time, (byte[]) null );
+		}
+
+		/**
+		 * Release the temporary file of the entry, if any.
+		 */
+		private void discard() {
+			if ( spooled ) {
+				dataFile.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the central directory of an existing zip archive (zip64 included), giving access to the raw, still compressed,
+ * data of its entries so they can be copied into another archive without inflating them.
+ */
+public class ZipDirectory {
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+	private static final long MAX_VALUE = 0xFFFFFFFFL;
+	private static final int END_SIZE = 22;
+	private static final int ZIP64_END_SIZE = 56;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private final RandomAccessFile file;
+	private final Map<String,Entry> entries = new HashMap<String,Entry>();
+
+	/**
+	 * Opens the archive and reads its central directory.
+	 *
+	 * @param archive The archive.
+	 *
+	 * @throws IOException Indicates the archive could not be read or is not a (supported) zip archive.
+	 */
+	public ZipDirectory(File archive) throws IOException {
+		this.file = new RandomAccessFile( archive, "r" );
+		try {
+			readCentralDirectory();
+		}
+		catch ( IOException e ) {
+			file.close();
+			throw e;
+		}
+	}
+
+	public Entry getEntry(String name) {
+		return entries.get( name );
+	}
+
+	/**
+	 * Copies the raw (as stored) data of the given entry.
+	 *
+	 * @param entry The entry, which must come from this directory.
+	 * @param out The stream to copy to.
+	 *
+	 * @throws IOException Indicates a problem reading the archive or writing the data.
+	 */
+	public void copyRawData(Entry entry, OutputStream out) throws IOException {
+		file.seek( entry.headerOffset );
+		final byte[] header = new byte[LOCAL_HEADER_SIZE];
+		file.readFully( header );
+		final long dataOffset = entry.headerOffset + LOCAL_HEADER_SIZE
+				+ readShort( header, 26 ) + readShort( header, 28 );
+		file.seek( dataOffset );
+
+		final byte[] buffer = new byte[64 * 1024];
+		long remaining = entry.compressedSize;
+		while ( remaining > 0 ) {
+			final int count = file.read( buffer, 0, (int) Math.min( buffer.length, remaining ) );
+			if ( count < 0 ) {
+				throw new IOException( "Unexpected end of archive reading entry [" + entry.name + "]" );
+			}
+			out.write( buffer, 0, count );
+			remaining -= count;
+		}
+	}
+
+	public void close() throws IOException {
+		file.close();
+	}
+
+	private void readCentralDirectory() throws IOException {
+		final long length = file.length();
+		if ( length < END_SIZE ) {
+			throw new IOException( "Not a zip archive" );
+		}
+		final int tailSize = (int) Math.min( length, END_SIZE + MAX_COMMENT_SIZE );
+		final byte[] tail = new byte[tailSize];
+		file.seek( length - tailSize );
+		file.readFully( tail );
+
+		int end = -1;
+		for ( int i = tailSize - END_SIZE; i >= 0; i-- ) {
+			if ( readInt( tail, i ) == END_SIGNATURE ) {
+				end = i;
+				break;
+			}
+		}
+		if ( end < 0 ) {
+			throw new IOException( "Not a zip archive (no end of central directory)" );
+		}
+
+		long count = readShort( tail, end + 10 );
+		long centralSize = readInt( tail, end + 12 );
+		long centralOffset = readInt( tail, end + 16 );
+		final long endOffset = length - tailSize + end;
+		if ( endOffset >= ZIP64_LOCATOR_SIZE + ZIP64_END_SIZE ) {
+			final byte[] locator = new byte[ZIP64_LOCATOR_SIZE];
+			file.seek( endOffset - ZIP64_LOCATOR_SIZE );
+			file.readFully( locator );
+			if ( readInt( locator, 0 ) == ZIP64_LOCATOR_SIGNATURE ) {
+				final byte[] zip64End = new byte[ZIP64_END_SIZE];
+				file.seek( readLong( locator, 8 ) );
+				file.readFully( zip64End );
+				if ( readInt( zip64End, 0 ) != ZIP64_END_SIGNATURE ) {
+					throw new IOException( "Corrupt zip64 end of central directory" );
+				}
+				count = readLong( zip64End, 32 );
+				centralSize = readLong( zip64End, 40 );
+				centralOffset = readLong( zip64End, 48 );
+			}
+		}
+		if ( centralSize > Integer.MAX_VALUE ) {
+			throw new IOException( "Central directory too large" );
+		}
+		final byte[] central = new byte[(int) centralSize];
+		file.seek( centralOffset );
+		file.readFully( central );
+
+		int position = 0;
+		for ( long i = 0; i < count; i++ ) {
+			if ( readInt( central, position ) != CENTRAL_HEADER_SIGNATURE ) {
+				throw new IOException( "Corrupt central directory" );
+			}
+			final int nameLength = readShort( central, position + 28 );
+			final int extraLength = readShort( central, position + 30 );
+			final int commentLength = readShort( central, position + 32 );
+			final String name = new String( central, position + CENTRAL_HEADER_SIZE, nameLength, "UTF-8" );
+			long size = readInt( central, position + 24 );
+			long compressedSize = readInt( central, position + 20 );
+			long headerOffset = readInt( central, position + 42 );
+			// values which do not fit are in the zip64 extra field, in this order
+			int extra = position + CENTRAL_HEADER_SIZE + nameLength;
+			final int extraEnd = extra + extraLength;
+			while ( extra + 4 <= extraEnd ) {
+				final int id = readShort( central, extra );
+				final int dataLength = readShort( central, extra + 2 );
+				if ( id == ZIP64_EXTRA_ID ) {
+					int field = extra + 4;
+					if ( size == MAX_VALUE ) {
+						size = readLong( central, field );
+						field += 8;
+					}
+					if ( compressedSize == MAX_VALUE ) {
+						compressedSize = readLong( central, field );
+						field += 8;
+					}
+					if ( headerOffset == MAX_VALUE ) {
+						headerOffset = readLong( central, field );
+					}
+				}
+				extra += 4 + dataLength;
+			}
+			entries.put(
+					name,
+					new Entry(
+							name,
+							readShort( central, position + 10 ),
+							readInt( central, position + 16 ),
+							size,
+							compressedSize,
+							headerOffset
+					)
+			);
+			position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+	}
+
+	private static int readShort(byte[] bytes, int offset) {
+		return ( bytes[offset] & 0xFF ) | ( ( bytes[offset + 1] & 0xFF ) << 8 );
+	}
+
+	private static long readInt(byte[] bytes, int offset) {
+		return readShort( bytes, offset ) | ( (long) readShort( bytes, offset + 2 ) << 16 );
+	}
+
+	private static long readLong(byte[] bytes, int offset) {
+		return readInt( bytes, offset ) | ( readInt( bytes, offset + 4 ) << 32 );
+	}
+
+	/**
+	 * An entry of the central directory.
+	 */
+	public static class Entry {
+		private final String name;
+		private final int method;
+		private final long crc;
+		private final long size;
+		private final long compressedSize;
+		private final long headerOffset;
+
+		private Entry(String name, int method, long crc, long size, long compressedSize, long headerOffset) {
+			this.name = name;
+			this.method = method;
+			this.crc = crc;
+			this.size = size;
+			this.compressedSize = compressedSize;
+			this.headerOffset = headerOffset;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getMethod() {
+			return method;
+		}
+
+		public long getCrc() {
+			return crc;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public long getCompressedSize() {
+			return compressedSize;
+		}
+	}
+}
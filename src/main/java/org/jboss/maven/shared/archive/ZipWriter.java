@@ -0,0 +1,400 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes a zip archive from entries whose data has already been prepared (compressed or not), which
+ * {@link java.util.zip.ZipOutputStream} does not allow.  Entries are written in the order given.
+ * <p/>
+ * Sizes and offsets of 4GB or more, and more than 65534 entries, are recorded using the zip64 extensions.
+ * <p/>
+ * An entry may also be written as an alias of an earlier one (see {@link #writeAlias}), sharing its data.
+ */
+public class ZipWriter {
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+	private static final int VERSION = 20;
+	private static final int ZIP64_VERSION = 45;
+	private static final int UTF8_FLAG = 0x0800;
+	private static final int DIRECTORY_ATTRIBUTE = 0x10;
+	private static final long MAX_VALUE = 0xFFFFFFFFL;
+	private static final int MAX_ENTRIES = 0xFFFF;
+
+	private final CountingOutputStream out;
+	private final List<CentralEntry> centralEntries = new ArrayList<CentralEntry>();
+	private final Map<String,CentralEntry> centralEntriesByName = new HashMap<String,CentralEntry>();
+
+	public ZipWriter(OutputStream out) {
+		this.out = new CountingOutputStream( new BufferedOutputStream( out, 64 * 1024 ) );
+	}
+
+	/**
+	 * The number of bytes written so far, which is also the offset at which the next entry will start.
+	 *
+	 * @return The current offset.
+	 */
+	public long getOffset() {
+		return out.count;
+	}
+
+	/**
+	 * Writes a directory entry.
+	 *
+	 * @param name The entry name, ending with a slash.
+	 * @param time The modification time.
+	 *
+	 * @throws IOException Indicates a problem writing the entry.
+	 */
+	public void writeDirectory(String name, long time) throws IOException {
+		writeEntry( name, ZipEntry.STORED, 0, 0, time, new byte[0], 0, 0 );
+	}
+
+	/**
+	 * Writes a file entry.
+	 *
+	 * @param name The entry name.
+	 * @param method Either {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED} (raw, i.e. without zlib wrapping).
+	 * @param crc The CRC-32 of the uncompressed data.
+	 * @param size The size of the uncompressed data.
+	 * @param time The modification time.
+	 * @param data The buffer holding the entry data, as stored (so compressed if the method is DEFLATED).
+	 * @param offset The offset of the entry data in the buffer.
+	 * @param length The length of the entry data.
+	 *
+	 * @throws IOException Indicates a problem writing the entry.
+	 */
+	public void writeEntry(
+			String name,
+			int method,
+			long crc,
+			long size,
+			long time,
+			byte[] data,
+			int offset,
+			int length) throws IOException {
+		final long headerOffset = writeLocalHeader( name, method, crc, size, length, time );
+		out.write( data, offset, length );
+		addCentralEntry( new CentralEntry( name, method, crc, size, length, dosTime( time ), headerOffset ) );
+	}
+
+	/**
+	 * Writes an entry sharing the data of an entry written before: only its central directory record is written,
+	 * pointing at the local header (and so the data) of the target.  Readers going through the central directory
+	 * ({@link java.util.zip.ZipFile}, servlet containers) see two entries with the same content; readers going
+	 * through the local headers only ({@link java.util.zip.ZipInputStream}) see the target alone.
+	 *
+	 * @param name The entry name.
+	 * @param target The name of the entry whose data to share.
+	 * @param time The modification time.
+	 *
+	 * @throws IOException Indicates the name is already taken or the target was not written.
+	 */
+	public void writeAlias(String name, String target, long time) throws IOException {
+		checkName( name );
+		final CentralEntry entry = centralEntriesByName.get( target );
+		if ( entry == null || entry.name.endsWith( "/" ) ) {
+			throw new IOException( "Unable to alias [" + name + "]; no such file entry [" + target + "]" );
+		}
+		addCentralEntry(
+				new CentralEntry(
+						name,
+						entry.method,
+						entry.crc,
+						entry.size,
+						entry.compressedSize,
+						dosTime( time ),
+						entry.headerOffset
+				)
+		);
+	}
+
+	/**
+	 * Writes a file entry whose data is streamed by the caller (to copy it from another archive, say) right after
+	 * this call.
+	 *
+	 * @param name The entry name.
+	 * @param method Either {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}.
+	 * @param crc The CRC-32 of the uncompressed data.
+	 * @param size The size of the uncompressed data.
+	 * @param compressedSize The size of the data as stored.
+	 * @param time The modification time.
+	 *
+	 * @return The stream to which exactly <tt>compressedSize</tt> bytes must be written; it must not be closed.
+	 *
+	 * @throws IOException Indicates a problem writing the entry header.
+	 */
+	public OutputStream startEntry(
+			String name,
+			int method,
+			long crc,
+			long size,
+			long compressedSize,
+			long time) throws IOException {
+		final long headerOffset = writeLocalHeader( name, method, crc, size, compressedSize, time );
+		addCentralEntry( new CentralEntry( name, method, crc, size, compressedSize, dosTime( time ), headerOffset ) );
+		return out;
+	}
+
+	private void checkName(String name) throws IOException {
+		if ( centralEntriesByName.containsKey( name ) ) {
+			throw new IOException( "Duplicate archive entry [" + name + "]" );
+		}
+	}
+
+	private void addCentralEntry(CentralEntry entry) {
+		centralEntries.add( entry );
+		centralEntriesByName.put( entry.name, entry );
+	}
+
+	private long writeLocalHeader(
+			String name,
+			int method,
+			long crc,
+			long size,
+			long compressedSize,
+			long time) throws IOException {
+		checkName( name );
+		final long headerOffset = out.count;
+		final byte[] nameBytes = encode( name );
+		final boolean zip64 = size >= MAX_VALUE || compressedSize >= MAX_VALUE;
+		writeInt( LOCAL_HEADER_SIGNATURE );
+		writeShort( zip64 ? ZIP64_VERSION : VERSION );
+		writeShort( UTF8_FLAG );
+		writeShort( method );
+		writeInt( dosTime( time ) );
+		writeInt( crc );
+		writeInt( zip64 ? MAX_VALUE : compressedSize );
+		writeInt( zip64 ? MAX_VALUE : size );
+		writeShort( nameBytes.length );
+		writeShort( zip64 ? 20 : 0 );
+		out.write( nameBytes );
+		if ( zip64 ) {
+			// the local extra field must hold both sizes
+			writeShort( ZIP64_EXTRA_ID );
+			writeShort( 16 );
+			writeLong( size );
+			writeLong( compressedSize );
+		}
+		return headerOffset;
+	}
+
+	/**
+	 * Writes the central directory and closes the underlying stream.
+	 *
+	 * @throws IOException Indicates a problem writing the central directory.
+	 */
+	public void close() throws IOException {
+		final long centralOffset = out.count;
+		for ( CentralEntry entry : centralEntries ) {
+			final byte[] nameBytes = encode( entry.name );
+			// the central extra field only holds the values which do not fit, in this order
+			final boolean largeSize = entry.size >= MAX_VALUE;
+			final boolean largeCompressedSize = entry.compressedSize >= MAX_VALUE;
+			final boolean largeOffset = entry.headerOffset >= MAX_VALUE;
+			final int extraLength = ( largeSize ? 8 : 0 ) + ( largeCompressedSize ? 8 : 0 ) + ( largeOffset ? 8 : 0 );
+			final int version = extraLength > 0 ? ZIP64_VERSION : VERSION;
+			writeInt( CENTRAL_HEADER_SIGNATURE );
+			writeShort( version );
+			writeShort( version );
+			writeShort( UTF8_FLAG );
+			writeShort( entry.method );
+			writeInt( entry.dosTime );
+			writeInt( entry.crc );
+			writeInt( largeCompressedSize ? MAX_VALUE : entry.compressedSize );
+			writeInt( largeSize ? MAX_VALUE : entry.size );
+			writeShort( nameBytes.length );
+			writeShort( extraLength > 0 ? extraLength + 4 : 0 );
+			writeShort( 0 );
+			writeShort( 0 );
+			writeShort( 0 );
+			writeInt( entry.name.endsWith( "/" ) ? DIRECTORY_ATTRIBUTE : 0 );
+			writeInt( largeOffset ? MAX_VALUE : entry.headerOffset );
+			out.write( nameBytes );
+			if ( extraLength > 0 ) {
+				writeShort( ZIP64_EXTRA_ID );
+				writeShort( extraLength );
+				if ( largeSize ) {
+					writeLong( entry.size );
+				}
+				if ( largeCompressedSize ) {
+					writeLong( entry.compressedSize );
+				}
+				if ( largeOffset ) {
+					writeLong( entry.headerOffset );
+				}
+			}
+		}
+		final long centralSize = out.count - centralOffset;
+		final int entries = centralEntries.size();
+		final boolean zip64 = entries >= MAX_ENTRIES || centralSize >= MAX_VALUE || centralOffset >= MAX_VALUE;
+		if ( zip64 ) {
+			final long zip64EndOffset = out.count;
+			writeInt( ZIP64_END_SIGNATURE );
+			// size of the remaining record
+			writeLong( 44 );
+			writeShort( ZIP64_VERSION );
+			writeShort( ZIP64_VERSION );
+			writeInt( 0 );
+			writeInt( 0 );
+			writeLong( entries );
+			writeLong( entries );
+			writeLong( centralSize );
+			writeLong( centralOffset );
+
+			writeInt( ZIP64_LOCATOR_SIGNATURE );
+			writeInt( 0 );
+			writeLong( zip64EndOffset );
+			writeInt( 1 );
+		}
+		writeInt( END_SIGNATURE );
+		writeShort( 0 );
+		writeShort( 0 );
+		writeShort( Math.min( entries, MAX_ENTRIES ) );
+		writeShort( Math.min( entries, MAX_ENTRIES ) );
+		writeInt( Math.min( centralSize, MAX_VALUE ) );
+		writeInt( Math.min( centralOffset, MAX_VALUE ) );
+		writeShort( 0 );
+		out.close();
+	}
+
+	private static byte[] encode(String name) {
+		try {
+			return name.getBytes( "UTF-8" );
+		}
+		catch ( UnsupportedEncodingException e ) {
+			throw new IllegalStateException( "UTF-8 not supported", e );
+		}
+	}
+
+	private void writeShort(int value) throws IOException {
+		out.write( value & 0xFF );
+		out.write( ( value >>> 8 ) & 0xFF );
+	}
+
+	private void writeInt(long value) throws IOException {
+		writeShort( (int) ( value & 0xFFFF ) );
+		writeShort( (int) ( ( value >>> 16 ) & 0xFFFF ) );
+	}
+
+	private void writeLong(long value) throws IOException {
+		writeInt( value & MAX_VALUE );
+		writeInt( value >>> 32 );
+	}
+
+	/**
+	 * Converts a java time to MS-DOS date/time format, as used by zip.
+	 *
+	 * @param time The java time.
+	 *
+	 * @return The DOS date/time.
+	 */
+	public static long dosTime(long time) {
+		final Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis( time );
+		final int year = calendar.get( Calendar.YEAR );
+		if ( year < 1980 ) {
+			// earliest date representable
+			return ( 1 << 21 ) | ( 1 << 16 );
+		}
+		return ( (long) ( year - 1980 ) << 25 )
+				| ( ( calendar.get( Calendar.MONTH ) + 1 ) << 21 )
+				| ( calendar.get( Calendar.DAY_OF_MONTH ) << 16 )
+				| ( calendar.get( Calendar.HOUR_OF_DAY ) << 11 )
+				| ( calendar.get( Calendar.MINUTE ) << 5 )
+				| ( calendar.get( Calendar.SECOND ) >> 1 );
+	}
+
+	private static class CentralEntry {
+		private final String name;
+		private final int method;
+		private final long crc;
+		private final long size;
+		private final long compressedSize;
+		private final long dosTime;
+		private final long headerOffset;
+
+		private CentralEntry(
+				String name,
+				int method,
+				long crc,
+				long size,
+				long compressedSize,
+				long dosTime,
+				long headerOffset) {
+			this.name = name;
+			this.method = method;
+			this.crc = crc;
+			this.size = size;
+			this.compressedSize = compressedSize;
+			this.dosTime = dosTime;
+			this.headerOffset = headerOffset;
+		}
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+		private final OutputStream delegate;
+		private long count;
+
+		private CountingOutputStream(OutputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			delegate.write( b );
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			delegate.write( b, off, len );
+			count += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			delegate.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+	}
+}
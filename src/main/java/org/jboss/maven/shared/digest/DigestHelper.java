@@ -0,0 +1,140 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.digest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Utilities for computing content digests, used to decide whether a file really changed
+ * independently of its timestamp.
+ */
+public class DigestHelper {
+	public static final String ALGORITHM = "SHA-1";
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Disallow external instantiation of DigestHelper.
+	 */
+	private DigestHelper() {
+	}
+
+	/**
+	 * Computes the digest of the given file's content.
+	 *
+	 * @param file The file to digest.
+	 *
+	 * @return The hex-encoded digest.
+	 */
+	public static String digest(File file) {
+		MessageDigest digest = newDigest();
+		InputStream stream = null;
+		try {
+			stream = new FileInputStream( file );
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ( ( read = stream.read( buffer ) ) != -1 ) {
+				digest.update( buffer, 0, read );
+			}
+		}
+		catch ( IOException e ) {
+			throw new DigestException( "unable to digest file [" + file + "]", e );
+		}
+		finally {
+			IOUtil.close( stream );
+		}
+		return toHex( digest.digest() );
+	}
+
+	/**
+	 * Computes the digest of the given content.
+	 *
+	 * @param content The content to digest.
+	 *
+	 * @return The hex-encoded digest.
+	 */
+	public static String digest(byte[] content) {
+		return toHex( newDigest().digest( content ) );
+	}
+
+	/**
+	 * Do the two files hold the same content?  The (cheap) length check is performed
+	 * before any content is read.
+	 *
+	 * @param first The first file.
+	 * @param second The second file.
+	 *
+	 * @return True if both files exist and their content is identical.
+	 */
+	public static boolean sameContent(File first, File second) {
+		if ( !first.exists() || !second.exists() ) {
+			return false;
+		}
+		if ( first.length() != second.length() ) {
+			return false;
+		}
+		return digest( first ).equals( digest( second ) );
+	}
+
+	/**
+	 * Does the given file hold exactly the given content?
+	 *
+	 * @param file The file to check.
+	 * @param content The expected content.
+	 *
+	 * @return True if the file exists and its content is identical.
+	 */
+	public static boolean hasContent(File file, byte[] content) {
+		if ( !file.exists() || file.length() != content.length ) {
+			return false;
+		}
+		return digest( file ).equals( digest( content ) );
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance( ALGORITHM );
+		}
+		catch ( NoSuchAlgorithmException e ) {
+			throw new DigestException( "digest algorithm [" + ALGORITHM + "] not available", e );
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		char[] chars = new char[ bytes.length * 2 ];
+		for ( int i = 0; i < bytes.length; i++ ) {
+			chars[ i * 2 ] = HEX[ ( bytes[i] >> 4 ) & 0xF ];
+			chars[ i * 2 + 1 ] = HEX[ bytes[i] & 0xF ];
+		}
+		return new String( chars );
+	}
+}
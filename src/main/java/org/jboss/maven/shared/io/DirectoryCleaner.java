@@ -0,0 +1,152 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Empties directories without waiting for their files to be deleted: the directory is renamed to a "tombstone" and
+ * recreated empty, the tombstone then being deleted by background threads, one subtree at a time, while the build
+ * goes on.  Tombstones left over by a build which ended before they were deleted are swept by the next clean.
+ * <p/>
+ * Where the directory cannot be renamed (to another file system, or while a file in it is in use), it is cleaned
+ * synchronously instead.
+ */
+public class DirectoryCleaner {
+	private static final String TOMBSTONE_PREFIX = "tombstone-";
+
+	private static final AtomicInteger TOMBSTONE_COUNTER = new AtomicInteger();
+	private static final Set<File> PENDING = Collections.synchronizedSet( new HashSet<File>() );
+	private static ExecutorService deleter;
+
+	private final File tombstoneDirectory;
+
+	/**
+	 * @param tombstoneDirectory Where to move the directories to delete; ideally on the same file system as them.
+	 */
+	public DirectoryCleaner(File tombstoneDirectory) {
+		this.tombstoneDirectory = tombstoneDirectory;
+	}
+
+	/**
+	 * Empty the given directory.
+	 *
+	 * @param directory The directory to clean.
+	 *
+	 * @throws IOException Indicates a problem cleaning the directory synchronously.
+	 */
+	public void clean(File directory) throws IOException {
+		sweep();
+		if ( !directory.exists() ) {
+			return;
+		}
+		tombstoneDirectory.mkdirs();
+		final File tombstone = new File(
+				tombstoneDirectory,
+				TOMBSTONE_PREFIX + System.currentTimeMillis() + '-' + TOMBSTONE_COUNTER.incrementAndGet()
+		);
+		if ( !directory.renameTo( tombstone ) ) {
+			FileUtils.cleanDirectory( directory );
+			return;
+		}
+		if ( !directory.mkdirs() ) {
+			throw new IOException( "Unable to recreate directory [" + directory + "]" );
+		}
+		delete( tombstone );
+	}
+
+	/**
+	 * Schedule the deletion of the tombstones of earlier builds.
+	 */
+	private void sweep() {
+		final File[] tombstones = tombstoneDirectory.listFiles();
+		if ( tombstones == null ) {
+			return;
+		}
+		for ( File tombstone : tombstones ) {
+			if ( tombstone.getName().startsWith( TOMBSTONE_PREFIX ) && !PENDING.contains( tombstone ) ) {
+				delete( tombstone );
+			}
+		}
+	}
+
+	private static void delete(final File tombstone) {
+		PENDING.add( tombstone );
+		final File[] children = tombstone.listFiles();
+		if ( children == null || children.length == 0 ) {
+			tombstone.delete();
+			PENDING.remove( tombstone );
+			return;
+		}
+		final AtomicInteger remaining = new AtomicInteger( children.length );
+		for ( final File child : children ) {
+			getDeleter().execute(
+					new Runnable() {
+						public void run() {
+							try {
+								FileUtils.forceDelete( child );
+							}
+							catch ( IOException ignore ) {
+								// swept again by the next clean
+							}
+							if ( remaining.decrementAndGet() == 0 ) {
+								tombstone.delete();
+								PENDING.remove( tombstone );
+							}
+						}
+					}
+			);
+		}
+	}
+
+	private static synchronized ExecutorService getDeleter() {
+		if ( deleter == null ) {
+			// daemon threads: the build must not wait for them to exit, leftovers get swept later
+			deleter = Executors.newFixedThreadPool(
+					Runtime.getRuntime().availableProcessors(),
+					new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(Runnable runnable) {
+							final Thread thread = new Thread( runnable, "jdocbook-cleaner-" + count.incrementAndGet() );
+							thread.setDaemon( true );
+							thread.setPriority( Thread.MIN_PRIORITY );
+							return thread;
+						}
+					}
+			);
+		}
+		return deleter;
+	}
+}
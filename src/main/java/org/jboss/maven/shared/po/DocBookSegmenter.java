@@ -0,0 +1,296 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+
+/**
+ * Cuts a DocBook document into translatable messages following the rules of KDE's <tt>xml2pot</tt>/<tt>po2xml</tt>:
+ * the content of each "cutting" element (paragraphs, titles, list items, table entries...) is one message, with
+ * any inline markup (emphasis, links...) kept as part of it.  A cutting element nested in another one ends the
+ * outer message; whatever follows it starts a new one.  Whitespace is normalized, except within literal elements
+ * (program listings, screens...) where it is significant.
+ */
+public class DocBookSegmenter {
+	/**
+	 * Elements whose content is translated as a message of its own.
+	 */
+	public static final Set<String> CUTTING_TAGS = new HashSet<String>( Arrays.asList(
+			"abstract", "address", "answer", "appendix", "article", "articleinfo", "attribution", "author",
+			"authorgroup", "authorinitials", "blockquote", "book", "bookinfo", "bridgehead", "callout",
+			"calloutlist", "caption", "caution", "chapter", "chapterinfo", "citation", "cmdsynopsis", "collab",
+			"contrib", "copyright", "corpauthor", "date", "edition", "editor", "entry", "example", "figure",
+			"firstname", "formalpara", "funcsynopsis", "glossary", "glossdef", "glossdiv", "glossentry",
+			"glosslist", "glossterm", "holder", "important", "index", "indexdiv", "indexentry", "indexterm",
+			"info", "informalexample", "informaltable", "itemizedlist", "keyword", "keywordset", "legalnotice",
+			"lineage", "listitem", "literallayout", "mediaobject", "member", "msgtext", "note", "orderedlist",
+			"orgname", "othercredit", "othername", "para", "part", "partintro", "preface", "primary", "procedure",
+			"productname", "programlisting", "pubdate", "publisher", "publishername", "qandadiv", "qandaentry",
+			"qandaset", "question", "refentry", "refentrytitle", "reference", "refmeta", "refmiscinfo", "refname",
+			"refnamediv", "refpurpose", "refsect1", "refsect2", "refsect3", "refsection", "refsynopsisdiv",
+			"releaseinfo", "revdescription", "revhistory", "revision", "revnumber", "revremark", "row", "screen",
+			"screenshot", "secondary", "sect1", "sect1info", "sect2", "sect3", "sect4", "sect5", "section",
+			"sectioninfo", "see", "seealso", "seg", "seglistitem", "segmentedlist", "segtitle", "set", "setinfo",
+			"sidebar", "simpara", "simplelist", "simplesect", "step", "subtitle", "surname", "synopsis", "table",
+			"tbody", "term", "tertiary", "textobject", "tfoot", "tgroup", "thead", "tip", "title", "titleabbrev",
+			"variablelist", "varlistentry", "warning", "year"
+	) );
+
+	/**
+	 * Cutting elements whose whitespace is significant.
+	 */
+	public static final Set<String> LITERAL_TAGS = new HashSet<String>( Arrays.asList(
+			"literallayout", "programlisting", "screen", "synopsis"
+	) );
+
+	/**
+	 * Receives the messages found.
+	 */
+	public static interface Handler {
+		/**
+		 * Called for each message, in document order.
+		 *
+		 * @param segment The message.
+		 *
+		 * @throws IOException Allows handlers to fail.
+		 */
+		public void handleSegment(Segment segment) throws IOException;
+	}
+
+	/**
+	 * A message along with where it was found.
+	 */
+	public static class Segment {
+		private final String tag;
+		private final int line;
+		private final int start;
+		private final int end;
+		private final String message;
+
+		private Segment(String tag, int line, int start, int end, String message) {
+			this.tag = tag;
+			this.line = line;
+			this.start = start;
+			this.end = end;
+			this.message = message;
+		}
+
+		/**
+		 * The cutting element the message belongs to.
+		 */
+		public String getTag() {
+			return tag;
+		}
+
+		public int getLine() {
+			return line;
+		}
+
+		/**
+		 * The offset in the document at which the message text starts, leading whitespace excluded.
+		 */
+		public int getStart() {
+			return start;
+		}
+
+		/**
+		 * The offset in the document at which the message text ends, trailing whitespace excluded.
+		 */
+		public int getEnd() {
+			return end;
+		}
+
+		/**
+		 * The message, that is the msgid.
+		 */
+		public String getMessage() {
+			return message;
+		}
+	}
+
+	private static class Frame {
+		private final String tag;
+		private final String localTag;
+		private final boolean literal;
+		private final StringBuilder text = new StringBuilder();
+		private int line;
+		private int start = -1;
+		private int end;
+		private boolean hasContent;
+
+		private Frame(String tag, String localTag, boolean literal, int line) {
+			this.tag = tag;
+			this.localTag = localTag;
+			this.literal = literal;
+			this.line = line;
+		}
+
+		private void append(XmlTokenizer tokenizer, boolean content) {
+			if ( start < 0 ) {
+				start = tokenizer.getStart();
+				if ( line < 0 ) {
+					line = tokenizer.getLine();
+				}
+			}
+			end = tokenizer.getEnd();
+			text.append( tokenizer.getText() );
+			hasContent |= content;
+		}
+	}
+
+	private DocBookSegmenter() {
+	}
+
+	/**
+	 * Segment the given document.
+	 *
+	 * @param name The document name, used in error messages.
+	 * @param source The document.
+	 * @param handler Receives the messages.
+	 *
+	 * @throws IOException Indicates malformed markup or a failing handler.
+	 */
+	public static void segment(String name, String source, Handler handler) throws IOException {
+		final XmlTokenizer tokenizer = new XmlTokenizer( name, source );
+		final LinkedList<Frame> frames = new LinkedList<Frame>();
+		int type;
+		while ( ( type = tokenizer.next() ) != XmlTokenizer.END_OF_DOCUMENT ) {
+			final Frame current = frames.peek();
+			switch ( type ) {
+				case XmlTokenizer.START_TAG:
+				case XmlTokenizer.EMPTY_TAG:
+					if ( CUTTING_TAGS.contains( tokenizer.getLocalTagName() ) ) {
+						flush( current, source, handler );
+						if ( type == XmlTokenizer.START_TAG ) {
+							frames.push(
+									new Frame(
+											tokenizer.getTagName(),
+											tokenizer.getLocalTagName(),
+											LITERAL_TAGS.contains( tokenizer.getLocalTagName() )
+													|| ( current != null && current.literal ),
+											tokenizer.getLine()
+									)
+							);
+						}
+					}
+					else if ( current != null ) {
+						current.append( tokenizer, false );
+					}
+					break;
+				case XmlTokenizer.END_TAG:
+					if ( CUTTING_TAGS.contains( tokenizer.getLocalTagName() ) && contains( frames, tokenizer.getLocalTagName() ) ) {
+						Frame closed;
+						do {
+							closed = frames.pop();
+							flush( closed, source, handler );
+						} while ( !closed.localTag.equals( tokenizer.getLocalTagName() ) );
+					}
+					else if ( current != null ) {
+						current.append( tokenizer, false );
+					}
+					break;
+				case XmlTokenizer.TEXT:
+					if ( current != null ) {
+						current.append( tokenizer, tokenizer.getText().trim().length() > 0 );
+					}
+					break;
+				case XmlTokenizer.CDATA:
+					if ( current != null ) {
+						current.append( tokenizer, tokenizer.getText().length() > "<![CDATA[]]>".length() );
+					}
+					break;
+				default:
+					// comments, processing instructions and declarations are not part of messages
+			}
+		}
+		while ( !frames.isEmpty() ) {
+			flush( frames.pop(), source, handler );
+		}
+	}
+
+	private static boolean contains(LinkedList<Frame> frames, String localTag) {
+		for ( Frame frame : frames ) {
+			if ( frame.localTag.equals( localTag ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void flush(Frame frame, String source, Handler handler) throws IOException {
+		if ( frame == null || frame.start < 0 ) {
+			return;
+		}
+		final boolean hasContent = frame.hasContent;
+		final String text = frame.text.toString();
+		int start = frame.start;
+		int end = frame.end;
+		final int line = frame.line;
+		frame.text.setLength( 0 );
+		frame.start = -1;
+		frame.line = -1;
+		frame.hasContent = false;
+
+		if ( !hasContent ) {
+			return;
+		}
+		while ( start < end && Character.isWhitespace( source.charAt( start ) ) ) {
+			start++;
+		}
+		while ( end > start && Character.isWhitespace( source.charAt( end - 1 ) ) ) {
+			end--;
+		}
+		final String message = frame.literal ? text.trim() : normalize( text );
+		handler.handleSegment( new Segment( frame.tag, line, start, end, message ) );
+	}
+
+	/**
+	 * Collapse whitespace runs into single spaces, trimming the ends.
+	 *
+	 * @param text The text to normalize.
+	 *
+	 * @return The normalized text.
+	 */
+	public static String normalize(String text) {
+		final StringBuilder normalized = new StringBuilder( text.length() );
+		boolean pendingSpace = false;
+		for ( int i = 0; i < text.length(); i++ ) {
+			final char c = text.charAt( i );
+			if ( c == ' ' || c == '\t' || c == '\n' || c == '\r' ) {
+				pendingSpace = normalized.length() > 0;
+				continue;
+			}
+			if ( pendingSpace ) {
+				normalized.append( ' ' );
+				pendingSpace = false;
+			}
+			normalized.append( c );
+		}
+		return normalized.toString();
+	}
+}
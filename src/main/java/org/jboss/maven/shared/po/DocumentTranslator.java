@@ -0,0 +1,93 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The in-JVM counterpart of <tt>po2xml</tt>: rebuilds a DocBook document with each message replaced by its
+ * translation.  Everything outside of messages (markup, comments, the doctype...) is kept exactly as in the master;
+ * messages without a usable translation are kept as they are.
+ */
+public class DocumentTranslator {
+	private DocumentTranslator() {
+	}
+
+	/**
+	 * Translate the given document.
+	 *
+	 * @param master The master document content.
+	 * @param name The master document name, used in error messages.
+	 * @param index The translations.
+	 *
+	 * @return The translated document content.
+	 *
+	 * @throws IOException Indicates malformed markup in the master document.
+	 */
+	public static String translate(String master, String name, PoIndex index) throws IOException {
+		return translate( master, name, index, null );
+	}
+
+	/**
+	 * Translate the given document, falling back to a translation memory for the messages without translation.
+	 *
+	 * @param master The master document content.
+	 * @param name The master document name, used in error messages.
+	 * @param index The translations.
+	 * @param fallback The translation memory to fall back to, or null.
+	 *
+	 * @return The translated document content.
+	 *
+	 * @throws IOException Indicates malformed markup in the master document.
+	 */
+	public static String translate(
+			final String master,
+			String name,
+			final PoIndex index,
+			final TranslationMemory fallback) throws IOException {
+		final StringBuilder translated = new StringBuilder( master.length() + master.length() / 4 );
+		final int[] copied = new int[1];
+		DocBookSegmenter.segment(
+				name,
+				master,
+				new DocBookSegmenter.Handler() {
+					public void handleSegment(DocBookSegmenter.Segment segment) {
+						String translation = index.getTranslation( segment.getMessage() );
+						if ( translation == null && fallback != null ) {
+							translation = fallback.lookup( segment.getMessage() );
+						}
+						if ( translation == null ) {
+							return;
+						}
+						translated.append( master, copied[0], segment.getStart() );
+						translated.append( translation );
+						copied[0] = segment.getEnd();
+					}
+				}
+		);
+		translated.append( master, copied[0], master.length() );
+		return translated.toString();
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single message of a PO (or POT) file, including its comments.
+ */
+public class PoEntry {
+	public static final String FUZZY = "fuzzy";
+
+	private final List<String> translatorComments = new ArrayList<String>();
+	private final List<String> extractedComments = new ArrayList<String>();
+	private final List<String> references = new ArrayList<String>();
+	private final List<String> flags = new ArrayList<String>();
+	private final List<String> previous = new ArrayList<String>();
+	private String msgctxt;
+	private String msgid = "";
+	private String msgidPlural;
+	private final List<String> msgstr = new ArrayList<String>();
+	private boolean obsolete;
+
+	/**
+	 * Comments written by translators (<tt># </tt> lines).
+	 */
+	public List<String> getTranslatorComments() {
+		return translatorComments;
+	}
+
+	/**
+	 * Comments extracted from the source (<tt>#.</tt> lines).
+	 */
+	public List<String> getExtractedComments() {
+		return extractedComments;
+	}
+
+	/**
+	 * Source references (<tt>#:</tt> lines), one element per line.
+	 */
+	public List<String> getReferences() {
+		return references;
+	}
+
+	/**
+	 * Flags (<tt>#,</tt> line), in order.
+	 */
+	public List<String> getFlags() {
+		return flags;
+	}
+
+	/**
+	 * Previous message comments (<tt>#|</tt> lines), kept verbatim.
+	 */
+	public List<String> getPrevious() {
+		return previous;
+	}
+
+	public String getMsgctxt() {
+		return msgctxt;
+	}
+
+	public void setMsgctxt(String msgctxt) {
+		this.msgctxt = msgctxt;
+	}
+
+	public String getMsgid() {
+		return msgid;
+	}
+
+	public void setMsgid(String msgid) {
+		this.msgid = msgid;
+	}
+
+	public String getMsgidPlural() {
+		return msgidPlural;
+	}
+
+	public void setMsgidPlural(String msgidPlural) {
+		this.msgidPlural = msgidPlural;
+	}
+
+	/**
+	 * The translations; a single element unless the message has plural forms.
+	 */
+	public List<String> getMsgstr() {
+		return msgstr;
+	}
+
+	public String getMsgstr(int index) {
+		return index < msgstr.size() ? msgstr.get( index ) : "";
+	}
+
+	public void setMsgstr(int index, String value) {
+		while ( msgstr.size() <= index ) {
+			msgstr.add( "" );
+		}
+		msgstr.set( index, value );
+	}
+
+	public boolean isObsolete() {
+		return obsolete;
+	}
+
+	public void setObsolete(boolean obsolete) {
+		this.obsolete = obsolete;
+	}
+
+	/**
+	 * Is this the header entry (the one with the empty msgid)?
+	 */
+	public boolean isHeader() {
+		return msgctxt == null && msgid.length() == 0 && !obsolete;
+	}
+
+	public boolean isFuzzy() {
+		return flags.contains( FUZZY );
+	}
+
+	public void setFuzzy(boolean fuzzy) {
+		if ( fuzzy ) {
+			if ( !isFuzzy() ) {
+				flags.add( 0, FUZZY );
+			}
+		}
+		else {
+			flags.remove( FUZZY );
+		}
+	}
+
+	/**
+	 * Does this entry carry a (non empty) translation?
+	 */
+	public boolean isTranslated() {
+		if ( msgstr.isEmpty() ) {
+			return false;
+		}
+		for ( String translation : msgstr ) {
+			if ( translation.length() == 0 ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The key identifying the message within its file: the context (if any) plus the msgid.
+	 */
+	public String getKey() {
+		return key( msgctxt, msgid );
+	}
+
+	public static String key(String msgctxt, String msgid) {
+		return msgctxt == null ? msgid : msgctxt + '\u0004' + msgid;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The usable translations of a PO file, by msgid.  Fuzzy, empty and obsolete entries are left out, as po2xml does.
+ */
+public class PoIndex {
+	private final Map<String,String> translations;
+
+	private PoIndex(Map<String,String> translations) {
+		this.translations = translations;
+	}
+
+	/**
+	 * Load the translations of the given PO file.
+	 *
+	 * @param poFile The PO file.
+	 *
+	 * @return The index.
+	 *
+	 * @throws IOException Indicates a problem reading or parsing the file.
+	 */
+	public static PoIndex load(File poFile) throws IOException {
+		final Map<String,String> translations = new HashMap<String,String>();
+		PoParser.parse(
+				poFile,
+				new PoParser.Handler() {
+					public void handleEntry(PoEntry entry) {
+						if ( entry.isHeader() || entry.isObsolete() || entry.isFuzzy() || entry.getMsgctxt() != null ) {
+							return;
+						}
+						final String translation = entry.getMsgstr( 0 );
+						if ( translation.length() > 0 && !translations.containsKey( entry.getMsgid() ) ) {
+							translations.put( entry.getMsgid(), translation );
+						}
+					}
+				}
+		);
+		return new PoIndex( translations );
+	}
+
+	/**
+	 * An index without any translation.
+	 *
+	 * @return The empty index.
+	 */
+	public static PoIndex empty() {
+		return new PoIndex( new HashMap<String,String>() );
+	}
+
+	/**
+	 * Get the translation of a message.
+	 *
+	 * @param msgid The message.
+	 *
+	 * @return The translation, or null.
+	 */
+	public String getTranslation(String msgid) {
+		return translations.get( msgid );
+	}
+
+	public int size() {
+		return translations.size();
+	}
+}
@@ -0,0 +1,334 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The in-JVM counterpart of <tt>msgmerge</tt> and <tt>msginit</tt>.
+ * <p/>
+ * Merging follows msgmerge: messages of the template keep the translation (and translator comments) of the same
+ * message in the existing PO; messages with no exact match get the translation of the most similar translated
+ * message, marked fuzzy; translated messages no longer in the template are kept as obsolete (<tt>#~</tt>) entries.
+ */
+public class PoMerger {
+	/**
+	 * The similarity at or above which msgmerge considers a message a fuzzy match.
+	 */
+	public static final double FUZZY_THRESHOLD = 0.6;
+
+	private static final String POT_CREATION_DATE = "POT-Creation-Date";
+
+	private PoMerger() {
+	}
+
+	/**
+	 * Merge the existing translations into the (updated) template.
+	 *
+	 * @param po The entries of the existing PO file.
+	 * @param pot The entries of the template.
+	 *
+	 * @return The entries of the updated PO file.
+	 */
+	public static List<PoEntry> merge(List<PoEntry> po, List<PoEntry> pot) {
+		return merge( po, pot, null );
+	}
+
+	/**
+	 * Merge the existing translations into the (updated) template, pre-filling the messages left untranslated from a
+	 * translation memory.  Pre-filled messages are marked fuzzy, for a translator to review.
+	 *
+	 * @param po The entries of the existing PO file.
+	 * @param pot The entries of the template.
+	 * @param memory The translation memory, or null.
+	 *
+	 * @return The entries of the updated PO file.
+	 */
+	public static List<PoEntry> merge(List<PoEntry> po, List<PoEntry> pot, TranslationMemory memory) {
+		final Map<String,PoEntry> definitions = new HashMap<String,PoEntry>();
+		final List<PoEntry> candidates = new ArrayList<PoEntry>();
+		PoEntry poHeader = null;
+		for ( PoEntry definition : po ) {
+			if ( definition.isHeader() ) {
+				poHeader = definition;
+				continue;
+			}
+			if ( !definitions.containsKey( definition.getKey() ) ) {
+				definitions.put( definition.getKey(), definition );
+			}
+			if ( !definition.isObsolete() && definition.isTranslated() ) {
+				candidates.add( definition );
+			}
+		}
+
+		final Set<PoEntry> used = new HashSet<PoEntry>();
+		final List<PoEntry> result = new ArrayList<PoEntry>();
+		boolean hasHeader = false;
+		for ( PoEntry reference : pot ) {
+			if ( reference.isHeader() ) {
+				result.add( mergeHeader( poHeader, reference ) );
+				hasHeader = true;
+				continue;
+			}
+			final PoEntry exact = definitions.get( reference.getKey() );
+			if ( exact != null ) {
+				used.add( exact );
+				result.add( mergeMessage( exact, reference, exact.isFuzzy() ) );
+				continue;
+			}
+			final PoEntry fuzzy = findFuzzyMatch( reference, candidates );
+			if ( fuzzy != null ) {
+				used.add( fuzzy );
+				result.add( mergeMessage( fuzzy, reference, true ) );
+				continue;
+			}
+			result.add( untranslated( reference, memory ) );
+		}
+		if ( poHeader != null && !hasHeader ) {
+			result.add( 0, poHeader );
+		}
+
+		for ( PoEntry definition : po ) {
+			if ( definition.isHeader() || used.contains( definition ) || !definition.isTranslated() ) {
+				continue;
+			}
+			if ( definitions.get( definition.getKey() ) != definition ) {
+				// a duplicate
+				continue;
+			}
+			result.add( obsolete( definition ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Create a new PO file from the template.
+	 *
+	 * @param pot The entries of the template.
+	 * @param language The language of the translation.
+	 *
+	 * @return The entries of the new PO file.
+	 */
+	public static List<PoEntry> initialize(List<PoEntry> pot, String language) {
+		return initialize( pot, language, null );
+	}
+
+	/**
+	 * Create a new PO file from the template, pre-filling its messages from a translation memory.  Pre-filled
+	 * messages are marked fuzzy, for a translator to review.
+	 *
+	 * @param pot The entries of the template.
+	 * @param language The language of the translation.
+	 * @param memory The translation memory, or null.
+	 *
+	 * @return The entries of the new PO file.
+	 */
+	public static List<PoEntry> initialize(List<PoEntry> pot, String language, TranslationMemory memory) {
+		final List<PoEntry> result = new ArrayList<PoEntry>();
+		for ( PoEntry reference : pot ) {
+			if ( reference.isHeader() ) {
+				final PoEntry header = copyOf( reference );
+				header.setFuzzy( false );
+				String fields = header.getMsgstr( 0 );
+				fields = setHeaderField( fields, "PO-Revision-Date", new SimpleDateFormat( "yyyy-MM-dd HH:mmZ" ).format( new Date() ), null );
+				fields = setHeaderField( fields, "Last-Translator", "Automatically generated", null );
+				fields = setHeaderField( fields, "Language-Team", "none", null );
+				fields = setHeaderField( fields, "Language", language, "Language-Team" );
+				final String contentType = getHeaderField( fields, "Content-Type" );
+				if ( contentType != null && contentType.indexOf( "charset=CHARSET" ) >= 0 ) {
+					fields = setHeaderField( fields, "Content-Type", contentType.replace( "charset=CHARSET", "charset=UTF-8" ), null );
+				}
+				header.setMsgstr( 0, fields );
+				result.add( header );
+			}
+			else {
+				result.add( untranslated( reference, memory ) );
+			}
+		}
+		return result;
+	}
+
+	private static PoEntry mergeHeader(PoEntry poHeader, PoEntry potHeader) {
+		if ( poHeader == null ) {
+			return copyOf( potHeader );
+		}
+		final PoEntry header = copyOf( poHeader );
+		final String creationDate = getHeaderField( potHeader.getMsgstr( 0 ), POT_CREATION_DATE );
+		if ( creationDate != null ) {
+			header.setMsgstr( 0, setHeaderField( header.getMsgstr( 0 ), POT_CREATION_DATE, creationDate, null ) );
+		}
+		return header;
+	}
+
+	/**
+	 * The message as in the template, with the translation and translator comments of the definition.
+	 */
+	private static PoEntry mergeMessage(PoEntry definition, PoEntry reference, boolean fuzzy) {
+		final PoEntry merged = new PoEntry();
+		merged.getTranslatorComments().addAll( definition.getTranslatorComments() );
+		merged.getExtractedComments().addAll( reference.getExtractedComments() );
+		merged.getReferences().addAll( reference.getReferences() );
+		merged.getFlags().addAll( reference.getFlags() );
+		merged.setFuzzy( fuzzy );
+		merged.setMsgctxt( reference.getMsgctxt() );
+		merged.setMsgid( reference.getMsgid() );
+		merged.setMsgidPlural( reference.getMsgidPlural() );
+		for ( int i = 0; i < definition.getMsgstr().size(); i++ ) {
+			merged.setMsgstr( i, definition.getMsgstr( i ) );
+		}
+		if ( merged.getMsgstr().isEmpty() ) {
+			merged.setMsgstr( 0, "" );
+		}
+		return merged;
+	}
+
+	private static PoEntry untranslated(PoEntry reference) {
+		final PoEntry entry = copyOf( reference );
+		entry.setFuzzy( false );
+		entry.getPrevious().clear();
+		entry.getMsgstr().clear();
+		entry.setMsgstr( 0, "" );
+		if ( reference.getMsgidPlural() != null ) {
+			entry.setMsgstr( 1, "" );
+		}
+		return entry;
+	}
+
+	private static PoEntry untranslated(PoEntry reference, TranslationMemory memory) {
+		final PoEntry entry = untranslated( reference );
+		if ( memory != null && reference.getMsgidPlural() == null ) {
+			final String translation = memory.lookup( reference.getMsgid() );
+			if ( translation != null ) {
+				entry.setMsgstr( 0, translation );
+				entry.setFuzzy( true );
+			}
+		}
+		return entry;
+	}
+
+	private static PoEntry obsolete(PoEntry definition) {
+		final PoEntry entry = new PoEntry();
+		entry.getTranslatorComments().addAll( definition.getTranslatorComments() );
+		entry.getFlags().addAll( definition.getFlags() );
+		entry.setMsgctxt( definition.getMsgctxt() );
+		entry.setMsgid( definition.getMsgid() );
+		entry.setMsgidPlural( definition.getMsgidPlural() );
+		entry.getMsgstr().addAll( definition.getMsgstr() );
+		entry.setObsolete( true );
+		return entry;
+	}
+
+	private static PoEntry copyOf(PoEntry source) {
+		final PoEntry copy = new PoEntry();
+		copy.getTranslatorComments().addAll( source.getTranslatorComments() );
+		copy.getExtractedComments().addAll( source.getExtractedComments() );
+		copy.getReferences().addAll( source.getReferences() );
+		copy.getFlags().addAll( source.getFlags() );
+		copy.getPrevious().addAll( source.getPrevious() );
+		copy.setMsgctxt( source.getMsgctxt() );
+		copy.setMsgid( source.getMsgid() );
+		copy.setMsgidPlural( source.getMsgidPlural() );
+		copy.getMsgstr().addAll( source.getMsgstr() );
+		copy.setObsolete( source.isObsolete() );
+		return copy;
+	}
+
+	private static PoEntry findFuzzyMatch(PoEntry reference, List<PoEntry> candidates) {
+		if ( candidates.isEmpty() ) {
+			return null;
+		}
+		final Similarity similarity = new Similarity( reference.getMsgid() );
+		PoEntry best = null;
+		double bestValue = FUZZY_THRESHOLD;
+		for ( PoEntry candidate : candidates ) {
+			final double value = similarity.compute( candidate.getMsgid(), bestValue );
+			if ( value > bestValue || ( best == null && value >= bestValue ) ) {
+				best = candidate;
+				bestValue = value;
+			}
+		}
+		return best;
+	}
+
+
+	// header fields ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Get the value of a header field.
+	 *
+	 * @param header The header entry's msgstr.
+	 * @param name The field name.
+	 *
+	 * @return The field value, or null.
+	 */
+	public static String getHeaderField(String header, String name) {
+		for ( String line : header.split( "\n" ) ) {
+			if ( line.startsWith( name + ':' ) ) {
+				return line.substring( name.length() + 1 ).trim();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Set the value of a header field.
+	 *
+	 * @param header The header entry's msgstr.
+	 * @param name The field name.
+	 * @param value The field value.
+	 * @param after The field after which to add the field if it is missing; null to add it last.
+	 *
+	 * @return The updated header.
+	 */
+	public static String setHeaderField(String header, String name, String value, String after) {
+		final StringBuilder result = new StringBuilder();
+		boolean set = false;
+		for ( String line : header.split( "\n" ) ) {
+			if ( line.length() == 0 ) {
+				continue;
+			}
+			if ( line.startsWith( name + ':' ) ) {
+				result.append( name ).append( ": " ).append( value ).append( '\n' );
+				set = true;
+				continue;
+			}
+			result.append( line ).append( '\n' );
+			if ( !set && after != null && line.startsWith( after + ':' ) && getHeaderField( header, name ) == null ) {
+				result.append( name ).append( ": " ).append( value ).append( '\n' );
+				set = true;
+			}
+		}
+		if ( !set ) {
+			result.append( name ).append( ": " ).append( value ).append( '\n' );
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,352 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Parses PO and POT files, handing each entry to a {@link Handler} as soon as it is complete so large files need
+ * not be held in memory.  Files are expected to be UTF-8 encoded, as jDocBook produces them.
+ */
+public class PoParser {
+	/**
+	 * Receives the parsed entries.
+	 */
+	public static interface Handler {
+		public void handleEntry(PoEntry entry);
+	}
+
+	private static final int NONE = 0;
+	private static final int MSGCTXT = 1;
+	private static final int MSGID = 2;
+	private static final int MSGID_PLURAL = 3;
+	private static final int MSGSTR = 4;
+
+	private final String name;
+	private final Handler handler;
+
+	private PoEntry entry;
+	private int field = NONE;
+	private int pluralIndex;
+	private boolean seenMsgstr;
+	private StringBuilder value;
+	private int lineNumber;
+
+	private PoParser(String name, Handler handler) {
+		this.name = name;
+		this.handler = handler;
+	}
+
+	/**
+	 * Parse the given file, notifying the handler of each entry.
+	 *
+	 * @param file The PO/POT file.
+	 * @param handler The entry handler.
+	 *
+	 * @throws IOException Indicates a problem reading or parsing the file.
+	 */
+	public static void parse(File file, Handler handler) throws IOException {
+		final Reader reader = new InputStreamReader( new FileInputStream( file ), "UTF-8" );
+		try {
+			parse( file.getPath(), reader, handler );
+		}
+		finally {
+			IOUtil.close( reader );
+		}
+	}
+
+	/**
+	 * Parse the given content, notifying the handler of each entry.
+	 *
+	 * @param name A name for the content, used in error messages.
+	 * @param reader The PO/POT content.
+	 * @param handler The entry handler.
+	 *
+	 * @throws IOException Indicates a problem reading or parsing the content.
+	 */
+	public static void parse(String name, Reader reader, Handler handler) throws IOException {
+		new PoParser( name, handler ).parse( new BufferedReader( reader ) );
+	}
+
+	/**
+	 * Parse the given file entirely.
+	 *
+	 * @param file The PO/POT file.
+	 *
+	 * @return The entries, in file order.
+	 *
+	 * @throws IOException Indicates a problem reading or parsing the file.
+	 */
+	public static List<PoEntry> parse(File file) throws IOException {
+		final List<PoEntry> entries = new ArrayList<PoEntry>();
+		parse(
+				file,
+				new Handler() {
+					public void handleEntry(PoEntry entry) {
+						entries.add( entry );
+					}
+				}
+		);
+		return entries;
+	}
+
+	private void parse(BufferedReader reader) throws IOException {
+		String line;
+		while ( ( line = reader.readLine() ) != null ) {
+			lineNumber++;
+			if ( lineNumber == 1 && line.length() > 0 && line.charAt( 0 ) == '\uFEFF' ) {
+				line = line.substring( 1 );
+			}
+			parseLine( line.trim() );
+		}
+		finishEntry();
+	}
+
+	private void parseLine(String line) throws IOException {
+		if ( line.length() == 0 ) {
+			finishEntry();
+			return;
+		}
+		boolean obsolete = false;
+		if ( line.startsWith( "#~" ) ) {
+			obsolete = true;
+			line = line.substring( 2 ).trim();
+			if ( line.length() == 0 ) {
+				return;
+			}
+			if ( line.startsWith( "|" ) ) {
+				startComment().getPrevious().add( line.substring( 1 ).trim() );
+				return;
+			}
+		}
+		else if ( line.charAt( 0 ) == '#' ) {
+			parseComment( line );
+			return;
+		}
+
+		if ( line.charAt( 0 ) == '"' ) {
+			if ( field == NONE ) {
+				throw error( "String without keyword" );
+			}
+			value.append( unquote( line ) );
+			return;
+		}
+
+		if ( line.startsWith( "msgctxt" ) ) {
+			startKeyword( MSGCTXT, 0, obsolete );
+			value.append( unquote( line.substring( "msgctxt".length() ).trim() ) );
+		}
+		else if ( line.startsWith( "msgid_plural" ) ) {
+			startKeyword( MSGID_PLURAL, 0, obsolete );
+			value.append( unquote( line.substring( "msgid_plural".length() ).trim() ) );
+		}
+		else if ( line.startsWith( "msgid" ) ) {
+			startKeyword( MSGID, 0, obsolete );
+			value.append( unquote( line.substring( "msgid".length() ).trim() ) );
+		}
+		else if ( line.startsWith( "msgstr[" ) ) {
+			final int close = line.indexOf( ']' );
+			if ( close < 0 ) {
+				throw error( "Malformed msgstr index" );
+			}
+			final int index;
+			try {
+				index = Integer.parseInt( line.substring( "msgstr[".length(), close ).trim() );
+			}
+			catch ( NumberFormatException e ) {
+				throw error( "Malformed msgstr index" );
+			}
+			startKeyword( MSGSTR, index, obsolete );
+			value.append( unquote( line.substring( close + 1 ).trim() ) );
+		}
+		else if ( line.startsWith( "msgstr" ) ) {
+			startKeyword( MSGSTR, 0, obsolete );
+			value.append( unquote( line.substring( "msgstr".length() ).trim() ) );
+		}
+		else {
+			throw error( "Unexpected content" );
+		}
+	}
+
+	private void parseComment(String line) {
+		final PoEntry current = startComment();
+		final char kind = line.length() > 1 ? line.charAt( 1 ) : ' ';
+		switch ( kind ) {
+			case '.':
+				current.getExtractedComments().add( line.substring( 2 ).trim() );
+				break;
+			case ':':
+				current.getReferences().add( line.substring( 2 ).trim() );
+				break;
+			case ',':
+				for ( String flag : line.substring( 2 ).split( "," ) ) {
+					flag = flag.trim();
+					if ( flag.length() > 0 && !current.getFlags().contains( flag ) ) {
+						current.getFlags().add( flag );
+					}
+				}
+				break;
+			case '|':
+				current.getPrevious().add( line.substring( 2 ).trim() );
+				break;
+			default:
+				current.getTranslatorComments().add( line.length() > 1 && line.charAt( 1 ) == ' ' ? line.substring( 2 ) : line.substring( 1 ) );
+		}
+	}
+
+	private PoEntry startComment() {
+		// comments following a message belong to the next one
+		if ( seenMsgstr ) {
+			finishEntry();
+		}
+		finishField();
+		if ( entry == null ) {
+			entry = new PoEntry();
+		}
+		return entry;
+	}
+
+	private void startKeyword(int newField, int index, boolean obsolete) throws IOException {
+		if ( seenMsgstr && newField != MSGSTR ) {
+			finishEntry();
+		}
+		finishField();
+		if ( entry == null ) {
+			entry = new PoEntry();
+		}
+		if ( obsolete ) {
+			entry.setObsolete( true );
+		}
+		if ( newField == MSGSTR ) {
+			seenMsgstr = true;
+		}
+		field = newField;
+		pluralIndex = index;
+		value = new StringBuilder();
+	}
+
+	private void finishField() {
+		if ( field == NONE ) {
+			return;
+		}
+		final String text = value.toString();
+		switch ( field ) {
+			case MSGCTXT:
+				entry.setMsgctxt( text );
+				break;
+			case MSGID:
+				entry.setMsgid( text );
+				break;
+			case MSGID_PLURAL:
+				entry.setMsgidPlural( text );
+				break;
+			default:
+				entry.setMsgstr( pluralIndex, text );
+		}
+		field = NONE;
+		value = null;
+	}
+
+	private void finishEntry() {
+		finishField();
+		if ( entry != null && seenMsgstr ) {
+			handler.handleEntry( entry );
+			entry = null;
+		}
+		seenMsgstr = false;
+	}
+
+	private String unquote(String quoted) throws IOException {
+		if ( quoted.length() < 2 || quoted.charAt( 0 ) != '"' || quoted.charAt( quoted.length() - 1 ) != '"' ) {
+			throw error( "Malformed string" );
+		}
+		return unescape( quoted.substring( 1, quoted.length() - 1 ) );
+	}
+
+	private String unescape(String text) throws IOException {
+		if ( text.indexOf( '\\' ) < 0 ) {
+			return text;
+		}
+		final StringBuilder buffer = new StringBuilder( text.length() );
+		for ( int i = 0; i < text.length(); i++ ) {
+			final char c = text.charAt( i );
+			if ( c != '\\' ) {
+				buffer.append( c );
+				continue;
+			}
+			if ( ++i == text.length() ) {
+				throw error( "Dangling escape" );
+			}
+			final char escaped = text.charAt( i );
+			switch ( escaped ) {
+				case 'n':
+					buffer.append( '\n' );
+					break;
+				case 't':
+					buffer.append( '\t' );
+					break;
+				case 'r':
+					buffer.append( '\r' );
+					break;
+				case 'a':
+					buffer.append( '\u0007' );
+					break;
+				case 'b':
+					buffer.append( '\b' );
+					break;
+				case 'f':
+					buffer.append( '\f' );
+					break;
+				case 'v':
+					buffer.append( '\u000B' );
+					break;
+				case '0': case '1': case '2': case '3': case '4': case '5': case '6': case '7': {
+					int end = i;
+					while ( end < text.length() && end < i + 3 && text.charAt( end ) >= '0' && text.charAt( end ) <= '7' ) {
+						end++;
+					}
+					buffer.append( (char) Integer.parseInt( text.substring( i, end ), 8 ) );
+					i = end - 1;
+					break;
+				}
+				default:
+					buffer.append( escaped );
+			}
+		}
+		return buffer.toString();
+	}
+
+	private IOException error(String message) {
+		return new IOException( message + " at " + name + ':' + lineNumber );
+	}
+}
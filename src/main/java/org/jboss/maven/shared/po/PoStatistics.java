@@ -0,0 +1,121 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The translated, fuzzy and untranslated message counts of PO files, as <tt>msgfmt --statistics</tt> reports them.
+ * The header and obsolete entries are not counted.
+ */
+public class PoStatistics {
+	private int translated;
+	private int fuzzy;
+	private int untranslated;
+
+	public PoStatistics() {
+	}
+
+	public PoStatistics(int translated, int fuzzy, int untranslated) {
+		this.translated = translated;
+		this.fuzzy = fuzzy;
+		this.untranslated = untranslated;
+	}
+
+	/**
+	 * Count the messages of the given PO (or POT) file, in a single streaming pass.
+	 *
+	 * @param poFile The PO file.
+	 *
+	 * @return The statistics.
+	 *
+	 * @throws IOException Indicates a problem reading or parsing the file.
+	 */
+	public static PoStatistics compute(File poFile) throws IOException {
+		final PoStatistics statistics = new PoStatistics();
+		PoParser.parse(
+				poFile,
+				new PoParser.Handler() {
+					public void handleEntry(PoEntry entry) {
+						if ( entry.isHeader() || entry.isObsolete() ) {
+							return;
+						}
+						if ( !entry.isTranslated() ) {
+							statistics.untranslated++;
+						}
+						else if ( entry.isFuzzy() ) {
+							statistics.fuzzy++;
+						}
+						else {
+							statistics.translated++;
+						}
+					}
+				}
+		);
+		return statistics;
+	}
+
+	/**
+	 * Add the counts of other statistics to these.
+	 *
+	 * @param other The statistics to add.
+	 */
+	public void add(PoStatistics other) {
+		translated += other.translated;
+		fuzzy += other.fuzzy;
+		untranslated += other.untranslated;
+	}
+
+	public int getTranslated() {
+		return translated;
+	}
+
+	public int getFuzzy() {
+		return fuzzy;
+	}
+
+	public int getUntranslated() {
+		return untranslated;
+	}
+
+	public int getTotal() {
+		return translated + fuzzy + untranslated;
+	}
+
+	/**
+	 * The percentage of translated (non fuzzy) messages; 100 when there are no messages at all.
+	 *
+	 * @return The coverage, between 0 and 100.
+	 */
+	public double getCoverage() {
+		final int total = getTotal();
+		return total == 0 ? 100 : translated * 100.0 / total;
+	}
+
+	@Override
+	public String toString() {
+		return translated + " translated, " + fuzzy + " fuzzy, " + untranslated + " untranslated messages";
+	}
+}
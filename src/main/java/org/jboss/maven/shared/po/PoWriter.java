@@ -0,0 +1,442 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.jboss.maven.shared.digest.DigestHelper;
+
+/**
+ * Writes PO and POT files the way the gettext tools do: same entry layout, same escaping and the same wrapping of
+ * long strings and reference comments at 79 columns.
+ */
+public class PoWriter {
+	public static final int PAGE_WIDTH = 79;
+
+	// the line breaking classes (UAX #14) which matter here
+	private static final int AL = 0;
+	private static final int ID = 1;
+	private static final int OP = 2;
+	private static final int CL = 3;
+	private static final int CP = 4;
+	private static final int QU = 5;
+	private static final int NS = 6;
+	private static final int EX = 7;
+	private static final int SY = 8;
+	private static final int IS = 9;
+	private static final int PR = 10;
+	private static final int PO = 11;
+	private static final int NU = 12;
+	private static final int HY = 13;
+	private static final int BA = 14;
+
+	private PoWriter() {
+	}
+
+	/**
+	 * Render the given entries.
+	 *
+	 * @param entries The entries, the header (if any) first.
+	 *
+	 * @return The file content.
+	 */
+	public static String render(List<PoEntry> entries) {
+		final StringBuilder out = new StringBuilder();
+		boolean first = true;
+		for ( PoEntry entry : entries ) {
+			if ( !first ) {
+				out.append( '\n' );
+			}
+			first = false;
+			writeEntry( entry, out );
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Write the given entries to the given file, unless it already has exactly that content.
+	 *
+	 * @param entries The entries, the header (if any) first.
+	 * @param file The file to write.
+	 *
+	 * @return True if the file was written.
+	 *
+	 * @throws IOException Indicates a problem writing the file.
+	 */
+	public static boolean write(List<PoEntry> entries, File file) throws IOException {
+		final byte[] content = render( entries ).getBytes( "UTF-8" );
+		if ( DigestHelper.hasContent( file, content ) ) {
+			return false;
+		}
+		if ( file.getParentFile() != null ) {
+			file.getParentFile().mkdirs();
+		}
+		final OutputStream out = new FileOutputStream( file );
+		try {
+			out.write( content );
+		}
+		finally {
+			IOUtil.close( out );
+		}
+		return true;
+	}
+
+	private static void writeEntry(PoEntry entry, StringBuilder out) {
+		for ( String comment : entry.getTranslatorComments() ) {
+			out.append( comment.length() == 0 ? "#" : "# " + comment ).append( '\n' );
+		}
+		if ( !entry.isObsolete() ) {
+			for ( String comment : entry.getExtractedComments() ) {
+				out.append( comment.length() == 0 ? "#." : "#. " + comment ).append( '\n' );
+			}
+			writeReferences( entry.getReferences(), out );
+		}
+		if ( !entry.getFlags().isEmpty() ) {
+			out.append( "#" );
+			for ( String flag : entry.getFlags() ) {
+				out.append( ", " ).append( flag );
+			}
+			out.append( '\n' );
+		}
+		final String prefix = entry.isObsolete() ? "#~ " : "";
+		for ( String previous : entry.getPrevious() ) {
+			out.append( entry.isObsolete() ? "#~| " : "#| " ).append( previous ).append( '\n' );
+		}
+		if ( entry.getMsgctxt() != null ) {
+			writeString( prefix, "msgctxt", entry.getMsgctxt(), out );
+		}
+		writeString( prefix, "msgid", entry.getMsgid(), out );
+		if ( entry.getMsgidPlural() != null ) {
+			writeString( prefix, "msgid_plural", entry.getMsgidPlural(), out );
+			final int forms = Math.max( 1, entry.getMsgstr().size() );
+			for ( int i = 0; i < forms; i++ ) {
+				writeString( prefix, "msgstr[" + i + "]", entry.getMsgstr( i ), out );
+			}
+		}
+		else {
+			writeString( prefix, "msgstr", entry.getMsgstr( 0 ), out );
+		}
+	}
+
+	private static void writeReferences(List<String> referenceLines, StringBuilder out) {
+		final StringBuilder line = new StringBuilder( "#:" );
+		for ( String referenceLine : referenceLines ) {
+			for ( String reference : referenceLine.split( "\\s+" ) ) {
+				if ( reference.length() == 0 ) {
+					continue;
+				}
+				if ( line.length() > 2 && line.length() + 1 + reference.length() > PAGE_WIDTH ) {
+					out.append( line ).append( '\n' );
+					line.setLength( 2 );
+				}
+				line.append( ' ' ).append( reference );
+			}
+		}
+		if ( line.length() > 2 ) {
+			out.append( line ).append( '\n' );
+		}
+	}
+
+	private static void writeString(String prefix, String keyword, String value, StringBuilder out) {
+		final List<String> portions = splitPortions( value );
+		final String head = prefix + keyword + ' ';
+		if ( portions.size() == 1 ) {
+			final List<String> lines = wrap( portions.get( 0 ), head.length() + 1, prefix.length() + 1 );
+			if ( lines.size() == 1 ) {
+				out.append( head ).append( '"' ).append( lines.get( 0 ) ).append( "\"\n" );
+				return;
+			}
+		}
+		out.append( head ).append( "\"\"\n" );
+		for ( String portion : portions ) {
+			for ( String line : wrap( portion, prefix.length() + 1, prefix.length() + 1 ) ) {
+				out.append( prefix ).append( '"' ).append( line ).append( "\"\n" );
+			}
+		}
+	}
+
+	/**
+	 * Split the value after each newline; each portion starts on a line of its own.
+	 */
+	private static List<String> splitPortions(String value) {
+		final List<String> portions = new ArrayList<String>();
+		int start = 0;
+		for ( int i = 0; i < value.length(); i++ ) {
+			if ( value.charAt( i ) == '\n' ) {
+				portions.add( value.substring( start, i + 1 ) );
+				start = i + 1;
+			}
+		}
+		if ( start < value.length() || portions.isEmpty() ) {
+			portions.add( value.substring( start ) );
+		}
+		return portions;
+	}
+
+	/**
+	 * Escape the portion and break it into lines fitting the page width (quotes included), breaking only where
+	 * the Unicode line breaking rules gettext applies allow to.  Each returned line is escaped already.
+	 */
+	private static List<String> wrap(String portion, int startColumn, int continuationColumn) {
+		final int length = portion.length();
+		final String[] units = new String[length];
+		final int[] widths = new int[length];
+		final boolean[] breakBefore = new boolean[length];
+		int count = 0;
+		for ( int i = 0; i < length; i++ ) {
+			final char c = portion.charAt( i );
+			final String escaped = escape( c );
+			if ( escaped != null ) {
+				units[count] = escaped;
+				widths[count] = escaped.length();
+			}
+			else if ( Character.isHighSurrogate( c ) && i + 1 < length ) {
+				units[count] = portion.substring( i, i + 2 );
+				widths[count] = isWide( portion.codePointAt( i ) ) ? 2 : 1;
+				i++;
+			}
+			else {
+				units[count] = String.valueOf( c );
+				widths[count] = isWide( c ) ? 2 : 1;
+			}
+			if ( count > 0 ) {
+				breakBefore[count] = isBreakOpportunity( units, count );
+			}
+			count++;
+		}
+
+		final List<String> lines = new ArrayList<String>();
+		final int maxColumn = PAGE_WIDTH - 1;
+		int lineStart = 0;
+		int lastBreak = -1;
+		int column = startColumn;
+		for ( int i = 0; i < count; i++ ) {
+			if ( i > lineStart && breakBefore[i] ) {
+				lastBreak = i;
+			}
+			column += widths[i];
+			if ( column > maxColumn && lastBreak > lineStart ) {
+				lines.add( join( units, lineStart, lastBreak ) );
+				lineStart = lastBreak;
+				lastBreak = -1;
+				column = continuationColumn;
+				for ( int j = lineStart; j <= i; j++ ) {
+					if ( j > lineStart && breakBefore[j] ) {
+						lastBreak = j;
+					}
+					column += widths[j];
+				}
+			}
+		}
+		lines.add( join( units, lineStart, count ) );
+		return lines;
+	}
+
+	private static String join(String[] units, int start, int end) {
+		final StringBuilder line = new StringBuilder();
+		for ( int i = start; i < end; i++ ) {
+			line.append( units[i] );
+		}
+		return line.toString();
+	}
+
+	private static String escape(char c) {
+		switch ( c ) {
+			case '\\':
+				return "\\\\";
+			case '"':
+				return "\\\"";
+			case '\n':
+				return "\\n";
+			case '\t':
+				return "\\t";
+			case '\r':
+				return "\\r";
+			case '\u0007':
+				return "\\a";
+			case '\b':
+				return "\\b";
+			case '\f':
+				return "\\f";
+			case '\u000B':
+				return "\\v";
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Is there a break opportunity before the given unit?  These are the Unicode line breaking rules (UAX #14) as
+	 * gettext applies them, to the escaped string: no break within an escape sequence (a unit here), nor before the
+	 * newline ending a portion.
+	 */
+	private static boolean isBreakOpportunity(String[] units, int index) {
+		final String current = units[index];
+		if ( isSpace( current ) || current.equals( "\\n" ) ) {
+			return false;
+		}
+		final int after = lineBreakClass( current, true );
+		if ( isSpace( units[index - 1] ) ) {
+			int previous = index - 1;
+			while ( previous > 0 && isSpace( units[previous] ) ) {
+				previous--;
+			}
+			if ( isSpace( units[previous] ) ) {
+				return true;
+			}
+			// break after spaces, unless they follow an opening punctuation (and the like)
+			final int before = lineBreakClass( units[previous], false );
+			return !( before == OP
+					|| ( before == QU && after == OP )
+					|| ( ( before == CL || before == CP ) && after == NS ) );
+		}
+		final int before = lineBreakClass( units[index - 1], false );
+		switch ( after ) {
+			case CL: case CP: case EX: case IS: case SY: case QU: case BA: case HY: case NS:
+				return false;
+			default:
+		}
+		switch ( before ) {
+			case OP: case QU:
+				return false;
+			case HY:
+				// but not after a word-initial hyphen, as in command line options
+				return after != NU && !( after == AL && ( index < 2 || isSpace( units[index - 2] ) ) );
+			case AL:
+				return after == ID;
+			case NU:
+				return after != AL && after != NU && after != PR && after != PO && after != OP;
+			case PR:
+				return after != AL && after != NU && after != ID && after != OP;
+			case PO:
+				return after != AL && after != NU && after != OP;
+			case ID:
+				return after != PO;
+			case IS:
+				return after != AL && after != NU;
+			case SY:
+				return after != NU;
+			case CL:
+				return after != PR && after != PO;
+			case CP:
+				return after != PR && after != PO && after != AL && after != NU;
+			default:
+				return true;
+		}
+	}
+
+	private static boolean isSpace(String unit) {
+		return unit.length() == 1 && unit.charAt( 0 ) == ' ';
+	}
+
+	/**
+	 * The line breaking class of a unit, as seen from the unit before it (first) or after it.  An escape sequence
+	 * starts with a backslash and ends with the escaped character.
+	 */
+	private static int lineBreakClass(String unit, boolean first) {
+		if ( Character.isHighSurrogate( unit.charAt( 0 ) ) ) {
+			return isWide( unit.codePointAt( 0 ) ) ? ID : AL;
+		}
+		final char c = first ? unit.charAt( 0 ) : unit.charAt( unit.length() - 1 );
+		if ( c >= '0' && c <= '9' ) {
+			return NU;
+		}
+		switch ( c ) {
+			case '!': case '?':
+				return EX;
+			case '"': case '\'':
+				return QU;
+			case '$': case '+': case '\\':
+				return PR;
+			case '%':
+				return PO;
+			case '(': case '[': case '{':
+				return OP;
+			case ')': case ']':
+				return CP;
+			case '}':
+				return CL;
+			case ',': case '.': case ':': case ';':
+				return IS;
+			case '-':
+				return HY;
+			case '/':
+				return SY;
+			case '|':
+				return BA;
+			default:
+		}
+		if ( c < 0x80 ) {
+			return AL;
+		}
+		if ( isClosing( c ) ) {
+			return CL;
+		}
+		if ( isOpening( c ) ) {
+			return OP;
+		}
+		if ( isNonStarter( c ) ) {
+			return NS;
+		}
+		return isIdeographic( c ) ? ID : AL;
+	}
+
+	private static boolean isIdeographic(char c) {
+		return ( c >= '\u2E80' && c <= '\u2FFF' )
+				|| ( c >= '\u3040' && c <= '\u30FF' )
+				|| ( c >= '\u3400' && c <= '\u4DBF' )
+				|| ( c >= '\u4E00' && c <= '\u9FFF' )
+				|| ( c >= '\uF900' && c <= '\uFAFF' )
+				|| ( c >= '\uFF01' && c <= '\uFF60' );
+	}
+
+	private static boolean isClosing(char c) {
+		return "\u3001\u3002\uFF0C\uFF0E\uFF09\u300D\u300F\u3011\u3015\u3009\u300B\uFF5D\uFF3D\uFF1A\uFF1B\uFF01\uFF1F".indexOf( c ) >= 0;
+	}
+
+	private static boolean isOpening(char c) {
+		return "\uFF08\u300C\u300E\u3010\u3014\u3008\u300A\uFF5B\uFF3B".indexOf( c ) >= 0;
+	}
+
+	private static boolean isNonStarter(char c) {
+		return "\u3041\u3043\u3045\u3047\u3049\u3063\u3083\u3085\u3087\u308E\u30A1\u30A3\u30A5\u30A7\u30A9\u30C3\u30E3\u30E5\u30E7\u30EE\u30F5\u30F6\u30FC\u309D\u309E\u30FD\u30FE\u3005".indexOf( c ) >= 0;
+	}
+
+	private static boolean isWide(int codePoint) {
+		return ( codePoint >= 0x1100 && codePoint <= 0x115F )
+				|| ( codePoint >= 0x2E80 && codePoint <= 0xA4CF && codePoint != 0x303F )
+				|| ( codePoint >= 0xAC00 && codePoint <= 0xD7A3 )
+				|| ( codePoint >= 0xF900 && codePoint <= 0xFAFF )
+				|| ( codePoint >= 0xFE30 && codePoint <= 0xFE4F )
+				|| ( codePoint >= 0xFF00 && codePoint <= 0xFF60 )
+				|| ( codePoint >= 0xFFE0 && codePoint <= 0xFFE6 )
+				|| ( codePoint >= 0x20000 && codePoint <= 0x3FFFD );
+	}
+}
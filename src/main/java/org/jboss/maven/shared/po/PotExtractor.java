@@ -0,0 +1,116 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The in-JVM counterpart of <tt>xml2pot</tt>: extracts the messages of a DocBook document into a POT.
+ */
+public class PotExtractor {
+	public static final String POT_CREATION_DATE = "POT-Creation-Date";
+
+	private static final String HEADER = "Project-Id-Version: PACKAGE VERSION\n"
+			+ "Report-Msgid-Bugs-To: http://bugs.kde.org\n"
+			+ POT_CREATION_DATE + ": %s\n"
+			+ "PO-Revision-Date: YEAR-MO-DA HO:MI+ZONE\n"
+			+ "Last-Translator: FULL NAME <EMAIL@ADDRESS>\n"
+			+ "Language-Team: LANGUAGE <kde-i18n-doc@kde.org>\n"
+			+ "MIME-Version: 1.0\n"
+			+ "Content-Type: application/x-xml2pot; charset=UTF-8\n"
+			+ "Content-Transfer-Encoding: 8bit\n";
+
+	private PotExtractor() {
+	}
+
+	/**
+	 * Extract the POT entries of the given document.
+	 *
+	 * @param document The DocBook document.
+	 * @param referenceName The name used for the document in <tt>#:</tt> references.
+	 * @param creationDate The POT creation date to record in the header.
+	 *
+	 * @return The entries, header first.
+	 *
+	 * @throws IOException Indicates a problem reading or parsing the document.
+	 */
+	public static List<PoEntry> extract(File document, final String referenceName, String creationDate)
+			throws IOException {
+		final List<PoEntry> entries = new ArrayList<PoEntry>();
+		entries.add( createHeader( creationDate ) );
+		final Map<String,PoEntry> entriesByMsgid = new HashMap<String,PoEntry>();
+		DocBookSegmenter.segment(
+				document.getPath(),
+				XmlTokenizer.read( document ),
+				new DocBookSegmenter.Handler() {
+					public void handleSegment(DocBookSegmenter.Segment segment) {
+						final String tagComment = "Tag: " + segment.getTag();
+						final String reference = referenceName + ':' + segment.getLine();
+						PoEntry entry = entriesByMsgid.get( segment.getMessage() );
+						if ( entry == null ) {
+							entry = new PoEntry();
+							entry.getFlags().add( "no-c-format" );
+							entry.setMsgid( segment.getMessage() );
+							entry.setMsgstr( 0, "" );
+							entriesByMsgid.put( segment.getMessage(), entry );
+							entries.add( entry );
+						}
+						if ( !entry.getExtractedComments().contains( tagComment ) ) {
+							entry.getExtractedComments().add( tagComment );
+						}
+						entry.getReferences().add( reference );
+					}
+				}
+		);
+		return entries;
+	}
+
+	public static PoEntry createHeader(String creationDate) {
+		final PoEntry header = new PoEntry();
+		header.getTranslatorComments().add( "SOME DESCRIPTIVE TITLE." );
+		header.getTranslatorComments().add( "FIRST AUTHOR <EMAIL@ADDRESS>, YEAR." );
+		header.getTranslatorComments().add( "" );
+		header.setFuzzy( true );
+		header.setMsgstr( 0, String.format( HEADER, creationDate ) );
+		return header;
+	}
+
+	/**
+	 * Format a POT creation date.
+	 *
+	 * @param date The date.
+	 *
+	 * @return The formatted date.
+	 */
+	public static String formatCreationDate(Date date) {
+		return new SimpleDateFormat( "yyyy-MM-dd HH:mmZ" ).format( date );
+	}
+}
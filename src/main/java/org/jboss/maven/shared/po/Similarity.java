@@ -0,0 +1,128 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * String similarity as computed by gettext's <tt>fstrcmp</tt>: twice the length of the longest common subsequence
+ * divided by the total length of both strings.  The longest common subsequence is computed bit-parallel, and
+ * cheap upper bounds reject most candidates before that.
+ */
+public class Similarity {
+	private final String pattern;
+	private final int words;
+	private final Map<Character,long[]> positions = new HashMap<Character,long[]>();
+	private final Map<Character,Integer> histogram = new HashMap<Character,Integer>();
+
+	/**
+	 * Prepares comparing the given string with others.
+	 *
+	 * @param pattern The string to compare others with.
+	 */
+	public Similarity(String pattern) {
+		this.pattern = pattern;
+		this.words = ( pattern.length() + 63 ) / 64;
+		for ( int i = 0; i < pattern.length(); i++ ) {
+			final Character c = pattern.charAt( i );
+			long[] bits = positions.get( c );
+			if ( bits == null ) {
+				bits = new long[words];
+				positions.put( c, bits );
+			}
+			bits[i / 64] |= 1L << ( i % 64 );
+			final Integer count = histogram.get( c );
+			histogram.put( c, count == null ? 1 : count + 1 );
+		}
+	}
+
+	/**
+	 * Compute the similarity with the given string.
+	 *
+	 * @param other The string to compare with.
+	 * @param lowerBound Similarities below this bound need not be computed exactly.
+	 *
+	 * @return The similarity, between 0 and 1; 0 for anything found below the lower bound.
+	 */
+	public double compute(String other, double lowerBound) {
+		final int total = pattern.length() + other.length();
+		if ( total == 0 ) {
+			return 1;
+		}
+		if ( 2.0 * Math.min( pattern.length(), other.length() ) / total < lowerBound ) {
+			return 0;
+		}
+		if ( 2.0 * commonCharacters( other ) / total < lowerBound ) {
+			return 0;
+		}
+		return 2.0 * longestCommonSubsequence( other ) / total;
+	}
+
+	private int commonCharacters(String other) {
+		final Map<Character,Integer> remaining = new HashMap<Character,Integer>( histogram );
+		int common = 0;
+		for ( int i = 0; i < other.length(); i++ ) {
+			final Character c = other.charAt( i );
+			final Integer count = remaining.get( c );
+			if ( count != null && count > 0 ) {
+				remaining.put( c, count - 1 );
+				common++;
+			}
+		}
+		return common;
+	}
+
+	private int longestCommonSubsequence(String other) {
+		if ( words == 0 ) {
+			return 0;
+		}
+		final long[] v = new long[words];
+		for ( int w = 0; w < words; w++ ) {
+			v[w] = -1L;
+		}
+		final long[] none = new long[words];
+		for ( int i = 0; i < other.length(); i++ ) {
+			long[] m = positions.get( other.charAt( i ) );
+			if ( m == null ) {
+				m = none;
+			}
+			long carry = 0;
+			for ( int w = 0; w < words; w++ ) {
+				final long a = v[w];
+				final long b = a & m[w];
+				final long sum = a + b + carry;
+				carry = ( ( a & b ) | ( ( a | b ) & ~sum ) ) >>> 63;
+				v[w] = sum | ( a & ~m[w] );
+			}
+		}
+		int zeros = 0;
+		for ( int i = 0; i < pattern.length(); i++ ) {
+			if ( ( v[i / 64] & ( 1L << ( i % 64 ) ) ) == 0 ) {
+				zeros++;
+			}
+		}
+		return zeros;
+	}
+}
@@ -0,0 +1,472 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.jboss.maven.shared.digest.DigestHelper;
+
+/**
+ * A translation memory: the translations of all the PO files of a language, looked up by (whitespace normalized)
+ * msgid.  It is kept in a compact file under the work directory, memory-mapped for lookups and only re-reading the PO
+ * files which changed when updated.
+ * <p/>
+ * A mapped file cannot be replaced on every platform (nor is there a way to unmap it), so each update writes a new
+ * generation of the file (<tt>name.1</tt>, <tt>name.2</tt>, ...) instead, the latest one being current.  Older
+ * generations are deleted once that succeeds.
+ * <p/>
+ * The file starts with a header (magic, version, table position and size) followed by the PO files it was built from
+ * (name and digest), the translations (PO file, msgid, msgstr) and finally an open addressing hash table of
+ * (msgid hash, translation position) slots.
+ */
+public class TranslationMemory {
+	private static final int MAGIC = 0x6A44544D;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 20;
+	private static final int SLOT_SIZE = 12;
+	private static final int EMPTY = -1;
+
+	private final ByteBuffer buffer;
+	private final int tableOffset;
+	private final int tableSize;
+	private final int size;
+	private final String fingerprint;
+
+	private TranslationMemory(ByteBuffer buffer, int tableOffset, int tableSize, int size, String fingerprint) {
+		this.buffer = buffer;
+		this.tableOffset = tableOffset;
+		this.tableSize = tableSize;
+		this.size = size;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Bring the memory stored in the given file in line with the given PO files and open it.  Only the PO files which
+	 * changed since the memory was last updated are parsed.
+	 *
+	 * @param memoryFile The memory file, which is kept as generations of that name.
+	 * @param poFiles The PO files of the language, keyed by a stable name (their relative path, say).  Missing files are
+	 * ignored.
+	 *
+	 * @return The memory.
+	 *
+	 * @throws IOException Indicates a problem reading a PO file or writing the memory.
+	 */
+	public static TranslationMemory update(File memoryFile, Map<String,File> poFiles) throws IOException {
+		File current = getCurrentGeneration( memoryFile );
+		final Contents previous = current == null ? null : Contents.read( current );
+		final Contents contents = new Contents();
+		boolean changed = previous == null || !previous.origins.keySet().equals( present( poFiles ) );
+		for ( Map.Entry<String,File> poFile : new TreeMap<String,File>( poFiles ).entrySet() ) {
+			if ( !poFile.getValue().exists() ) {
+				continue;
+			}
+			final String origin = poFile.getKey();
+			final String digest = DigestHelper.digest( poFile.getValue() );
+			contents.origins.put( origin, digest );
+			if ( previous != null && digest.equals( previous.origins.get( origin ) ) ) {
+				contents.add( origin, previous.translations.get( origin ) );
+			}
+			else {
+				contents.add( origin, collectTranslations( poFile.getValue() ) );
+				changed = true;
+			}
+		}
+		if ( changed ) {
+			current = new File(
+					memoryFile.getParentFile(),
+					memoryFile.getName() + '.' + ( current == null ? 1 : getGeneration( memoryFile, current ) + 1 )
+			);
+			contents.write( current );
+		}
+		deleteOtherGenerations( memoryFile, current );
+		return open( current );
+	}
+
+	/**
+	 * The latest generation of the given memory file.
+	 *
+	 * @param memoryFile The memory file.
+	 *
+	 * @return The latest generation, or null if there is none.
+	 */
+	public static File getCurrentGeneration(File memoryFile) {
+		File current = null;
+		long currentGeneration = 0;
+		final File[] files = memoryFile.getParentFile().listFiles();
+		if ( files != null ) {
+			for ( File file : files ) {
+				final long generation = getGeneration( memoryFile, file );
+				if ( generation > currentGeneration ) {
+					current = file;
+					currentGeneration = generation;
+				}
+			}
+		}
+		return current;
+	}
+
+	private static long getGeneration(File memoryFile, File file) {
+		final String prefix = memoryFile.getName() + '.';
+		if ( !file.getName().startsWith( prefix ) ) {
+			return -1;
+		}
+		try {
+			return Long.parseLong( file.getName().substring( prefix.length() ) );
+		}
+		catch ( NumberFormatException e ) {
+			return -1;
+		}
+	}
+
+	private static void deleteOtherGenerations(File memoryFile, File current) {
+		final File[] files = memoryFile.getParentFile().listFiles();
+		if ( files == null ) {
+			return;
+		}
+		for ( File file : files ) {
+			if ( !file.equals( current ) && ( file.equals( memoryFile ) || getGeneration( memoryFile, file ) > 0 ) ) {
+				// fails while still mapped (on Windows); left for the next update then
+				file.delete();
+			}
+		}
+	}
+
+	private static Set<String> present(Map<String,File> poFiles) {
+		final Set<String> present = new HashSet<String>();
+		for ( Map.Entry<String,File> poFile : poFiles.entrySet() ) {
+			if ( poFile.getValue().exists() ) {
+				present.add( poFile.getKey() );
+			}
+		}
+		return present;
+	}
+
+	private static List<String[]> collectTranslations(File poFile) throws IOException {
+		final List<String[]> translations = new ArrayList<String[]>();
+		PoParser.parse(
+				poFile,
+				new PoParser.Handler() {
+					public void handleEntry(PoEntry entry) {
+						if ( entry.isHeader() || entry.isObsolete() || entry.isFuzzy() || entry.getMsgidPlural() != null ) {
+							return;
+						}
+						final String translation = entry.getMsgstr( 0 );
+						if ( translation.length() > 0 ) {
+							translations.add( new String[] { entry.getMsgid(), translation } );
+						}
+					}
+				}
+		);
+		return translations;
+	}
+
+	/**
+	 * Open the memory stored in the given file.
+	 *
+	 * @param memoryFile The memory file.
+	 *
+	 * @return The memory.
+	 *
+	 * @throws IOException Indicates a problem reading the file, or that it is not a translation memory.
+	 */
+	public static TranslationMemory open(File memoryFile) throws IOException {
+		final RandomAccessFile file = new RandomAccessFile( memoryFile, "r" );
+		final MappedByteBuffer buffer;
+		try {
+			// the mapping stays valid once the file is closed
+			buffer = file.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, file.length() );
+		}
+		finally {
+			file.close();
+		}
+		if ( buffer.limit() < HEADER_SIZE || buffer.getInt( 0 ) != MAGIC || buffer.getInt( 4 ) != VERSION ) {
+			throw new IOException( "Not a translation memory : " + memoryFile );
+		}
+		final int tableOffset = buffer.getInt( 8 );
+		final int tableSize = buffer.getInt( 12 );
+		final int size = buffer.getInt( 16 );
+		// the origins, to fingerprint the memory
+		final StringBuilder origins = new StringBuilder();
+		int position = HEADER_SIZE;
+		final int originCount = buffer.getInt( position );
+		position += 4;
+		for ( int i = 0; i < originCount * 2; i++ ) {
+			final int length = buffer.getInt( position );
+			origins.append( decode( buffer, position + 4, length ) ).append( '\n' );
+			position += 4 + length;
+		}
+		return new TranslationMemory(
+				buffer,
+				tableOffset,
+				tableSize,
+				size,
+				DigestHelper.digest( origins.toString().getBytes( "UTF-8" ) )
+		);
+	}
+
+	/**
+	 * Look up the translation of a message.
+	 *
+	 * @param msgid The message.
+	 *
+	 * @return The translation of the same message (whitespace aside) in one of the PO files, or null.
+	 */
+	public String lookup(String msgid) {
+		if ( tableSize == 0 ) {
+			return null;
+		}
+		final String normalized = DocBookSegmenter.normalize( msgid );
+		final long hash = hash( normalized );
+		final ByteBuffer view = buffer.duplicate();
+		int slot = slot( hash, tableSize );
+		while ( true ) {
+			final int slotOffset = tableOffset + slot * SLOT_SIZE;
+			final int offset = view.getInt( slotOffset + 8 );
+			if ( offset == EMPTY ) {
+				return null;
+			}
+			if ( view.getLong( slotOffset ) == hash ) {
+				// skip the origin index
+				int position = offset + 4;
+				final int msgidLength = view.getInt( position );
+				final String candidate = decode( view, position + 4, msgidLength );
+				position += 4 + msgidLength;
+				if ( normalized.equals( DocBookSegmenter.normalize( candidate ) ) ) {
+					return decode( view, position + 4, view.getInt( position ) );
+				}
+			}
+			slot = ( slot + 1 ) % tableSize;
+		}
+	}
+
+	/**
+	 * The number of distinct messages in the memory.
+	 *
+	 * @return The size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * A fingerprint of the memory contents, changing whenever one of its PO files does.
+	 *
+	 * @return The fingerprint.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	private static long hash(String normalized) {
+		// FNV-1a, 64 bits
+		long hash = 0xcbf29ce484222325L;
+		for ( int i = 0; i < normalized.length(); i++ ) {
+			hash ^= normalized.charAt( i );
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	private static int slot(long hash, int tableSize) {
+		return (int) ( ( hash & Long.MAX_VALUE ) % tableSize );
+	}
+
+	private static String decode(ByteBuffer buffer, int offset, int length) {
+		final byte[] bytes = new byte[length];
+		final ByteBuffer view = buffer.duplicate();
+		view.position( offset );
+		view.get( bytes );
+		try {
+			return new String( bytes, "UTF-8" );
+		}
+		catch ( UnsupportedEncodingException e ) {
+			throw new IllegalStateException( e );
+		}
+	}
+
+	/**
+	 * The (PO file, digest) and per PO file translations of a memory, as read from or about to be written to its file.
+	 */
+	private static class Contents {
+		private final Map<String,String> origins = new TreeMap<String,String>();
+		private final Map<String,List<String[]>> translations = new HashMap<String,List<String[]>>();
+
+		private void add(String origin, List<String[]> originTranslations) {
+			translations.put( origin, originTranslations );
+		}
+
+		/**
+		 * Read the contents of the given memory file, sequentially.
+		 *
+		 * @return The contents, or null if there is no (usable) memory file.
+		 */
+		private static Contents read(File memoryFile) {
+			if ( !memoryFile.exists() ) {
+				return null;
+			}
+			DataInputStream in = null;
+			try {
+				in = new DataInputStream( new BufferedInputStream( new FileInputStream( memoryFile ) ) );
+				if ( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+					return null;
+				}
+				in.readInt();
+				in.readInt();
+				in.readInt();
+				final Contents contents = new Contents();
+				final List<String> origins = new ArrayList<String>();
+				final int originCount = in.readInt();
+				for ( int i = 0; i < originCount; i++ ) {
+					final String origin = readString( in );
+					origins.add( origin );
+					contents.origins.put( origin, readString( in ) );
+					contents.translations.put( origin, new ArrayList<String[]>() );
+				}
+				final int count = in.readInt();
+				for ( int i = 0; i < count; i++ ) {
+					final String origin = origins.get( in.readInt() );
+					contents.translations.get( origin ).add( new String[] { readString( in ), readString( in ) } );
+				}
+				return contents;
+			}
+			catch ( IOException e ) {
+				// rebuilt from scratch
+				return null;
+			}
+			catch ( RuntimeException e ) {
+				return null;
+			}
+			finally {
+				IOUtil.close( in );
+			}
+		}
+
+		private void write(File memoryFile) throws IOException {
+			final List<String> originNames = new ArrayList<String>( origins.keySet() );
+			int count = 0;
+			for ( String origin : originNames ) {
+				count += translations.get( origin ).size();
+			}
+
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final DataOutputStream body = new DataOutputStream( bytes );
+			body.writeInt( originNames.size() );
+			for ( String origin : originNames ) {
+				writeString( body, origin );
+				writeString( body, origins.get( origin ) );
+			}
+			body.writeInt( count );
+			// the first translation of each message (in origin order) is the one looked up
+			final Set<String> distinct = new HashSet<String>();
+			final long[] hashes = new long[count];
+			final int[] offsets = new int[count];
+			int index = 0;
+			for ( int i = 0; i < originNames.size(); i++ ) {
+				for ( String[] translation : translations.get( originNames.get( i ) ) ) {
+					final int offset = HEADER_SIZE + body.size();
+					body.writeInt( i );
+					writeString( body, translation[0] );
+					writeString( body, translation[1] );
+					final String normalized = DocBookSegmenter.normalize( translation[0] );
+					if ( distinct.add( normalized ) ) {
+						hashes[index] = hash( normalized );
+						offsets[index] = offset;
+						index++;
+					}
+				}
+			}
+
+			final int tableOffset = HEADER_SIZE + body.size();
+			final int tableSize = index == 0 ? 0 : index * 2 + 1;
+			final long[] slotHashes = new long[tableSize];
+			final int[] slotOffsets = new int[tableSize];
+			Arrays.fill( slotOffsets, EMPTY );
+			for ( int i = 0; i < index; i++ ) {
+				int slot = slot( hashes[i], tableSize );
+				while ( slotOffsets[slot] != EMPTY ) {
+					slot = ( slot + 1 ) % tableSize;
+				}
+				slotHashes[slot] = hashes[i];
+				slotOffsets[slot] = offsets[i];
+			}
+			for ( int i = 0; i < tableSize; i++ ) {
+				body.writeLong( slotHashes[i] );
+				body.writeInt( slotOffsets[i] );
+			}
+
+			memoryFile.getParentFile().mkdirs();
+			final File tmp = new File( memoryFile.getPath() + ".tmp" );
+			final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tmp ) ) );
+			try {
+				out.writeInt( MAGIC );
+				out.writeInt( VERSION );
+				out.writeInt( tableOffset );
+				out.writeInt( tableSize );
+				out.writeInt( index );
+				bytes.writeTo( out );
+			}
+			finally {
+				IOUtil.close( out );
+			}
+			if ( !tmp.renameTo( memoryFile ) ) {
+				throw new IOException( "Unable to write translation memory [" + memoryFile + "]" );
+			}
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		final byte[] bytes = value.getBytes( "UTF-8" );
+		out.writeInt( bytes.length );
+		out.write( bytes );
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully( bytes );
+		return new String( bytes, "UTF-8" );
+	}
+}
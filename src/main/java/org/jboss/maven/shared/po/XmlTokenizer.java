@@ -0,0 +1,289 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * A minimal pull tokenizer over an XML document held as a string.  Unlike SAX or StAX it does not resolve anything:
+ * entity references, CDATA sections and the exact markup are left as they appear in the source, which is what
+ * message extraction and translation need.  Tokens are reported as offsets into the source.
+ */
+public class XmlTokenizer {
+	public static final int END_OF_DOCUMENT = 0;
+	public static final int TEXT = 1;
+	public static final int START_TAG = 2;
+	public static final int END_TAG = 3;
+	public static final int EMPTY_TAG = 4;
+	public static final int CDATA = 5;
+	public static final int COMMENT = 6;
+	public static final int PROCESSING_INSTRUCTION = 7;
+	public static final int DOCTYPE = 8;
+
+	private static final Pattern ENCODING = Pattern.compile( "^<\\?xml[^>]*encoding\\s*=\\s*[\"']([A-Za-z0-9._-]+)[\"']" );
+
+	private final String name;
+	private final String source;
+	private int position;
+	private int line = 1;
+
+	private int type;
+	private int tokenStart;
+	private int tokenLine;
+	private String tagName;
+
+	/**
+	 * Constructs a tokenizer.
+	 *
+	 * @param name A name for the document, used in error messages.
+	 * @param source The document.
+	 */
+	public XmlTokenizer(String name, String source) {
+		this.name = name;
+		this.source = source;
+	}
+
+	/**
+	 * Determine the encoding of a document from its XML declaration.
+	 *
+	 * @param content The raw document.
+	 *
+	 * @return The declared encoding, UTF-8 if none is declared.
+	 */
+	public static String detectEncoding(byte[] content) {
+		final StringBuilder head = new StringBuilder();
+		for ( int i = 0; i < content.length && i < 256; i++ ) {
+			head.append( (char) ( content[i] & 0xFF ) );
+		}
+		final Matcher matcher = ENCODING.matcher( head.indexOf( "\u00EF\u00BB\u00BF" ) == 0 ? head.substring( 3 ) : head );
+		return matcher.find() ? matcher.group( 1 ) : "UTF-8";
+	}
+
+	/**
+	 * Read a document, honoring its declared encoding.
+	 *
+	 * @param file The document.
+	 *
+	 * @return The document content.
+	 *
+	 * @throws IOException Indicates a problem reading the file.
+	 */
+	public static String read(File file) throws IOException {
+		return decode( readBytes( file ) );
+	}
+
+	public static String decode(byte[] content) throws IOException {
+		String text = new String( content, detectEncoding( content ) );
+		if ( text.length() > 0 && text.charAt( 0 ) == '\uFEFF' ) {
+			text = text.substring( 1 );
+		}
+		return text;
+	}
+
+	public static byte[] readBytes(File file) throws IOException {
+		final InputStream stream = new FileInputStream( file );
+		try {
+			return IOUtil.toByteArray( stream );
+		}
+		finally {
+			IOUtil.close( stream );
+		}
+	}
+
+	/**
+	 * Advance to the next token.
+	 *
+	 * @return The token type.
+	 *
+	 * @throws IOException Indicates malformed markup.
+	 */
+	public int next() throws IOException {
+		tokenStart = position;
+		tokenLine = line;
+		tagName = null;
+		if ( position >= source.length() ) {
+			type = END_OF_DOCUMENT;
+			return type;
+		}
+		if ( source.charAt( position ) != '<' ) {
+			final int end = source.indexOf( '<', position );
+			advanceTo( end < 0 ? source.length() : end );
+			type = TEXT;
+		}
+		else if ( source.startsWith( "<!--", position ) ) {
+			advanceTo( find( "-->", position + 4 ) + 3 );
+			type = COMMENT;
+		}
+		else if ( source.startsWith( "<![CDATA[", position ) ) {
+			advanceTo( find( "]]>", position + 9 ) + 3 );
+			type = CDATA;
+		}
+		else if ( source.startsWith( "<!", position ) ) {
+			advanceTo( findDeclarationEnd( position + 2 ) + 1 );
+			type = DOCTYPE;
+		}
+		else if ( source.startsWith( "<?", position ) ) {
+			advanceTo( find( "?>", position + 2 ) + 2 );
+			type = PROCESSING_INSTRUCTION;
+		}
+		else if ( source.startsWith( "</", position ) ) {
+			final int end = find( ">", position + 2 );
+			tagName = source.substring( position + 2, end ).trim();
+			advanceTo( end + 1 );
+			type = END_TAG;
+		}
+		else {
+			final int end = findTagEnd( position + 1 );
+			int nameEnd = position + 1;
+			while ( nameEnd < end && !Character.isWhitespace( source.charAt( nameEnd ) ) && source.charAt( nameEnd ) != '/' ) {
+				nameEnd++;
+			}
+			tagName = source.substring( position + 1, nameEnd );
+			if ( tagName.length() == 0 ) {
+				throw error( "Malformed tag" );
+			}
+			type = source.charAt( end - 1 ) == '/' ? EMPTY_TAG : START_TAG;
+			advanceTo( end + 1 );
+		}
+		return type;
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * The element name, for tags.
+	 */
+	public String getTagName() {
+		return tagName;
+	}
+
+	/**
+	 * The element name without any namespace prefix, for tags.
+	 */
+	public String getLocalTagName() {
+		final int colon = tagName.indexOf( ':' );
+		return colon < 0 ? tagName : tagName.substring( colon + 1 );
+	}
+
+	public int getStart() {
+		return tokenStart;
+	}
+
+	public int getEnd() {
+		return position;
+	}
+
+	/**
+	 * The line on which the current token starts.
+	 */
+	public int getLine() {
+		return tokenLine;
+	}
+
+	public String getText() {
+		return source.substring( tokenStart, position );
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	private void advanceTo(int end) {
+		for ( int i = position; i < end; i++ ) {
+			if ( source.charAt( i ) == '\n' ) {
+				line++;
+			}
+		}
+		position = end;
+	}
+
+	private int find(String terminator, int from) throws IOException {
+		final int index = source.indexOf( terminator, from );
+		if ( index < 0 ) {
+			throw error( "Unterminated markup" );
+		}
+		return index;
+	}
+
+	private int findTagEnd(int from) throws IOException {
+		char quote = 0;
+		for ( int i = from; i < source.length(); i++ ) {
+			final char c = source.charAt( i );
+			if ( quote != 0 ) {
+				if ( c == quote ) {
+					quote = 0;
+				}
+			}
+			else if ( c == '"' || c == '\'' ) {
+				quote = c;
+			}
+			else if ( c == '>' ) {
+				return i;
+			}
+		}
+		throw error( "Unterminated tag" );
+	}
+
+	private int findDeclarationEnd(int from) throws IOException {
+		char quote = 0;
+		int depth = 0;
+		for ( int i = from; i < source.length(); i++ ) {
+			final char c = source.charAt( i );
+			if ( quote != 0 ) {
+				if ( c == quote ) {
+					quote = 0;
+				}
+			}
+			else if ( c == '"' || c == '\'' ) {
+				quote = c;
+			}
+			else if ( c == '[' ) {
+				depth++;
+			}
+			else if ( c == ']' ) {
+				depth--;
+			}
+			else if ( c == '>' && depth <= 0 ) {
+				return i;
+			}
+			else if ( c == '<' && source.startsWith( "<!--", i ) ) {
+				i = find( "-->", i + 4 ) + 2;
+			}
+		}
+		throw error( "Unterminated declaration" );
+	}
+
+	private IOException error(String message) {
+		return new IOException( message + " at " + name + ':' + line );
+	}
+}
@@ -25,9 +25,11 @@
 package org.jboss.maven.shared.properties;
 
 import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.io.File;
 
 import org.apache.maven.project.MavenProject;
@@ -39,38 +41,71 @@ import org.codehaus.plexus.util.introspection.ReflectionValueExtractor;
  * Aggregation occurs across {@link System#getProperties()},
  * {@link org.apache.maven.project.MavenProject#getProperties()} and
  * via bean-properties-style reflection on {@link org.apache.maven.project.MavenProject}.
+ * <p/>
+ * The first two are snapshotted at construction, so reads need no locking and the instance can be shared
+ * by any number of resource filters.  Reflective lookups are memoized for the lifetime of the snapshot, including
+ * the ones which did not resolve, since unknown tokens tend to be looked up over and over again.  Like the rest of
+ * the snapshot, they reflect the project as it was when first looked up.
  *
  * @author Steve Ebersole
  */
 public class CompositeMavenProjectProperties extends AbstractMap {
+	private static final Object UNRESOLVABLE = new Object();
+
 	private final MavenProject project;
 	private final Map values;
+	private final ConcurrentHashMap<Object,Object> reflectedValues = new ConcurrentHashMap<Object,Object>();
 
-	@SuppressWarnings("unchecked")
 	public CompositeMavenProjectProperties(MavenProject project) {
+		this( project, null );
+	}
+
+	/**
+	 * Builds the snapshot, loading filter files through the given cache.
+	 *
+	 * @param project The project.
+	 * @param filterPropertiesCache The filter file cache, or null to always load the filter files.
+	 */
+	@SuppressWarnings("unchecked")
+	public CompositeMavenProjectProperties(MavenProject project, FilterPropertiesCache filterPropertiesCache) {
 		this.project = project;
-		values = new HashMap( System.getProperties() );
-		values.putAll( project.getProperties() );
+		Map snapshot = new HashMap( System.getProperties() );
+		snapshot.putAll( project.getProperties() );
 		for ( Object o : project.getBuild().getFilters() ) {
-			String filtersFile = ( String ) o;
-			values.putAll( PropertiesHelper.loadPropertyFile( new File( filtersFile ) ) );
+			File filtersFile = new File( ( String ) o );
+			snapshot.putAll(
+					filterPropertiesCache == null
+							? PropertiesHelper.loadPropertyFile( filtersFile )
+							: filterPropertiesCache.load( filtersFile )
+			);
 		}
+		this.values = Collections.unmodifiableMap( snapshot );
 	}
 
-	public synchronized Object get(Object key) {
+	public Object get(Object key) {
 		// try the local value map first...
 		Object value = values.get( key );
+		if ( value != null || key == null ) {
+			return value;
+		}
 
-		// then try reflection on the project bean properties...
+		// then try reflection on the project bean properties (remembering the outcome)...
+		value = reflectedValues.get( key );
 		if ( value == null ) {
-			try {
-				value = ReflectionValueExtractor.evaluate( String.valueOf( key ), project );
-			}
-			catch( Throwable ignore ) {
-				// intentionally empty...
-			}
+			value = reflect( key );
+			reflectedValues.putIfAbsent( key, value == null ? UNRESOLVABLE : value );
+		}
+		return value == UNRESOLVABLE ? null : value;
+	}
+
+	private Object reflect(Object key) {
+		try {
+			return ReflectionValueExtractor.evaluate( String.valueOf( key ), project );
+		}
+		catch( Throwable ignore ) {
+			// intentionally empty...
+			return null;
 		}
-		return value;
 	}
 
 	public Set entrySet() {
@@ -0,0 +1,65 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.properties;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches loaded (and interpolated) filter files, so that a filter file shared by many projects is only read once.
+ * Entries are keyed by path and revalidated against the file's size and modification time.
+ * <p/>
+ * The returned {@link Properties} are shared and must be treated as read-only.
+ */
+public class FilterPropertiesCache {
+	private final ConcurrentHashMap<String,Entry> entries = new ConcurrentHashMap<String,Entry>();
+
+	public Properties load(File file) {
+		final String key = file.getAbsolutePath();
+		final Entry cached = entries.get( key );
+		if ( cached != null && cached.matches( file ) ) {
+			return cached.properties;
+		}
+		final Entry entry = new Entry( file.length(), file.lastModified(), PropertiesHelper.loadPropertyFile( file ) );
+		entries.put( key, entry );
+		return entry.properties;
+	}
+
+	private static class Entry {
+		private final long size;
+		private final long lastModified;
+		private final Properties properties;
+
+		private Entry(long size, long lastModified, Properties properties) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.properties = properties;
+		}
+
+		private boolean matches(File file) {
+			return size == file.length() && lastModified == file.lastModified();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.properties;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Caches the {@link CompositeMavenProjectProperties} snapshot of each project, along with the filter files they
+ * are built from.  A snapshot is reused for as long as the project instance, its properties, its filter files and
+ * the system properties stay the same.
+ */
+public class ProjectPropertiesCache {
+	private final FilterPropertiesCache filterPropertiesCache = new FilterPropertiesCache();
+	private final ConcurrentHashMap<String,Snapshot> snapshots = new ConcurrentHashMap<String,Snapshot>();
+
+	public FilterPropertiesCache getFilterPropertiesCache() {
+		return filterPropertiesCache;
+	}
+
+	public CompositeMavenProjectProperties getProperties(MavenProject project) {
+		final String fingerprint = fingerprint( project );
+		final Snapshot cached = snapshots.get( project.getId() );
+		if ( cached != null && cached.project == project && cached.fingerprint.equals( fingerprint ) ) {
+			return cached.properties;
+		}
+		final CompositeMavenProjectProperties properties = new CompositeMavenProjectProperties(
+				project,
+				filterPropertiesCache
+		);
+		snapshots.put( project.getId(), new Snapshot( project, fingerprint, properties ) );
+		return properties;
+	}
+
+	private static String fingerprint(MavenProject project) {
+		final StringBuilder fingerprint = new StringBuilder()
+				.append( System.getProperties().hashCode() )
+				.append( ':' )
+				.append( project.getProperties().hashCode() );
+		for ( Object filter : project.getBuild().getFilters() ) {
+			final File filterFile = new File( (String) filter );
+			fingerprint.append( ':' ).append( filterFile.getAbsolutePath() )
+					.append( '@' ).append( filterFile.length() )
+					.append( '@' ).append( filterFile.lastModified() );
+		}
+		return fingerprint.toString();
+	}
+
+	private static class Snapshot {
+		private final MavenProject project;
+		private final String fingerprint;
+		private final CompositeMavenProjectProperties properties;
+
+		private Snapshot(MavenProject project, String fingerprint, CompositeMavenProjectProperties properties) {
+			this.project = project;
+			this.fingerprint = fingerprint;
+			this.properties = properties;
+		}
+	}
+}
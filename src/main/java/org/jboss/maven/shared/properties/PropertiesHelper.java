@@ -76,12 +76,22 @@ public class PropertiesHelper {
 			}
 		}
 
+		resolveAll( props );
+		return props;
+	}
+
+	/**
+	 * Replaces every value by its interpolated value, one key after the other (so keys resolved later see the
+	 * already interpolated values of the keys resolved before them).
+	 *
+	 * @param props The properties to resolve.
+	 */
+	static void resolveAll(Properties props) {
+		final PropertyInterpolator interpolator = new PropertyInterpolator( props );
 		for ( Enumeration n = props.propertyNames(); n.hasMoreElements(); ) {
 			String k = ( String ) n.nextElement();
-			props.setProperty( k, PropertiesHelper.getInterpolatedPropertyValue( k, props ) );
+			interpolator.set( k, interpolator.resolve( k ) );
 		}
-
-		return props;
 	}
 
 
@@ -93,56 +103,16 @@ public class PropertiesHelper {
 	 * properties, and implements reparsing (in the case that
 	 * the value of a property contains a key), and will
 	 * not loop endlessly on a pair like
-	 * test = ${test}.
+	 * test = ${test} (nor on any longer cycle).
+	 * <p/>
+	 * When resolving many keys of the same Properties, prefer
+	 * {@link #loadPropertyFile} which shares the work between them.
 	 *
 	 * @param key The key for which to find the corresponding value
 	 * @param props The properties from which to find the value.
 	 * @return The (possible interpolated) property value
 	 */
 	public static String getInterpolatedPropertyValue(String key, Properties props) {
-		// This can also be done using InterpolationFilterReader,
-		// but it requires reparsing the file over and over until
-		// it doesn't change.
-
-		String v = props.getProperty( key );
-		String ret = "";
-		int idx, idx2;
-
-		while ( ( idx = v.indexOf( "${" ) ) >= 0 ) {
-			// append prefix to result
-			ret += v.substring( 0, idx );
-
-			// strip prefix from original
-			v = v.substring( idx + 2 );
-
-			// if no matching } then bail
-			if ( ( idx2 = v.indexOf( '}' ) ) < 0 ) {
-				break;
-			}
-
-			// strip out the key and resolve it
-			// resolve the key/value for the ${statement}
-			String nk = v.substring( 0, idx2 );
-			v = v.substring( idx2 + 1 );
-			String nv = props.getProperty( nk );
-
-			// try global environment..
-			if ( nv == null ) {
-				nv = System.getProperty( nk );
-			}
-
-			// if the key cannot be resolved,
-			// leave it alone ( and don't parse again )
-			// else prefix the original string with the
-			// resolved property ( so it can be parsed further )
-			// taking recursion into account.
-			if ( nv == null || nv.equals( key ) ) {
-				ret += "${" + nk + "}";
-			}
-			else {
-				v = nv + v;
-			}
-		}
-		return ret + v;
+		return new PropertyInterpolator( props ).resolve( key );
 	}
 }
@@ -0,0 +1,349 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.properties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Resolves <tt>${key}</tt> references between the values of a {@link Properties} instance (falling back to
+ * {@link System#getProperties()}), giving the same results as the historical algorithm (see {@link #rescan}).
+ * <p/>
+ * Each value is parsed once into literal and reference segments, which gives the reference graph.  The graph is
+ * walked with Tarjan's algorithm, which hands out its strongly connected components in reverse topological order,
+ * so every value is expanded exactly once from already expanded values and the whole resolution is linear in the
+ * total text size.  That expansion only equals the historical result when nothing in the closure of the key
+ * <ul>
+ * <li>is part of a cycle,</li>
+ * <li>holds a <tt>${</tt> without matching <tt>}</tt> or ends with a <tt>$</tt> (which then combine with the text
+ * following the reference), or</li>
+ * <li>references a value equal to the key being resolved (historically such references are left alone);</li>
+ * </ul>
+ * any other key is resolved by {@link #rescan}.
+ */
+class PropertyInterpolator {
+	private final Properties properties;
+	private final Map<String,Node> nodes = new HashMap<String,Node>();
+	private int nextIndex;
+
+	PropertyInterpolator(Properties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Resolves the value of the given key.
+	 *
+	 * @param key The key, which must be defined by the properties being interpolated.
+	 *
+	 * @return The interpolated value, or null if the key is not defined.
+	 */
+	String resolve(String key) {
+		if ( properties.getProperty( key ) == null ) {
+			return null;
+		}
+		final Node node = node( key );
+		if ( node.component == null ) {
+			summarize( node );
+		}
+		if ( node.expanded == null || node.traps.contains( key ) ) {
+			return rescan( key );
+		}
+		return node.expanded;
+	}
+
+	/**
+	 * Sets a property, so that keys resolved afterwards see its new value.
+	 *
+	 * @param key The key to set.
+	 * @param value The new value.
+	 */
+	void set(String key, String value) {
+		properties.setProperty( key, value );
+		final Node node = nodes.get( key );
+		if ( node == null || node.value.equals( value ) ) {
+			return;
+		}
+		if ( value.equals( node.expanded ) && node.traps.isEmpty() && properties.getProperty( value ) == null ) {
+			// whatever was expanded through the old value expands the same through the new one
+			nodes.remove( key );
+		}
+		else {
+			nodes.clear();
+		}
+	}
+
+	private Node node(String key) {
+		Node node = nodes.get( key );
+		if ( node == null ) {
+			String value = properties.getProperty( key );
+			if ( value == null && key.length() > 0 ) {
+				// try global environment..
+				value = System.getProperty( key );
+			}
+			if ( value == null ) {
+				return null;
+			}
+			node = new Node( value );
+			nodes.put( key, node );
+		}
+		return node;
+	}
+
+	private void summarize(Node root) {
+		final List<Node> componentStack = new ArrayList<Node>();
+		final List<Node> path = new ArrayList<Node>();
+
+		open( root, componentStack );
+		path.add( root );
+		while ( !path.isEmpty() ) {
+			final Node node = path.get( path.size() - 1 );
+			if ( node.nextReference < node.segments.size() ) {
+				final Object segment = node.segments.get( node.nextReference++ );
+				if ( !( segment instanceof Reference ) ) {
+					continue;
+				}
+				final Node target = ( (Reference) segment ).target;
+				if ( target == null || target.component != null ) {
+					continue;
+				}
+				if ( target.index < 0 ) {
+					open( target, componentStack );
+					path.add( target );
+				}
+				else if ( target.onStack ) {
+					node.lowLink = Math.min( node.lowLink, target.index );
+				}
+			}
+			else {
+				path.remove( path.size() - 1 );
+				if ( !path.isEmpty() ) {
+					final Node parent = path.get( path.size() - 1 );
+					parent.lowLink = Math.min( parent.lowLink, node.lowLink );
+				}
+				if ( node.lowLink == node.index ) {
+					closeComponent( node, componentStack );
+				}
+			}
+		}
+	}
+
+	private void open(Node node, List<Node> componentStack) {
+		node.index = nextIndex;
+		node.lowLink = nextIndex;
+		nextIndex++;
+		node.onStack = true;
+		componentStack.add( node );
+		node.segments = parse( node );
+	}
+
+	private void closeComponent(Node root, List<Node> componentStack) {
+		final List<Node> members = new ArrayList<Node>();
+		Node member;
+		do {
+			member = componentStack.remove( componentStack.size() - 1 );
+			member.onStack = false;
+			member.component = root;
+			members.add( member );
+		} while ( member != root );
+
+		// everything referenced outside of this component is already summarized
+		boolean cyclic = members.size() > 1;
+		boolean irregular = false;
+		Set<String> traps = Collections.emptySet();
+		for ( Node node : members ) {
+			irregular = irregular || node.irregular;
+			for ( Object segment : node.segments ) {
+				if ( !( segment instanceof Reference ) ) {
+					continue;
+				}
+				final Node target = ( (Reference) segment ).target;
+				if ( target == null ) {
+					continue;
+				}
+				if ( target.component == root ) {
+					cyclic = true;
+				}
+				else {
+					cyclic = cyclic || target.cyclic;
+					irregular = irregular || target.irregular;
+					if ( !target.traps.isEmpty() ) {
+						traps = union( traps, target.traps );
+					}
+				}
+				if ( properties.getProperty( target.value ) != null ) {
+					traps = union( traps, Collections.singleton( target.value ) );
+				}
+			}
+		}
+
+		for ( Node node : members ) {
+			node.cyclic = cyclic;
+			node.irregular = irregular;
+			node.traps = traps;
+			if ( !cyclic && !irregular ) {
+				node.expanded = interpolate( node );
+			}
+		}
+		for ( Node node : members ) {
+			node.segments = null;
+		}
+	}
+
+	private static Set<String> union(Set<String> set, Set<String> other) {
+		if ( set.containsAll( other ) ) {
+			return set;
+		}
+		final Set<String> union = new HashSet<String>( set );
+		union.addAll( other );
+		return union;
+	}
+
+	/**
+	 * The original resolution algorithm, which substitutes raw values and re-parses the result, leaving alone
+	 * references to values equal to the key being resolved.  Where that algorithm would substitute a value again
+	 * while still expanding it (and so never terminate), the reference is left alone as well.
+	 *
+	 * @param key The key to resolve.
+	 *
+	 * @return The resolved value.
+	 */
+	private String rescan(String key) {
+		String v = node( key ).value;
+		final StringBuilder ret = new StringBuilder();
+		final List<String> expanding = new ArrayList<String>();
+		final List<Integer> remainders = new ArrayList<Integer>();
+		int idx, idx2;
+
+		// the keys whose value is being expanded, with the length of the text following that value
+		expanding.add( key );
+		remainders.add( 0 );
+
+		while ( ( idx = v.indexOf( "${" ) ) >= 0 ) {
+			ret.append( v, 0, idx );
+			v = v.substring( idx + 2 );
+			if ( ( idx2 = v.indexOf( '}' ) ) < 0 ) {
+				break;
+			}
+			final String nk = v.substring( 0, idx2 );
+			v = v.substring( idx2 + 1 );
+			while ( !remainders.isEmpty() && v.length() < remainders.get( remainders.size() - 1 ) ) {
+				// the value substituted for this key has been consumed
+				remainders.remove( remainders.size() - 1 );
+				expanding.remove( expanding.size() - 1 );
+			}
+			final Node nv = node( nk );
+			if ( nv == null || nv.value.equals( key ) || expanding.contains( nk ) ) {
+				ret.append( "${" ).append( nk ).append( '}' );
+			}
+			else {
+				expanding.add( nk );
+				remainders.add( v.length() );
+				v = nv.value + v;
+			}
+		}
+		return ret.append( v ).toString();
+	}
+
+	private String interpolate(Node node) {
+		final StringBuilder buffer = new StringBuilder();
+		for ( Object segment : node.segments ) {
+			if ( segment instanceof Reference ) {
+				final Reference reference = (Reference) segment;
+				if ( reference.target == null ) {
+					// unresolvable; leave it alone
+					buffer.append( "${" ).append( reference.key ).append( '}' );
+				}
+				else {
+					buffer.append( reference.target.expanded );
+				}
+			}
+			else {
+				buffer.append( (String) segment );
+			}
+		}
+		return buffer.toString();
+	}
+
+	private List<Object> parse(Node node) {
+		final List<Object> segments = new ArrayList<Object>();
+		final String value = node.value;
+		int position = 0;
+		int start;
+		while ( ( start = value.indexOf( "${", position ) ) >= 0 ) {
+			final int end = value.indexOf( '}', start + 2 );
+			if ( end < 0 ) {
+				// no matching } : pairs up with whatever follows the reference to this value
+				node.irregular = true;
+				break;
+			}
+			segments.add( value.substring( position, start ) );
+			final String key = value.substring( start + 2, end );
+			segments.add( new Reference( key, node( key ) ) );
+			position = end + 1;
+		}
+		segments.add( value.substring( position ) );
+		if ( value.endsWith( "$" ) ) {
+			// forms a ${ with whatever follows the reference to this value
+			node.irregular = true;
+		}
+		return segments;
+	}
+
+	private static class Node {
+		private final String value;
+
+		private List<Object> segments;
+		private int nextReference;
+
+		private int index = -1;
+		private int lowLink;
+		private boolean onStack;
+		private Node component;
+
+		private boolean cyclic;
+		private boolean irregular;
+		private Set<String> traps;
+		private String expanded;
+
+		private Node(String value) {
+			this.value = value;
+		}
+	}
+
+	private static class Reference {
+		private final String key;
+		private final Node target;
+
+		private Reference(String key, Node target) {
+			this.key = key;
+			this.target = target;
+		}
+	}
+}
@@ -24,23 +24,27 @@
 
 package org.jboss.maven.shared.resource;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.io.BufferedReader;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
+import org.jboss.maven.shared.digest.DigestHelper;
 import org.jboss.maven.shared.properties.CompositeMavenProjectProperties;
 import org.codehaus.plexus.util.DirectoryScanner;
 import org.codehaus.plexus.util.IOUtil;
@@ -59,9 +63,11 @@ public class ResourceDelegate {
 	private final File baseTargetDirectory;
 	private final String[] defaultIncludes;
 	private final String[] defaultExcludes;
+	private final boolean contentChecking;
 	private final Log log;
 
 	private final Map filterProperties;
+	private final Map<File,File> processedFiles = new LinkedHashMap<File,File>();
 
 	/**
 	 * Constructs a Delegate instance for handling Resource resolution.
@@ -89,12 +95,63 @@ public class ResourceDelegate {
 			String[] defaultIncludes,
 			String[] defaultExcludes,
 			Log log) {
+		this( project, baseTargetDirectory, defaultIncludes, defaultExcludes, false, log );
+	}
+
+	/**
+	 * Constructs a Delegate instance for handling Resource resolution.
+	 *
+	 * @param project The project currently being built.
+	 * @param baseTargetDirectory The base target directory to which we should copy resources.
+	 * @param defaultIncludes default patterns for resource copying inclusion.
+	 * @param defaultExcludes default patterns for resource copying exclusion.
+	 * @param contentChecking Should unfiltered resources be compared by content rather than by timestamp?
+	 * @param log The log instance to use for logging.
+	 */
+	public ResourceDelegate(
+			MavenProject project,
+			File baseTargetDirectory,
+			String[] defaultIncludes,
+			String[] defaultExcludes,
+			boolean contentChecking,
+			Log log) {
+		this(
+				project,
+				baseTargetDirectory,
+				defaultIncludes,
+				defaultExcludes,
+				new CompositeMavenProjectProperties( project ),
+				contentChecking,
+				log
+		);
+	}
+
+	/**
+	 * Constructs a Delegate instance for handling Resource resolution.
+	 *
+	 * @param project The project currently being built.
+	 * @param baseTargetDirectory The base target directory to which we should copy resources.
+	 * @param defaultIncludes default patterns for resource copying inclusion.
+	 * @param defaultExcludes default patterns for resource copying exclusion.
+	 * @param filterProperties The values for filtering; may be shared between delegates.
+	 * @param contentChecking Should unfiltered resources be compared by content rather than by timestamp?
+	 * @param log The log instance to use for logging.
+	 */
+	public ResourceDelegate(
+			MavenProject project,
+			File baseTargetDirectory,
+			String[] defaultIncludes,
+			String[] defaultExcludes,
+			Map filterProperties,
+			boolean contentChecking,
+			Log log) {
 		this.basedir = project.getBasedir();
 		this.baseTargetDirectory = baseTargetDirectory;
 		this.defaultIncludes = defaultIncludes;
 		this.defaultExcludes = defaultExcludes;
+		this.contentChecking = contentChecking;
 		this.log = log;
-		this.filterProperties = new CompositeMavenProjectProperties( project );
+		this.filterProperties = filterProperties;
 	}
 
 	public void process(Resource[] resources) throws ResourceException {
@@ -119,6 +176,7 @@ public class ResourceDelegate {
 		}
 
 		for ( String fileName : fileNames ) {
+			processedFiles.put( new File( destination, fileName ), new File( resource.getDirectory(), fileName ) );
 			if ( resource.isFiltering() ) {
 				copyFilteredFile(
 						new File( resource.getDirectory(), fileName ),
@@ -131,12 +189,22 @@ public class ResourceDelegate {
 			else {
 				copyFileIfModified(
 						new File( resource.getDirectory(), fileName ),
-						new File( destination, fileName )
+						new File( destination, fileName ),
+						contentChecking
 				);
 			}
 		}
 	}
 
+	/**
+	 * The files handled by this delegate so far, whether or not they actually needed copying.
+	 *
+	 * @return Map of target file to the source file it was produced from.
+	 */
+	public Map<File,File> getProcessedFiles() {
+		return Collections.unmodifiableMap( processedFiles );
+	}
+
 	/**
 	 * Given a resource, determine the matching file names which should be
 	 * processed.
@@ -207,24 +275,48 @@ public class ResourceDelegate {
 			String encoding,
 			FilterWrapper[] wrappers,
 			Map filterProperties) throws ResourceException {
-		// buffer so it isn't reading a byte at a time!
-		Reader fileReader = null;
-		Writer fileWriter = null;
+		// filter into memory first so that unchanged output does not touch the target (and its timestamp)
+		final byte[] filtered = filter( from, encoding, wrappers, filterProperties );
+		if ( DigestHelper.hasContent( to, filtered ) ) {
+			return;
+		}
+
+		OutputStream fileStream = null;
 		try {
 			// fix for MWAR-36, ensures that the parent dir are created first
 			to.getParentFile().mkdirs();
 
+			fileStream = new FileOutputStream( to );
+			fileStream.write( filtered );
+		}
+		catch( IOException e ) {
+			throw new ResourceException( e.getMessage(), e );
+		}
+		finally {
+			IOUtil.close( fileStream );
+		}
+	}
+
+	private static byte[] filter(
+			File from,
+			String encoding,
+			FilterWrapper[] wrappers,
+			Map filterProperties) throws ResourceException {
+		// buffer so it isn't reading a byte at a time!
+		Reader fileReader = null;
+		Writer bufferWriter = null;
+		try {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream( (int) from.length() );
 			if ( encoding == null || encoding.length() < 1 ) {
 				fileReader = new BufferedReader( new FileReader( from ) );
-				fileWriter = new FileWriter( to );
+				bufferWriter = new OutputStreamWriter( buffer );
 			}
 			else {
 				FileInputStream instream = new FileInputStream( from );
-				FileOutputStream outstream = new FileOutputStream( to );
 				fileReader = new BufferedReader(
 						new InputStreamReader( instream, encoding )
 				);
-				fileWriter = new OutputStreamWriter( outstream, encoding );
+				bufferWriter = new OutputStreamWriter( buffer, encoding );
 			}
 
 			Reader reader = fileReader;
@@ -232,19 +324,25 @@ public class ResourceDelegate {
 				reader = wrapper.getReader( reader, filterProperties );
 			}
 
-			IOUtil.copy( reader, fileWriter );
+			IOUtil.copy( reader, bufferWriter );
+			bufferWriter.flush();
+			return buffer.toByteArray();
 		}
 		catch( IOException e ) {
 			throw new ResourceException( e.getMessage(), e );
 		}
 		finally {
 			IOUtil.close( fileReader );
-			IOUtil.close( fileWriter );
+			IOUtil.close( bufferWriter );
 		}
 	}
 
-	private static void copyFileIfModified(File source, File destination) throws ResourceException {
-		if ( destination.lastModified() < source.lastModified() ) {
+	private static void copyFileIfModified(File source, File destination, boolean contentChecking) throws ResourceException {
+		final boolean modified = contentChecking
+				// timestamps cannot be trusted (fresh checkouts e.g.), so compare the actual content
+				? !DigestHelper.sameContent( source, destination )
+				: destination.lastModified() < source.lastModified();
+		if ( modified ) {
 			try {
 				FileUtils.copyFile( source.getCanonicalFile(), destination );
 				destination.setLastModified( source.lastModified() );
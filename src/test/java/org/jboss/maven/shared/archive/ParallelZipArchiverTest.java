@@ -0,0 +1,420 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.archive;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.jar.JarArchiver;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link ParallelZipArchiver} against {@link ZipFile} and against the archiver it stands in for,
+ * {@link JarArchiver}.
+ */
+public class ParallelZipArchiverTest {
+	private File directory;
+	private File sources;
+
+	@Before
+	public void createSources() throws IOException {
+		directory = File.createTempFile( "parallel-zip-archiver", "" );
+		directory.delete();
+		directory.mkdir();
+		sources = new File( directory, "sources" );
+		final Random random = new Random( 0 );
+		for ( int i = 0; i < 40; i++ ) {
+			final StringBuilder page = new StringBuilder( "<html><body>\n" );
+			for ( int j = random.nextInt( 500 ); j >= 0; j-- ) {
+				page.append( "<p>Paragraph " ).append( j ).append( " of chapter " ).append( i ).append( ".</p>\n" );
+			}
+			write( "html/chapter-" + i + ".html", page.append( "</body></html>\n" ).toString().getBytes( "UTF-8" ) );
+		}
+		write( "html/css/style.css", "body { margin: 0; }\n".getBytes( "UTF-8" ) );
+		write( "html/empty.txt", new byte[0] );
+		write( "html/images/logo.png", randomBytes( random, 40000 ) );
+		write( "pdf/guide.pdf", randomBytes( random, 70000 ) );
+		touch( sources );
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		FileUtils.deleteDirectory( directory );
+	}
+
+	@Test
+	public void testSameArchiveWhateverTheThreads() throws IOException {
+		final File sequential = new File( directory, "sequential/guide.war" );
+		archiver( 1 ).createArchive( sequential );
+		final File parallel = new File( directory, "parallel/guide.war" );
+		archiver( 4 ).createArchive( parallel );
+		assertArrayEquals( bytes( sequential ), bytes( parallel ) );
+	}
+
+	@Test
+	public void testReadsBack() throws IOException {
+		final File archive = new File( directory, "guide.war" );
+		final ParallelZipArchiver archiver = archiver( 4 );
+		archiver.setIncludeManifest( true );
+		archiver.createArchive( archive );
+
+		final List<String> names = new ArrayList<String>();
+		final ZipFile zipFile = new ZipFile( archive );
+		try {
+			final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while ( entries.hasMoreElements() ) {
+				final ZipEntry entry = entries.nextElement();
+				names.add( entry.getName() );
+				if ( entry.isDirectory() || entry.getName().startsWith( "META-INF/" ) ) {
+					continue;
+				}
+				final File file = new File( sources, entry.getName() );
+				assertEquals( entry.getName(), file.lastModified(), entry.getTime() );
+				assertArrayEquals( bytes( file ), ZipDirectoryTest.read( zipFile, entry ) );
+			}
+		}
+		finally {
+			zipFile.close();
+		}
+		assertEquals( "META-INF/", names.get( 0 ) );
+		assertEquals( "META-INF/MANIFEST.MF", names.get( 1 ) );
+		assertEquals( "html/", names.get( 2 ) );
+		assertEquals( "html/chapter-0.html", names.get( 3 ) );
+		assertEquals( "pdf/guide.pdf", names.get( names.size() - 1 ) );
+		assertEquals( 2 + 4 + 44, names.size() );
+	}
+
+	@Test
+	public void testSameContentAsJarArchiver() throws IOException, ArchiverException {
+		final File expected = new File( directory, "plexus/guide.war" );
+		expected.getParentFile().mkdirs();
+		final JarArchiver jarArchiver = new JarArchiver();
+		jarArchiver.setDestFile( expected );
+		jarArchiver.addDirectory( new File( sources, "html" ), "html/" );
+		jarArchiver.addDirectory( new File( sources, "pdf" ), "pdf/" );
+		jarArchiver.createArchive();
+
+		final File archive = new File( directory, "guide.war" );
+		final ParallelZipArchiver archiver = archiver( 4 );
+		archiver.setIncludeManifest( true );
+		archiver.createArchive( archive );
+
+		assertSameFiles( readFiles( expected ), readFiles( archive ) );
+	}
+
+	@Test
+	public void testUnbufferedEntries() throws IOException {
+		FileUtils.copyFile( new File( sources, "pdf/guide.pdf" ), new File( sources, "pdf/copy.pdf" ) );
+		touch( sources );
+		final File buffered = new File( directory, "buffered/guide.war" );
+		archiver( 4 ).createArchive( buffered );
+
+		final File sequential = new File( directory, "sequential/guide.war" );
+		unbufferedArchiver( 1 ).createArchive( sequential );
+		final File parallel = new File( directory, "parallel/guide.war" );
+		ParallelZipArchiver archiver = unbufferedArchiver( 4 );
+		archiver.createArchive( parallel );
+		assertEquals( 1, archiver.getDuplicateEntryCount() );
+		assertArrayEquals( bytes( sequential ), bytes( parallel ) );
+		assertMethod( parallel, "html/chapter-0.html", ZipEntry.DEFLATED );
+		assertMethod( parallel, "pdf/guide.pdf", ZipEntry.STORED );
+		assertSameFiles( readSources(), readFiles( parallel ) );
+		assertSameFiles( readFiles( buffered ), readFiles( parallel ) );
+		// no temporary file left behind
+		assertEquals( 1, parallel.getParentFile().list().length );
+
+		// unchanged but touched, so checked by content
+		touch( sources );
+		new File( sources, "pdf/guide.pdf" ).setLastModified( ZipWriterTest.time() + 2000 );
+		for ( int i = 0; i < 2; i++ ) {
+			archiver = unbufferedArchiver( 4 );
+			archiver.setIncremental( true );
+			archiver.createArchive( sequential );
+		}
+		assertEquals( 45 - 1, archiver.getReusedEntryCount() );
+		unbufferedArchiver( 1 ).createArchive( parallel );
+		assertArrayEquals( bytes( parallel ), bytes( sequential ) );
+	}
+
+	@Test
+	public void testCompressionPolicy() throws IOException {
+		write( "html/images/noise.bin", randomBytes( new Random( 1 ), 50000 ) );
+		touch( sources );
+		final File archive = new File( directory, "guide.war" );
+		ParallelZipArchiver archiver = archiver( 4 );
+		archiver.setCompressionPolicy( CompressionPolicy.build( null, null, false, 1f ) );
+		archiver.createArchive( archive );
+		assertMethod( archive, "html/chapter-0.html", ZipEntry.DEFLATED );
+		assertMethod( archive, "html/empty.txt", ZipEntry.STORED );
+		assertMethod( archive, "html/images/logo.png", ZipEntry.STORED );
+		assertMethod( archive, "html/images/noise.bin", ZipEntry.DEFLATED );
+		assertMethod( archive, "pdf/guide.pdf", ZipEntry.STORED );
+
+		archiver = archiver( 4 );
+		archiver.setCompressionPolicy( CompressionPolicy.build( null, new String[] { "PDF" }, true, 0.9f ) );
+		archiver.createArchive( archive );
+		assertMethod( archive, "html/chapter-0.html", ZipEntry.DEFLATED );
+		assertMethod( archive, "html/images/logo.png", ZipEntry.STORED );
+		// incompressible, so stored however it is named
+		assertMethod( archive, "html/images/noise.bin", ZipEntry.STORED );
+		assertMethod( archive, "pdf/guide.pdf", ZipEntry.STORED );
+		assertSameFiles( readFiles( archive ), readSources() );
+	}
+
+	@Test
+	public void testIncremental() throws IOException {
+		final File archive = new File( directory, "incremental/guide.war" );
+		ParallelZipArchiver archiver = archiver( 4 );
+		archiver.setIncremental( true );
+		archiver.createArchive( archive );
+		assertEquals( 0, archiver.getReusedEntryCount() );
+		assertTrue( ParallelZipArchiver.getManifestFile( archive ).exists() );
+		final byte[] first = bytes( archive );
+
+		archiver = archiver( 4 );
+		archiver.setIncremental( true );
+		archiver.createArchive( archive );
+		assertEquals( 44, archiver.getReusedEntryCount() );
+		assertArrayEquals( first, bytes( archive ) );
+
+		// one file touched but unchanged, another one changed
+		new File( sources, "html/css/style.css" ).setLastModified( ZipWriterTest.time() + 2000 );
+		write( "html/chapter-3.html", "<html><body>Rewritten.</body></html>\n".getBytes( "UTF-8" ) );
+		archiver = archiver( 4 );
+		archiver.setIncremental( true );
+		archiver.createArchive( archive );
+		assertEquals( 43, archiver.getReusedEntryCount() );
+		final File rebuilt = new File( directory, "rebuilt/guide.war" );
+		archiver( 1 ).createArchive( rebuilt );
+		assertArrayEquals( bytes( rebuilt ), bytes( archive ) );
+		assertSameFiles( readSources(), readFiles( archive ) );
+
+		// entries compressed under another policy are not reused
+		archiver = archiver( 4 );
+		archiver.setIncremental( true );
+		archiver.setCompressionPolicy( CompressionPolicy.build( null, null, false, 1f ) );
+		archiver.createArchive( archive );
+		assertEquals( 0, archiver.getReusedEntryCount() );
+	}
+
+	@Test
+	public void testIncrementalDeduplicate() throws IOException {
+		FileUtils.copyFile( new File( sources, "html/chapter-0.html" ), new File( sources, "html/copy/chapter-0.html" ) );
+		touch( sources );
+		final File archive = new File( directory, "incremental/guide.war" );
+		assertIncrementalMatchesRebuild( archive, 0 );
+		assertIncrementalMatchesRebuild( archive, 45 - 1 );
+
+		// the original changes, its copy no longer duplicates anything; another file becomes a copy
+		write( "html/chapter-0.html", "<html><body>Rewritten.</body></html>\n".getBytes( "UTF-8" ) );
+		FileUtils.copyFile( new File( sources, "html/chapter-1.html" ), new File( sources, "html/chapter-2.html" ) );
+		touch( sources );
+		assertIncrementalMatchesRebuild( archive, 45 - 2 );
+		assertSameFiles( readSources(), readFiles( archive ) );
+	}
+
+	private void assertIncrementalMatchesRebuild(File archive, int reused) throws IOException {
+		ParallelZipArchiver archiver = archiver( 4 );
+		archiver.setIncremental( true );
+		archiver.setDeduplicate( true );
+		archiver.createArchive( archive );
+		assertEquals( reused, archiver.getReusedEntryCount() );
+		final File rebuilt = new File( directory, "rebuilt/guide.war" );
+		archiver = archiver( 1 );
+		archiver.setDeduplicate( true );
+		archiver.createArchive( rebuilt );
+		assertArrayEquals( bytes( rebuilt ), bytes( archive ) );
+	}
+
+	@Test
+	public void testDeduplicate() throws IOException {
+		FileUtils.copyFile( new File( sources, "html/chapter-0.html" ), new File( sources, "html/copy/chapter-0.html" ) );
+		FileUtils.copyFile( new File( sources, "html/images/logo.png" ), new File( sources, "html/images/logo-copy.png" ) );
+		touch( sources );
+
+		final File sequential = new File( directory, "sequential/guide.war" );
+		ParallelZipArchiver archiver = archiver( 1 );
+		archiver.setDeduplicate( true );
+		archiver.createArchive( sequential );
+		assertEquals( 2, archiver.getDuplicateEntryCount() );
+		final File parallel = new File( directory, "parallel/guide.war" );
+		archiver = archiver( 4 );
+		archiver.setDeduplicate( true );
+		archiver.createArchive( parallel );
+		assertEquals( 2, archiver.getDuplicateEntryCount() );
+		assertArrayEquals( bytes( sequential ), bytes( parallel ) );
+
+		assertMethod( parallel, "html/chapter-0.html", ZipEntry.DEFLATED );
+		assertMethod( parallel, "html/copy/chapter-0.html", ZipEntry.DEFLATED );
+		assertSameFiles( readSources(), readFiles( parallel ) );
+		// the copies take no room beyond their central directory records
+		final File plain = new File( directory, "plain/guide.war" );
+		archiver( 4 ).createArchive( plain );
+		assertTrue( parallel.length() + 40000 < plain.length() );
+
+		// reused entries are deduplicated the same way
+		for ( int i = 0; i < 2; i++ ) {
+			archiver = archiver( 4 );
+			archiver.setDeduplicate( true );
+			archiver.setIncremental( true );
+			archiver.createArchive( parallel );
+			assertEquals( 2, archiver.getDuplicateEntryCount() );
+			assertArrayEquals( bytes( sequential ), bytes( parallel ) );
+		}
+		// the duplicates are written as aliases again rather than copied over
+		assertEquals( 46 - 2, archiver.getReusedEntryCount() );
+	}
+
+	/**
+	 * An archiver going through temporary files for all but the smallest entries, deduplicating and adaptive.
+	 */
+	private ParallelZipArchiver unbufferedArchiver(int threads) {
+		final ParallelZipArchiver archiver = archiver( threads );
+		archiver.setBufferedEntryLimit( 1000 );
+		archiver.setCompressionPolicy( CompressionPolicy.build( null, null, true, 0.9f ) );
+		archiver.setDeduplicate( true );
+		return archiver;
+	}
+
+	/**
+	 * An archiver with the sources added the way the package goal adds its format directories.
+	 */
+	private ParallelZipArchiver archiver(int threads) {
+		final ParallelZipArchiver archiver = new ParallelZipArchiver( threads );
+		archiver.addDirectory( new File( sources, "html" ), "html/" );
+		archiver.addDirectory( new File( sources, "pdf" ), "pdf/" );
+		return archiver;
+	}
+
+	private static void assertMethod(File archive, String name, int method) throws IOException {
+		final ZipDirectory zipDirectory = new ZipDirectory( archive );
+		try {
+			assertEquals( name, method, zipDirectory.getEntry( name ).getMethod() );
+		}
+		finally {
+			zipDirectory.close();
+		}
+	}
+
+	/**
+	 * The source files, by entry name.
+	 */
+	private Map<String,byte[]> readSources() throws IOException {
+		final Map<String,byte[]> files = new TreeMap<String,byte[]>();
+		for ( Object file : FileUtils.getFiles( sources, "**", null, false ) ) {
+			files.put( file.toString().replace( File.separatorChar, '/' ), bytes( new File( sources, file.toString() ) ) );
+		}
+		return files;
+	}
+
+	private void write(String name, byte[] content) throws IOException {
+		final File file = new File( sources, name );
+		file.getParentFile().mkdirs();
+		final OutputStream out = new FileOutputStream( file );
+		try {
+			out.write( content );
+		}
+		finally {
+			IOUtil.close( out );
+		}
+	}
+
+	/**
+	 * Give the files and directories a time zip dates hold exactly.
+	 */
+	private static void touch(File file) {
+		final File[] children = file.listFiles();
+		if ( children != null ) {
+			for ( File child : children ) {
+				touch( child );
+			}
+		}
+		file.setLastModified( ZipWriterTest.time() );
+	}
+
+	private static byte[] randomBytes(Random random, int length) {
+		final byte[] bytes = new byte[length];
+		random.nextBytes( bytes );
+		return bytes;
+	}
+
+	private static byte[] bytes(File file) throws IOException {
+		final InputStream in = new FileInputStream( file );
+		try {
+			return IOUtil.toByteArray( in );
+		}
+		finally {
+			IOUtil.close( in );
+		}
+	}
+
+	/**
+	 * The file entries of the given archive, by name, leaving out directories and the jar manifest.
+	 */
+	private static Map<String,byte[]> readFiles(File archive) throws IOException {
+		final Map<String,byte[]> files = new TreeMap<String,byte[]>();
+		final ZipFile zipFile = new ZipFile( archive );
+		try {
+			final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while ( entries.hasMoreElements() ) {
+				final ZipEntry entry = entries.nextElement();
+				if ( !entry.isDirectory() && !entry.getName().startsWith( "META-INF/" ) ) {
+					files.put( entry.getName(), ZipDirectoryTest.read( zipFile, entry ) );
+				}
+			}
+		}
+		finally {
+			zipFile.close();
+		}
+		return files;
+	}
+
+	private static void assertSameFiles(Map<String,byte[]> expected, Map<String,byte[]> actual) {
+		assertEquals( new ArrayList<String>( expected.keySet() ), new ArrayList<String>( actual.keySet() ) );
+		for ( Map.Entry<String,byte[]> file : expected.entrySet() ) {
+			assertArrayEquals( file.getValue(), actual.get( file.getKey() ) );
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.Enumeration;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link ZipDirectory} against {@link ZipFile}, reading an archive written by another zip implementation
+ * (stored, deflated, directory, UTF-8 named and empty entries, plus an archive comment).
+ */
+public class ZipDirectoryTest {
+	@Test
+	public void testGoldenArchive() throws IOException {
+		final File archive = golden();
+		final ZipFile zipFile = new ZipFile( archive );
+		final ZipDirectory directory = new ZipDirectory( archive );
+		try {
+			int count = 0;
+			final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while ( entries.hasMoreElements() ) {
+				final ZipEntry expected = entries.nextElement();
+				final ZipDirectory.Entry entry = directory.getEntry( expected.getName() );
+				assertNotNull( expected.getName(), entry );
+				assertEquals( expected.getName(), expected.getMethod(), entry.getMethod() );
+				assertEquals( expected.getName(), expected.getCrc(), entry.getCrc() );
+				assertEquals( expected.getName(), expected.getSize(), entry.getSize() );
+				assertEquals( expected.getName(), expected.getCompressedSize(), entry.getCompressedSize() );
+				assertArrayEquals( read( zipFile, expected ), uncompressedData( directory, entry ) );
+				count++;
+			}
+			assertEquals( 5, count );
+			assertNotNull( directory.getEntry( "html/r\u00e9sum\u00e9.html" ) );
+		}
+		finally {
+			directory.close();
+			zipFile.close();
+		}
+	}
+
+	@Test
+	public void testNotAnArchive() throws IOException, URISyntaxException {
+		final File file = new File( getClass().getResource( "/org/jboss/maven/shared/po/guide.pot" ).toURI() );
+		try {
+			new ZipDirectory( file ).close();
+			throw new AssertionError( "Read a PO file as an archive" );
+		}
+		catch ( IOException expected ) {
+			assertTrue( expected.getMessage().length() > 0 );
+		}
+	}
+
+	static File golden() {
+		try {
+			return new File( ZipDirectoryTest.class.getResource( "golden.zip" ).toURI() );
+		}
+		catch ( URISyntaxException e ) {
+			throw new IllegalStateException( e );
+		}
+	}
+
+	static byte[] read(ZipFile zipFile, ZipEntry entry) throws IOException {
+		final InputStream in = zipFile.getInputStream( entry );
+		try {
+			return IOUtil.toByteArray( in );
+		}
+		finally {
+			IOUtil.close( in );
+		}
+	}
+
+	/**
+	 * The data of the given entry, as copied raw and then inflated if need be, checked against its CRC.
+	 */
+	static byte[] uncompressedData(ZipDirectory directory, ZipDirectory.Entry entry) throws IOException {
+		final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		directory.copyRawData( entry, raw );
+		assertEquals( entry.getName(), entry.getCompressedSize(), raw.size() );
+		byte[] data = raw.toByteArray();
+		if ( entry.getMethod() == ZipEntry.DEFLATED ) {
+			final Inflater inflater = new Inflater( true );
+			try {
+				inflater.setInput( data );
+				final byte[] inflated = new byte[(int) entry.getSize()];
+				int length = 0;
+				while ( length < inflated.length && !inflater.finished() ) {
+					length += inflater.inflate( inflated, length, inflated.length - length );
+				}
+				assertEquals( entry.getName(), inflated.length, length );
+				data = inflated;
+			}
+			catch ( DataFormatException e ) {
+				throw new AssertionError( "Corrupt entry [" + entry.getName() + "] : " + e );
+			}
+			finally {
+				inflater.end();
+			}
+		}
+		final CRC32 crc = new CRC32();
+		crc.update( data );
+		assertEquals( entry.getName(), entry.getCrc(), crc.getValue() );
+		return data;
+	}
+}
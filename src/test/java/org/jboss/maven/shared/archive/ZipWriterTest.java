@@ -0,0 +1,290 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that archives written by {@link ZipWriter} read back, through {@link ZipFile}, {@link ZipInputStream} and
+ * {@link ZipDirectory}, as what was written.
+ */
+public class ZipWriterTest {
+	private File archive;
+
+	@Before
+	public void createArchiveFile() throws IOException {
+		archive = File.createTempFile( "zip-writer", ".zip" );
+	}
+
+	@After
+	public void deleteArchiveFile() {
+		archive.delete();
+	}
+
+	@Test
+	public void testCopyGoldenArchive() throws IOException {
+		final long time = time();
+		final ZipFile golden = new ZipFile( ZipDirectoryTest.golden() );
+		final ZipDirectory directory = new ZipDirectory( ZipDirectoryTest.golden() );
+		try {
+			final ZipWriter writer = new ZipWriter( new FileOutputStream( archive ) );
+			final Enumeration<? extends ZipEntry> entries = golden.entries();
+			while ( entries.hasMoreElements() ) {
+				final ZipDirectory.Entry entry = directory.getEntry( entries.nextElement().getName() );
+				if ( entry.getName().endsWith( "/" ) ) {
+					writer.writeDirectory( entry.getName(), time );
+				}
+				else {
+					directory.copyRawData(
+							entry,
+							writer.startEntry(
+									entry.getName(),
+									entry.getMethod(),
+									entry.getCrc(),
+									entry.getSize(),
+									entry.getCompressedSize(),
+									time
+							)
+					);
+				}
+			}
+			writer.close();
+
+			final ZipFile copy = new ZipFile( archive );
+			try {
+				final List<String> expectedNames = new ArrayList<String>();
+				final List<String> names = new ArrayList<String>();
+				final Enumeration<? extends ZipEntry> expectedEntries = golden.entries();
+				final Enumeration<? extends ZipEntry> copiedEntries = copy.entries();
+				while ( expectedEntries.hasMoreElements() ) {
+					final ZipEntry expected = expectedEntries.nextElement();
+					final ZipEntry copied = copiedEntries.nextElement();
+					expectedNames.add( expected.getName() );
+					names.add( copied.getName() );
+					assertEquals( expected.getName(), copied.getName() );
+					assertEquals( expected.getName(), expected.getMethod(), copied.getMethod() );
+					assertEquals( expected.getName(), expected.getCrc(), copied.getCrc() );
+					assertEquals( expected.getName(), time, copied.getTime() );
+					assertArrayEquals( ZipDirectoryTest.read( golden, expected ), ZipDirectoryTest.read( copy, copied ) );
+				}
+				assertEquals( expectedNames, names );
+				assertEquals( expectedNames, readStreamed( archive, golden ) );
+			}
+			finally {
+				copy.close();
+			}
+		}
+		finally {
+			directory.close();
+			golden.close();
+		}
+	}
+
+	@Test
+	public void testWriteEntry() throws IOException {
+		final byte[] content = "<html><body>jDocBook</body></html>\n".getBytes( "UTF-8" );
+		final CRC32 crc = new CRC32();
+		crc.update( content );
+		final byte[] deflated = new byte[content.length * 2 + 64];
+		final Deflater deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true );
+		deflater.setInput( content );
+		deflater.finish();
+		final int deflatedLength = deflater.deflate( deflated );
+		deflater.end();
+
+		final ZipWriter writer = new ZipWriter( new FileOutputStream( archive ) );
+		writer.writeDirectory( "html/", time() );
+		writer.writeEntry(
+				"html/index.html", ZipEntry.DEFLATED, crc.getValue(), content.length, time(), deflated, 0, deflatedLength
+		);
+		writer.writeEntry(
+				"html/stored.html", ZipEntry.STORED, crc.getValue(), content.length, time(), content, 0, content.length
+		);
+		writer.close();
+
+		final ZipDirectory directory = new ZipDirectory( archive );
+		try {
+			assertEquals( 0, directory.getEntry( "html/" ).getSize() );
+			final ZipDirectory.Entry deflatedEntry = directory.getEntry( "html/index.html" );
+			assertEquals( ZipEntry.DEFLATED, deflatedEntry.getMethod() );
+			assertEquals( deflatedLength, deflatedEntry.getCompressedSize() );
+			assertArrayEquals( content, ZipDirectoryTest.uncompressedData( directory, deflatedEntry ) );
+			final ZipDirectory.Entry storedEntry = directory.getEntry( "html/stored.html" );
+			assertEquals( ZipEntry.STORED, storedEntry.getMethod() );
+			assertArrayEquals( content, ZipDirectoryTest.uncompressedData( directory, storedEntry ) );
+		}
+		finally {
+			directory.close();
+		}
+		final ZipInputStream in = new ZipInputStream( new FileInputStream( archive ) );
+		try {
+			assertEquals( "html/", in.getNextEntry().getName() );
+			assertEquals( "html/index.html", in.getNextEntry().getName() );
+			assertArrayEquals( content, IOUtil.toByteArray( in ) );
+			assertEquals( "html/stored.html", in.getNextEntry().getName() );
+			assertArrayEquals( content, IOUtil.toByteArray( in ) );
+			assertNull( in.getNextEntry() );
+		}
+		finally {
+			IOUtil.close( in );
+		}
+	}
+
+	@Test
+	public void testAlias() throws IOException {
+		final byte[] content = "<html><body>jDocBook</body></html>\n".getBytes( "UTF-8" );
+		final CRC32 crc = new CRC32();
+		crc.update( content );
+		final ZipWriter writer = new ZipWriter( new FileOutputStream( archive ) );
+		writer.writeEntry(
+				"html/index.html", ZipEntry.STORED, crc.getValue(), content.length, time(), content, 0, content.length
+		);
+		writer.writeAlias( "html/copy.html", "html/index.html", time() + 2000 );
+		try {
+			writer.writeAlias( "html/index.html", "html/copy.html", time() );
+			throw new AssertionError( "Wrote the same entry name twice" );
+		}
+		catch ( IOException expected ) {
+			// the name is taken
+		}
+		try {
+			writer.writeAlias( "html/other.html", "html/missing.html", time() );
+			throw new AssertionError( "Aliased a missing entry" );
+		}
+		catch ( IOException expected ) {
+			// nothing to share
+		}
+		writer.close();
+
+		final long length = archive.length();
+		final ZipFile zipFile = new ZipFile( archive );
+		try {
+			assertEquals( 2, zipFile.size() );
+			assertArrayEquals( content, ZipDirectoryTest.read( zipFile, zipFile.getEntry( "html/index.html" ) ) );
+			final ZipEntry alias = zipFile.getEntry( "html/copy.html" );
+			assertEquals( time() + 2000, alias.getTime() );
+			assertArrayEquals( content, ZipDirectoryTest.read( zipFile, alias ) );
+		}
+		finally {
+			zipFile.close();
+		}
+		final ZipDirectory directory = new ZipDirectory( archive );
+		try {
+			final ZipDirectory.Entry alias = directory.getEntry( "html/copy.html" );
+			assertArrayEquals( content, ZipDirectoryTest.uncompressedData( directory, alias ) );
+		}
+		finally {
+			directory.close();
+		}
+		// the data is there once
+		assertTrue( length < 2 * content.length + 200 );
+	}
+
+	@Test
+	public void testZip64EntryCount() throws IOException {
+		// more entries than the plain end of central directory record can count
+		final int count = 0xFFFF + 10;
+		final ZipWriter writer = new ZipWriter( new FileOutputStream( archive ) );
+		for ( int i = 0; i < count; i++ ) {
+			final OutputStream out = writer.startEntry( "entry" + i, ZipEntry.STORED, 0, 0, 0, time() );
+			out.flush();
+		}
+		writer.close();
+
+		final ZipFile zipFile = new ZipFile( archive );
+		try {
+			assertEquals( count, zipFile.size() );
+			assertNotNull( zipFile.getEntry( "entry" + ( count - 1 ) ) );
+		}
+		finally {
+			zipFile.close();
+		}
+		final ZipDirectory directory = new ZipDirectory( archive );
+		try {
+			assertNotNull( directory.getEntry( "entry0" ) );
+			assertNotNull( directory.getEntry( "entry" + ( count - 1 ) ) );
+			final ByteArrayOutputStream data = new ByteArrayOutputStream();
+			directory.copyRawData( directory.getEntry( "entry" + ( count - 1 ) ), data );
+			assertEquals( 0, data.size() );
+		}
+		finally {
+			directory.close();
+		}
+	}
+
+	/**
+	 * Read the given archive sequentially, checking the entry data against the expected archive.
+	 */
+	private static List<String> readStreamed(File archive, ZipFile expected) throws IOException {
+		final List<String> names = new ArrayList<String>();
+		final ZipInputStream in = new ZipInputStream( new FileInputStream( archive ) );
+		try {
+			ZipEntry entry;
+			while ( ( entry = in.getNextEntry() ) != null ) {
+				final byte[] data = ZipDirectoryTest.read( expected, expected.getEntry( entry.getName() ) );
+				assertArrayEquals( data, IOUtil.toByteArray( in ) );
+				names.add( entry.getName() );
+			}
+		}
+		finally {
+			IOUtil.close( in );
+		}
+		return names;
+	}
+
+	/**
+	 * A time zip (MS-DOS) dates can hold exactly.
+	 */
+	static long time() {
+		final Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set( 2010, Calendar.OCTOBER, 19, 7, 0, 0 );
+		return calendar.getTimeInMillis();
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks {@link DocumentTranslator} against the document po2xml gives for a DocBook document and its PO file.
+ */
+public class DocumentTranslatorTest {
+	@Test
+	public void testTranslate() throws IOException {
+		final String translated = DocumentTranslator.translate(
+				TestResources.read( "guide.xml" ),
+				"guide.xml",
+				PoIndex.load( TestResources.file( "fr.po" ) )
+		);
+		assertEquals( TestResources.read( "guide-fr.xml" ), translated );
+	}
+
+	@Test
+	public void testNoTranslation() throws IOException {
+		final String master = TestResources.read( "guide.xml" );
+		assertEquals( master, DocumentTranslator.translate( master, "guide.xml", PoIndex.empty() ) );
+	}
+
+	@Test
+	public void testTranslatedTwice() throws IOException {
+		// a translated document has no message left to translate, but those translated as themselves
+		final String translated = TestResources.read( "guide-fr.xml" );
+		assertEquals(
+				translated,
+				DocumentTranslator.translate( translated, "guide.xml", PoIndex.load( TestResources.file( "fr.po" ) ) )
+		);
+	}
+
+	@Test
+	public void testFuzzyEntriesAreNotUsed() throws IOException {
+		final PoIndex index = PoIndex.load( TestResources.file( "fr.po" ) );
+		assertNull( index.getTranslation( "Translations need a PO file per document and language." ) );
+		assertEquals( "Installation", index.getTranslation( "Installation" ) );
+	}
+}
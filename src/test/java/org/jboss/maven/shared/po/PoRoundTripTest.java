@@ -0,0 +1,146 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link PoParser}, {@link PoWriter} and {@link PoMerger} against PO files laid out the way the gettext tools
+ * write them: parsing and writing such a file must give it back byte for byte, and merging must give what msgmerge
+ * and msginit give.
+ */
+public class PoRoundTripTest {
+	@Test
+	public void testRoundTrip() throws IOException {
+		for ( String name : Arrays.asList( "guide.pot", "fr-old.po", "fr-merged.po", "fr.po", "ja.po" ) ) {
+			assertEquals( name, TestResources.read( name ), PoWriter.render( PoParser.parse( TestResources.file( name ) ) ) );
+		}
+	}
+
+	@Test
+	public void testMerge() throws IOException {
+		final List<PoEntry> merged = PoMerger.merge(
+				PoParser.parse( TestResources.file( "fr-old.po" ) ),
+				PoParser.parse( TestResources.file( "guide.pot" ) )
+		);
+		assertEquals( TestResources.read( "fr-merged.po" ), PoWriter.render( merged ) );
+	}
+
+	@Test
+	public void testMergeIsStable() throws IOException {
+		final List<PoEntry> merged = PoMerger.merge(
+				PoParser.parse( TestResources.file( "fr-merged.po" ) ),
+				PoParser.parse( TestResources.file( "guide.pot" ) )
+		);
+		assertEquals( TestResources.read( "fr-merged.po" ), PoWriter.render( merged ) );
+	}
+
+	@Test
+	public void testInitialize() throws IOException {
+		final String initialized = PoWriter.render(
+				PoMerger.initialize( PoParser.parse( TestResources.file( "guide.pot" ) ), "fr" )
+		);
+		final String revisionDate = "\"PO-Revision-Date: [0-9]{4}-[0-9]{2}-[0-9]{2} [0-9]{2}:[0-9]{2}[+-][0-9]{4}\\\\n\"";
+		assertTrue( initialized, initialized.split( "\n" )[8].matches( revisionDate ) );
+		assertEquals(
+				TestResources.read( "fr-init.po" ),
+				initialized.replaceFirst( revisionDate, "\"PO-Revision-Date: YEAR-MO-DA HO:MI+ZONE\\\\n\"" )
+		);
+	}
+
+	@Test
+	public void testWrapsAfterSlash() throws IOException {
+		assertEquals(
+				Arrays.asList(
+						"Ce guide explique comment produire une documentation <emphasis>traduite</",
+						"emphasis>."
+				),
+				wrap( "Ce guide explique comment produire une documentation <emphasis>traduite</emphasis>." )
+		);
+	}
+
+	@Test
+	public void testDoesNotWrapAfterWordInitialHyphen() throws IOException {
+		assertEquals(
+				Arrays.asList(
+						"Run the build with the following options and then check the output: ",
+						"-Dtranslation=fr"
+				),
+				wrap( "Run the build with the following options and then check the output: -Dtranslation=fr" )
+		);
+	}
+
+	@Test
+	public void testWrapsBetweenIdeographs() throws IOException {
+		// wide characters count for two columns, and no line may start with a closing punctuation
+		final String sentence = "\u3053\u306E\u6587\u306F\u5341\u5206\u306B\u9577\u3044\u306E\u3067\u3001\u6298\u308A\u8FD4\u3055\u308C\u307E\u3059\u3002";
+		final String start = "\u3053\u306E\u6587\u306F\u5341\u5206\u306B\u9577\u3044\u306E\u3067\u3001\u6298\u308A\u8FD4\u3055\u308C";
+		assertEquals(
+				Arrays.asList( sentence + start, "\u308B\u3002" ),
+				wrap( sentence + start + "\u308B\u3002" )
+		);
+	}
+
+	@Test
+	public void testParsesEscapes() throws IOException {
+		final List<PoEntry> entries = new ArrayList<PoEntry>();
+		PoParser.parse(
+				"escapes",
+				new StringReader( "msgid \"a\\tb\\\\c\\\"d\\n\"\nmsgstr \"\\101\\n\"\n" ),
+				new PoParser.Handler() {
+					public void handleEntry(PoEntry entry) {
+						entries.add( entry );
+					}
+				}
+		);
+		assertEquals( 1, entries.size() );
+		assertEquals( "a\tb\\c\"d\n", entries.get( 0 ).getMsgid() );
+		assertEquals( "A\n", entries.get( 0 ).getMsgstr( 0 ) );
+	}
+
+	/**
+	 * The lines of a msgid written as a wrapped (multi-line) string.
+	 */
+	private static List<String> wrap(String msgid) throws IOException {
+		final PoEntry entry = new PoEntry();
+		entry.setMsgid( msgid );
+		entry.setMsgstr( 0, "" );
+		final List<String> lines = new ArrayList<String>();
+		for ( String line : PoWriter.render( Arrays.asList( entry ) ).split( "\n" ) ) {
+			if ( line.startsWith( "\"" ) ) {
+				lines.add( line.substring( 1, line.length() - 1 ) );
+			}
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link PotExtractor} and {@link DocBookSegmenter} against the POT xml2pot gives for a DocBook document.
+ */
+public class PotExtractorTest {
+	@Test
+	public void testExtract() throws IOException {
+		final List<PoEntry> entries = PotExtractor.extract(
+				TestResources.file( "guide.xml" ),
+				"guide.xml",
+				"2010-10-19 07:00+0000"
+		);
+		assertEquals( TestResources.read( "guide.pot" ), PoWriter.render( entries ) );
+	}
+
+	@Test
+	public void testSegmentsCoverTheirMessages() throws IOException {
+		final String source = TestResources.read( "guide.xml" );
+		for ( DocBookSegmenter.Segment segment : segment( source ) ) {
+			final String covered = source.substring( segment.getStart(), segment.getEnd() );
+			if ( DocBookSegmenter.LITERAL_TAGS.contains( segment.getTag() ) ) {
+				assertEquals( segment.getMessage(), covered );
+			}
+			else {
+				assertEquals( segment.getMessage(), DocBookSegmenter.normalize( covered ) );
+			}
+		}
+	}
+
+	@Test
+	public void testInlineMarkupAndComments() throws IOException {
+		final List<DocBookSegmenter.Segment> segments = segment(
+				"<d:section xmlns:d='http://docbook.org/ns/docbook'>\n"
+						+ "<d:para>Some <d:emphasis>inline</d:emphasis> <!-- left out --> text<?pi?>.</d:para>\n"
+						+ "<d:screen>  two\n  lines  </d:screen>\n"
+						+ "<d:para>   </d:para>\n"
+						+ "</d:section>"
+		);
+		assertEquals( 2, segments.size() );
+		assertEquals( "d:para", segments.get( 0 ).getTag() );
+		assertEquals( 2, segments.get( 0 ).getLine() );
+		assertEquals( "Some <d:emphasis>inline</d:emphasis> text.", segments.get( 0 ).getMessage() );
+		assertEquals( "d:screen", segments.get( 1 ).getTag() );
+		assertEquals( "two\n  lines", segments.get( 1 ).getMessage() );
+	}
+
+	@Test
+	public void testNestedCuttingElementSplitsTheMessage() throws IOException {
+		final List<String> messages = new ArrayList<String>();
+		for ( DocBookSegmenter.Segment segment : segment( "<para>Before <note><para>Inside</para></note> after</para>" ) ) {
+			messages.add( segment.getMessage() );
+		}
+		assertEquals( "[Before, Inside, after]", messages.toString() );
+	}
+
+	private static List<DocBookSegmenter.Segment> segment(String source) throws IOException {
+		final List<DocBookSegmenter.Segment> segments = new ArrayList<DocBookSegmenter.Segment>();
+		DocBookSegmenter.segment(
+				"test.xml",
+				source,
+				new DocBookSegmenter.Handler() {
+					public void handleSegment(DocBookSegmenter.Segment segment) {
+						segments.add( segment );
+					}
+				}
+		);
+		return segments;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Access to the fixtures kept next to the tests of this package.
+ */
+class TestResources {
+	private TestResources() {
+	}
+
+	static File file(String name) {
+		final URL url = TestResources.class.getResource( name );
+		if ( url == null ) {
+			throw new IllegalArgumentException( "No test resource [" + name + "]" );
+		}
+		try {
+			return new File( url.toURI() );
+		}
+		catch ( URISyntaxException e ) {
+			throw new IllegalArgumentException( "Unusable test resource [" + name + "]", e );
+		}
+	}
+
+	static String read(String name) throws IOException {
+		final InputStream stream = TestResources.class.getResourceAsStream( name );
+		if ( stream == null ) {
+			throw new IllegalArgumentException( "No test resource [" + name + "]" );
+		}
+		try {
+			return IOUtil.toString( stream, "UTF-8" );
+		}
+		finally {
+			IOUtil.close( stream );
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.po;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link TranslationMemory} against a plain lookup over the parsed PO files: the first translation (in PO file
+ * order) of a message, whitespace aside, which is neither fuzzy, obsolete, plural nor empty.
+ */
+public class TranslationMemoryTest {
+	private static final String[] WORDS = { "build", "the", "guide", "with", "jDocBook", "<emphasis>", "</emphasis>", "\u00e9t\u00e9" };
+	private static final String[] SPACES = { " ", "  ", "\n", "\t" };
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile( "translation-memory", "" );
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		FileUtils.deleteDirectory( directory );
+	}
+
+	@Test
+	public void testRandomPoFiles() throws IOException {
+		for ( long seed = 0; seed < 20; seed++ ) {
+			final Random random = new Random( seed );
+			final Map<String,File> poFiles = new HashMap<String,File>();
+			final int count = 1 + random.nextInt( 5 );
+			for ( int i = 0; i < count; i++ ) {
+				final File poFile = new File( directory, seed + "/" + i + ".po" );
+				PoWriter.write( randomEntries( random ), poFile );
+				poFiles.put( "doc" + i + ".xml", poFile );
+			}
+			poFiles.put( "missing.xml", new File( directory, seed + "/missing.po" ) );
+
+			final Map<String,String> expected = lookUp( poFiles );
+			final TranslationMemory memory = TranslationMemory.update( new File( directory, seed + "/fr.tm" ), poFiles );
+			assertEquals( "seed " + seed, expected.size(), memory.size() );
+			for ( Map.Entry<String,String> translation : expected.entrySet() ) {
+				assertEquals( "seed " + seed, translation.getValue(), memory.lookup( translation.getKey() ) );
+			}
+			for ( int i = 0; i < 50; i++ ) {
+				final String msgid = randomMessage( random );
+				assertEquals( "seed " + seed, expected.get( DocBookSegmenter.normalize( msgid ) ), memory.lookup( msgid ) );
+			}
+		}
+	}
+
+	@Test
+	public void testGenerations() throws IOException {
+		final File poFile = new File( directory, "fr.po" );
+		final File memoryFile = new File( directory, "fr.tm" );
+		final Map<String,File> poFiles = new HashMap<String,File>();
+		poFiles.put( "guide.xml", poFile );
+		FileUtils.copyFile( TestResources.file( "fr.po" ), poFile );
+
+		TranslationMemory memory = TranslationMemory.update( memoryFile, poFiles );
+		final File first = new File( directory, "fr.tm.1" );
+		assertEquals( first, TranslationMemory.getCurrentGeneration( memoryFile ) );
+		assertEquals( "Installation", memory.lookup( "  Installation\n" ) );
+		final String fingerprint = memory.getFingerprint();
+
+		memory = TranslationMemory.update( memoryFile, poFiles );
+		assertEquals( first, TranslationMemory.getCurrentGeneration( memoryFile ) );
+		assertEquals( fingerprint, memory.getFingerprint() );
+
+		final List<PoEntry> entries = PoParser.parse( poFile );
+		for ( PoEntry entry : entries ) {
+			if ( "Installation".equals( entry.getMsgid() ) ) {
+				entry.setMsgstr( 0, "Mise en place" );
+			}
+		}
+		PoWriter.write( entries, poFile );
+		memory = TranslationMemory.update( memoryFile, poFiles );
+		assertEquals( new File( directory, "fr.tm.2" ), TranslationMemory.getCurrentGeneration( memoryFile ) );
+		assertFalse( first.exists() );
+		assertFalse( fingerprint.equals( memory.getFingerprint() ) );
+		assertEquals( "Mise en place", memory.lookup( "Installation" ) );
+
+		assertTrue( poFile.delete() );
+		memory = TranslationMemory.update( memoryFile, poFiles );
+		assertEquals( new File( directory, "fr.tm.3" ), TranslationMemory.getCurrentGeneration( memoryFile ) );
+		assertEquals( 0, memory.size() );
+		assertNull( memory.lookup( "Installation" ) );
+	}
+
+	@Test
+	public void testUnusableMemoryIsRebuilt() throws IOException {
+		final Map<String,File> poFiles = new HashMap<String,File>();
+		poFiles.put( "guide.xml", TestResources.file( "fr.po" ) );
+		final File memoryFile = new File( directory, "fr.tm" );
+		FileUtils.fileWrite( new File( directory, "fr.tm.1" ).getPath(), "garbage" );
+		final TranslationMemory memory = TranslationMemory.update( memoryFile, poFiles );
+		assertEquals( new File( directory, "fr.tm.2" ), TranslationMemory.getCurrentGeneration( memoryFile ) );
+		assertNotNull( memory.lookup( "Installation" ) );
+	}
+
+	@Test
+	public void testFallback() throws IOException {
+		final Map<String,File> poFiles = new HashMap<String,File>();
+		poFiles.put( "guide.xml", TestResources.file( "fr.po" ) );
+		final TranslationMemory memory = TranslationMemory.update( new File( directory, "fr.tm" ), poFiles );
+		final String master = TestResources.read( "guide.xml" );
+		assertEquals(
+				DocumentTranslator.translate( master, "guide.xml", PoIndex.load( TestResources.file( "fr.po" ) ) ),
+				DocumentTranslator.translate( master, "guide.xml", PoIndex.empty(), memory )
+		);
+	}
+
+	private static List<PoEntry> randomEntries(Random random) {
+		final List<PoEntry> entries = new ArrayList<PoEntry>();
+		final PoEntry header = new PoEntry();
+		header.setMsgstr( 0, "Content-Type: text/plain; charset=UTF-8\n" );
+		entries.add( header );
+		final Set<String> msgids = new HashSet<String>();
+		final int count = random.nextInt( 30 );
+		for ( int i = 0; i < count; i++ ) {
+			final String msgid = randomMessage( random );
+			if ( !msgids.add( msgid ) ) {
+				continue;
+			}
+			final PoEntry entry = new PoEntry();
+			entry.setMsgid( msgid );
+			switch ( random.nextInt( 8 ) ) {
+				case 0:
+					entry.setFuzzy( true );
+					entry.setMsgstr( 0, "fuzzy " + i );
+					break;
+				case 1:
+					entry.setObsolete( true );
+					entry.setMsgstr( 0, "obsolete " + i );
+					break;
+				case 2:
+					entry.setMsgidPlural( msgid + "s" );
+					entry.setMsgstr( 0, "one " + i );
+					entry.setMsgstr( 1, "many " + i );
+					break;
+				case 3:
+					entry.setMsgstr( 0, "" );
+					break;
+				default:
+					entry.setMsgstr( 0, "translated " + i + ' ' + randomMessage( random ) );
+			}
+			entries.add( entry );
+		}
+		return entries;
+	}
+
+	private static String randomMessage(Random random) {
+		final StringBuilder message = new StringBuilder();
+		if ( random.nextInt( 4 ) == 0 ) {
+			message.append( SPACES[random.nextInt( SPACES.length )] );
+		}
+		final int words = 1 + random.nextInt( 3 );
+		for ( int i = 0; i < words; i++ ) {
+			if ( i > 0 ) {
+				message.append( SPACES[random.nextInt( SPACES.length )] );
+			}
+			message.append( WORDS[random.nextInt( WORDS.length )] );
+		}
+		return message.toString();
+	}
+
+	private static Map<String,String> lookUp(Map<String,File> poFiles) throws IOException {
+		final Map<String,String> translations = new HashMap<String,String>();
+		for ( File poFile : new TreeMap<String,File>( poFiles ).values() ) {
+			if ( !poFile.exists() ) {
+				continue;
+			}
+			for ( PoEntry entry : PoParser.parse( poFile ) ) {
+				if ( entry.isHeader() || entry.isObsolete() || entry.isFuzzy() || entry.getMsgidPlural() != null
+						|| entry.getMsgstr( 0 ).length() == 0 ) {
+					continue;
+				}
+				final String msgid = DocBookSegmenter.normalize( entry.getMsgid() );
+				if ( !translations.containsKey( msgid ) ) {
+					translations.put( msgid, entry.getMsgstr( 0 ) );
+				}
+			}
+		}
+		return translations;
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * jDocBook, processing of DocBook sources
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.jboss.maven.shared.properties;
+
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link PropertyInterpolator} against the historical resolution algorithm.
+ */
+public class PropertyInterpolatorTest {
+	private static final String[] KEYS = { "a", "b", "c", "d", "e" };
+	private static final String[] TOKENS = {
+			"${a}", "${b}", "${c}", "${d}", "${e}", "${undefined}", "${}", "${", "$", "{", "}", "x", "a", "b", "c"
+	};
+	private static final int STEPS = 1000;
+
+	@Test
+	public void testReferenceToResolvedKeyIsLeftAlone() {
+		final Properties props = properties( "a", "${b}", "b", "x${c}", "c", "a" );
+		assertEquals( "x${c}", PropertiesHelper.getInterpolatedPropertyValue( "a", props ) );
+		assertEquals( "xa", PropertiesHelper.getInterpolatedPropertyValue( "b", props ) );
+	}
+
+	@Test
+	public void testOnlyTheResolvedKeyIsLeftAlone() {
+		final Properties props = properties( "c", "${e}xx", "d", "x${c}", "e", "c" );
+		assertEquals( "xcxx", PropertiesHelper.getInterpolatedPropertyValue( "d", props ) );
+		assertEquals( "${e}xx", PropertiesHelper.getInterpolatedPropertyValue( "c", props ) );
+	}
+
+	@Test
+	public void testEmptyReferenceIsLiteral() {
+		final Properties props = properties( "a", "x${}y", "b", "${a}" );
+		assertEquals( "x${}y", PropertiesHelper.getInterpolatedPropertyValue( "a", props ) );
+		assertEquals( "x${}y", PropertiesHelper.getInterpolatedPropertyValue( "b", props ) );
+	}
+
+	@Test
+	public void testCyclesTerminate() {
+		final Properties props = properties( "test", "${test}", "a", "1${b}", "b", "2${a}" );
+		assertEquals( "${test}", PropertiesHelper.getInterpolatedPropertyValue( "test", props ) );
+		assertEquals( "12${a}", PropertiesHelper.getInterpolatedPropertyValue( "a", props ) );
+	}
+
+	@Test
+	public void testReparsing() {
+		final Properties props = properties( "a", "$", "b", "${a}{c}", "c", "z", "d", "${", "e", "${d}c}" );
+		assertEquals( "z", PropertiesHelper.getInterpolatedPropertyValue( "b", props ) );
+		assertEquals( "z", PropertiesHelper.getInterpolatedPropertyValue( "e", props ) );
+	}
+
+	@Test
+	public void testMatchesHistoricalAlgorithm() {
+		final Random random = new Random( 20101019L );
+		for ( int i = 0; i < 20000; i++ ) {
+			final String[] values = new String[KEYS.length];
+			for ( int k = 0; k < KEYS.length; k++ ) {
+				final StringBuilder value = new StringBuilder();
+				for ( int t = random.nextInt( 4 ); t > 0; t-- ) {
+					value.append( TOKENS[random.nextInt( TOKENS.length )] );
+				}
+				values[k] = value.toString();
+			}
+
+			for ( String key : KEYS ) {
+				final String expected;
+				try {
+					expected = historicalValue( key, properties( values ) );
+				}
+				catch ( NonTerminatingException e ) {
+					continue;
+				}
+				assertEquals(
+						describe( values ) + " " + key,
+						expected,
+						PropertiesHelper.getInterpolatedPropertyValue( key, properties( values ) )
+				);
+			}
+
+			final Properties expected = properties( values );
+			try {
+				historicalResolveAll( expected );
+			}
+			catch ( NonTerminatingException e ) {
+				continue;
+			}
+			final Properties actual = properties( values );
+			PropertiesHelper.resolveAll( actual );
+			assertEquals( describe( values ), expected, actual );
+		}
+	}
+
+	private static Properties properties(String... keysAndValues) {
+		final Properties props = new Properties();
+		if ( keysAndValues.length == KEYS.length ) {
+			for ( int k = 0; k < KEYS.length; k++ ) {
+				props.setProperty( KEYS[k], keysAndValues[k] );
+			}
+		}
+		else {
+			for ( int i = 0; i < keysAndValues.length; i += 2 ) {
+				props.setProperty( keysAndValues[i], keysAndValues[i + 1] );
+			}
+		}
+		return props;
+	}
+
+	private static String describe(String[] values) {
+		final StringBuilder buffer = new StringBuilder( "{" );
+		for ( int k = 0; k < KEYS.length; k++ ) {
+			buffer.append( k == 0 ? "" : ", " ).append( KEYS[k] ).append( '=' ).append( values[k] );
+		}
+		return buffer.append( '}' ).toString();
+	}
+
+	/**
+	 * The resolution loop of <tt>PropertiesHelper.loadPropertyFile</tt> before {@link PropertyInterpolator}.
+	 */
+	private static void historicalResolveAll(Properties props) {
+		for ( Enumeration n = props.propertyNames(); n.hasMoreElements(); ) {
+			String k = ( String ) n.nextElement();
+			props.setProperty( k, historicalValue( k, props ) );
+		}
+	}
+
+	/**
+	 * <tt>PropertiesHelper.getInterpolatedPropertyValue</tt> before {@link PropertyInterpolator}, giving up on
+	 * values it would expand forever (or for very long) and keeping <tt>${}</tt> literally.
+	 */
+	private static String historicalValue(String key, Properties props) {
+		String v = props.getProperty( key );
+		String ret = "";
+		int idx, idx2;
+		int steps = 0;
+
+		while ( ( idx = v.indexOf( "${" ) ) >= 0 ) {
+			if ( ++steps > STEPS || v.length() > STEPS ) {
+				throw new NonTerminatingException();
+			}
+			ret += v.substring( 0, idx );
+			v = v.substring( idx + 2 );
+			if ( ( idx2 = v.indexOf( '}' ) ) < 0 ) {
+				break;
+			}
+			String nk = v.substring( 0, idx2 );
+			v = v.substring( idx2 + 1 );
+			String nv = props.getProperty( nk );
+			if ( nv == null && nk.length() > 0 ) {
+				nv = System.getProperty( nk );
+			}
+			if ( nv == null || nv.equals( key ) ) {
+				ret += "${" + nk + "}";
+			}
+			else {
+				v = nv + v;
+			}
+		}
+		return ret + v;
+	}
+
+	private static class NonTerminatingException extends RuntimeException {
+	}
+}